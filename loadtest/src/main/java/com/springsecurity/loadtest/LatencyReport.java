@@ -0,0 +1,74 @@
+package com.springsecurity.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+public class LatencyReport {
+    /*
+        Class writing the results of a load test
+        - One HdrHistogram percentile distribution per operation, in "<operation>.hgrm", in milliseconds
+        - These files can be plotted and compared with the HdrHistogram plotter
+        - A summary with the throughput, errors and main percentiles of each operation, in "summary.txt" and on the console
+     */
+
+    // Histograms are recorded in nanoseconds and reported in milliseconds
+    private static final double MILLISECONDS = 1_000_000.0;
+
+    private LatencyReport() {
+    }
+
+    public static String write(Path directory, LoadTestProperties properties, LoadGenerator generator,
+                               Map<Operation, Histogram> histograms, long elapsedNanos) throws IOException {
+        Files.createDirectories(directory);
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        Histogram all = new Histogram(3);
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("%s loop, rate %d/s, concurrency %d, %d users, %s tokens, %.1f s measured%n",
+                properties.getRate() > 0 ? "Open" : "Closed", properties.getRate(), properties.getConcurrency(),
+                properties.getUsers(), properties.getTokenFormat(), seconds));
+        summary.append(String.format("%-8s %9s %9s %8s %9s %9s %9s %9s %9s  %s%n",
+                "", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "errors by status"));
+
+        for(Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            Operation operation = entry.getKey();
+            Histogram histogram = entry.getValue();
+            Map<Integer, Long> errors = generator.errors(operation);
+            long errorCount = errors.values().stream().mapToLong(Long::longValue).sum();
+            if(histogram.getTotalCount() == 0 && errorCount == 0) {
+                continue;
+            }
+            all.add(histogram);
+            summary.append(line(operation.key(), histogram, errorCount, seconds, errors.isEmpty() ? "" : errors.toString()));
+            try(PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(operation.key() + ".hgrm")),
+                    false, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, MILLISECONDS);
+            }
+        }
+        summary.append(line("all", all, 0, seconds, ""));
+        try(PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("all.hgrm")),
+                false, StandardCharsets.UTF_8)) {
+            all.outputPercentileDistribution(out, MILLISECONDS);
+        }
+
+        Files.writeString(directory.resolve("summary.txt"), summary, StandardCharsets.UTF_8);
+        return summary.toString();
+    }
+
+    private static String line(String name, Histogram histogram, long errors, double seconds, String errorsByStatus) {
+        return String.format("%-8s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                name, histogram.getTotalCount(), histogram.getTotalCount() / seconds, errors,
+                histogram.getValueAtPercentile(50) / MILLISECONDS,
+                histogram.getValueAtPercentile(90) / MILLISECONDS,
+                histogram.getValueAtPercentile(99) / MILLISECONDS,
+                histogram.getValueAtPercentile(99.9) / MILLISECONDS,
+                histogram.getMaxValue() / MILLISECONDS,
+                errorsByStatus);
+    }
+}
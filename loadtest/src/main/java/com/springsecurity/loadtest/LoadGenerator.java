@@ -0,0 +1,161 @@
+package com.springsecurity.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class LoadGenerator {
+    /*
+        Class sending the mixed workload and recording the latency of every request
+        - Each request runs on its own virtual thread, so a slow request never delays the next one
+        - Latency is measured from when the request was due, not from when it was sent
+        - Open loop, a request waiting for one of the "concurrency" slots is therefore counted as slow, not left out
+        - Latencies are recorded in nanoseconds in one HdrHistogram "Recorder" per operation
+        - Requests answered with anything but 2xx are counted as errors, by status, and not recorded as latencies
+     */
+
+    private final LoadTestClient client;
+    private final LoadTestProperties properties;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Integer, LongAdder>> errors = new EnumMap<>(Operation.class);
+
+    public LoadGenerator(LoadTestClient client, LoadTestProperties properties) {
+        this.client = client;
+        this.properties = properties;
+
+        List<Operation> weighted = new ArrayList<>();
+        List<Integer> weights = new ArrayList<>();
+        int total = 0;
+        for(Operation operation : Operation.values()) {
+            int weight = properties.getMix().getOrDefault(operation.key(), 0);
+            if(weight > 0) {
+                total += weight;
+                weighted.add(operation);
+                weights.add(total);
+            }
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new ConcurrentHashMap<>());
+        }
+        if(weighted.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a weight above zero");
+        }
+        this.operations = weighted.toArray(Operation[]::new);
+        this.cumulativeWeights = weights.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public void run(long durationNanos) throws InterruptedException {
+        /*
+            Function to send the workload for the given duration and wait for every request to answer
+         */
+        long end = System.nanoTime() + durationNanos;
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if(properties.getRate() > 0) {
+                runOpenLoop(executor, end);
+            }
+            else {
+                runClosedLoop(executor, end);
+            }
+        }
+    }
+
+    private void runOpenLoop(ExecutorService executor, long end) {
+        Semaphore slots = new Semaphore(properties.getConcurrency());
+        long interval = 1_000_000_000L / properties.getRate();
+        long start = System.nanoTime();
+        for(long index = 0; ; index++) {
+            long due = start + index * interval;
+            if(due >= end) {
+                return;
+            }
+            long wait = due - System.nanoTime();
+            if(wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick();
+            executor.execute(() -> {
+                slots.acquireUninterruptibly();
+                try {
+                    send(operation, due);
+                }
+                finally {
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    private void runClosedLoop(ExecutorService executor, long end) {
+        for(int worker = 0; worker < properties.getConcurrency(); worker++) {
+            executor.execute(() -> {
+                while(System.nanoTime() < end) {
+                    send(pick(), System.nanoTime());
+                }
+            });
+        }
+    }
+
+    private Operation pick() {
+        int draw = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for(int i = 0; i < cumulativeWeights.length; i++) {
+            if(draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void send(Operation operation, long due) {
+        int status;
+        try {
+            status = client.execute(operation);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if(status >= 200 && status < 300) {
+            recorders.get(operation).recordValue(System.nanoTime() - due);
+        }
+        else {
+            errors.get(operation).computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+    }
+
+    public void reset() {
+        /*
+            Function to drop everything recorded so far, called at the end of the warm up
+         */
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(Map::clear);
+    }
+
+    public Map<Operation, Histogram> histograms() {
+        /*
+            Function to take the latencies recorded since the last reset
+         */
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        recorders.forEach((operation, recorder) -> histograms.put(operation, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+
+    public Map<Integer, Long> errors(Operation operation) {
+        Map<Integer, Long> counts = new TreeMap<>();
+        errors.get(operation).forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+}
@@ -0,0 +1,63 @@
+package com.springsecurity.loadtest;
+
+import com.springsecurity.security.SecurityApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class LoadTestApplication {
+    /*
+        Load test of the application, running on a single machine without any external service
+        - The application is started in this JVM, with the "embedded" profile, on a random port
+        - Users are signed up and signed in, then the mixed workload runs for the warm up and the measured duration
+        - Only what happens after the warm up is reported
+        - Settings are passed as "--loadtest.*" arguments, see "LoadTestProperties", any other argument goes to the application
+     */
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SecurityApplication.class)
+                .profiles("embedded")
+                .properties("server.port=0")
+                .run(args);
+        try {
+            LoadTestProperties properties = Binder.get(context.getEnvironment())
+                    .bind("loadtest", LoadTestProperties.class)
+                    .orElseGet(LoadTestProperties::new);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            LoadTestClient client = new LoadTestClient(port, properties.getTokenFormat());
+            client.prepare(properties.getUsers(), Duration.ofSeconds(30));
+
+            // Access JWT Tokens live 24 minutes, the ADMIN user signs in again well before
+            ScheduledExecutorService renewal = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "loadtest-admin-renewal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            renewal.scheduleAtFixedRate(client::renewAdmin, 10, 10, TimeUnit.MINUTES);
+
+            LoadGenerator generator = new LoadGenerator(client, properties);
+            generator.run(properties.getWarmUp().toNanos());
+            generator.reset();
+
+            long start = System.nanoTime();
+            generator.run(properties.getDuration().toNanos());
+            long elapsed = System.nanoTime() - start;
+            renewal.shutdownNow();
+
+            Path output = Path.of(properties.getOutput());
+            System.out.print(LatencyReport.write(output, properties, generator, generator.histograms(), elapsed));
+            System.out.println("Percentile distributions written to " + output.toAbsolutePath());
+        }
+        finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.springsecurity.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LoadTestClient {
+    /*
+        Class sending the requests of the load test to the application
+        - Signed in users are kept as sessions, each holding its current access and refresh JWT Token
+        - A refresh JWT Token can only be used once, so a session is taken out of the pool while it signs in or refreshes
+        - Authenticated GET requests only read an access JWT Token, so they share sessions freely
+        - Every operation returns the HTTP status, or "0" if the request failed without one
+     */
+
+    // Password of the ADMIN user created by "AdminBootstrap"
+    private static final String ADMIN_EMAIL = "admin@somemail.com";
+    private static final String ADMIN_PASSWORD = "admin";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String tokenFormat;
+
+    private final List<Session> sessions = new ArrayList<>();
+    private final BlockingQueue<Session> idleSessions = new LinkedBlockingQueue<>();
+    private final AtomicLong signUps = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private volatile Session admin;
+
+    public LoadTestClient(int port, String tokenFormat) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = "http://localhost:" + port;
+        this.tokenFormat = tokenFormat;
+    }
+
+    private static final class Session {
+        private final String email;
+        private final String password;
+        private volatile String accessToken;
+        private volatile String refreshToken;
+
+        private Session(String email, String password) {
+            this.email = email;
+            this.password = password;
+        }
+    }
+
+    public void prepare(int users, Duration adminTimeout) throws Exception {
+        /*
+            Function to sign up and sign in the users of the load test, and sign in the ADMIN user
+            - Users are created in parallel, the ADMIN user is waited for since it is created in the background
+         */
+        try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Session>> futures = new ArrayList<>(users);
+            for(int i = 0; i < users; i++) {
+                String email = "loadtest-" + runId + "-" + i + "@somemail.com";
+                futures.add(executor.submit(() -> {
+                    Session session = new Session(email, "password-" + email);
+                    require(signUp(session.email, session.password), "sign up " + email);
+                    require(signIn(session), "sign in " + email);
+                    return session;
+                }));
+            }
+            for(Future<Session> future : futures) {
+                sessions.add(future.get());
+            }
+        }
+        idleSessions.addAll(sessions);
+
+        Session adminSession = new Session(ADMIN_EMAIL, ADMIN_PASSWORD);
+        long deadline = System.nanoTime() + adminTimeout.toNanos();
+        while(signIn(adminSession) != 200) {
+            if(System.nanoTime() > deadline) {
+                throw new IllegalStateException("The ADMIN user could not sign in");
+            }
+            Thread.sleep(100);
+        }
+        admin = adminSession;
+    }
+
+    public int execute(Operation operation) throws InterruptedException {
+        return switch(operation) {
+            case SIGNUP -> signUp("loadtest-" + runId + "-new-" + signUps.incrementAndGet() + "@somemail.com", "password");
+            case SIGNIN -> withIdleSession(this::signIn);
+            case REFRESH -> withIdleSession(this::refresh);
+            case USER -> get("/api/v1/user", sessions.get(ThreadLocalRandom.current().nextInt(sessions.size())).accessToken);
+            case ADMIN -> get("/api/v1/admin", admin.accessToken);
+        };
+    }
+
+    public void renewAdmin() {
+        /*
+            Function to sign the ADMIN user in again before its access JWT Token expires
+         */
+        Session adminSession = new Session(ADMIN_EMAIL, ADMIN_PASSWORD);
+        if(signIn(adminSession) == 200) {
+            admin = adminSession;
+        }
+    }
+
+    private interface SessionOperation {
+        int apply(Session session);
+    }
+
+    private int withIdleSession(SessionOperation operation) throws InterruptedException {
+        Session session = idleSessions.take();
+        try {
+            return operation.apply(session);
+        }
+        finally {
+            idleSessions.add(session);
+        }
+    }
+
+    private int signUp(String email, String password) {
+        return post("/api/v1/auth/signup", Map.of(
+                "firstName", "load",
+                "lastName", "test",
+                "email", email,
+                "password", password
+        ), null);
+    }
+
+    private int signIn(Session session) {
+        return post("/api/v1/auth/signin", Map.of(
+                "email", session.email,
+                "password", session.password,
+                "tokenFormat", tokenFormat
+        ), session);
+    }
+
+    private int refresh(Session session) {
+        return post("/api/v1/auth/refresh", Map.of(
+                "token", session.refreshToken,
+                "tokenFormat", tokenFormat
+        ), session);
+    }
+
+    private int post(String path, Map<String, String> body, Session session) {
+        /*
+            Function to send a JSON POST request
+            - If a session is given, the JWT Tokens of a successful response are stored in it
+         */
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if(session != null && response.statusCode() == 200) {
+                JsonNode tokens = objectMapper.readTree(response.body());
+                if(tokens == null || !tokens.hasNonNull("token")) {
+                    return 0;
+                }
+                session.accessToken = tokens.get("token").asText();
+                session.refreshToken = tokens.get("refreshToken").asText();
+            }
+            return response.statusCode();
+        }
+        catch (IOException exception) {
+            return 0;
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private int get(String path, String accessToken) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + accessToken)
+                    .GET()
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+        catch (IOException exception) {
+            return 0;
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    private static void require(int status, String step) {
+        if(status != 200) {
+            throw new IllegalStateException("Could not " + step + ", status " + status);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.springsecurity.loadtest;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+public class LoadTestProperties {
+    /*
+        Class holding the settings of a load test, bound from the "loadtest" prefix
+        - Pass them as arguments, for example "--loadtest.rate=500 --loadtest.duration=2m"
+        - A rate of zero runs closed loop: "concurrency" clients each send a request as soon as the last one answered
+        - A rate above zero runs open loop: requests start on schedule whether or not earlier ones answered,
+          at most "concurrency" of them in flight, and latency counts from the scheduled start
+        - The mix gives the weight of each operation
+     */
+    private Duration duration = Duration.ofSeconds(60);
+    private Duration warmUp = Duration.ofSeconds(10);
+    private int rate = 0;
+    private int concurrency = 64;
+    private int users = 200;
+    private String tokenFormat = "JWT";
+    private String output = "target/loadtest";
+    private Map<String, Integer> mix = new LinkedHashMap<>(Map.of(
+            "signup", 1,
+            "signin", 4,
+            "refresh", 10,
+            "user", 70,
+            "admin", 15
+    ));
+}
@@ -0,0 +1,18 @@
+package com.springsecurity.loadtest;
+
+public enum Operation {
+    /*
+        Operations of the load test, each reported separately
+        - "user" and "admin" are GET requests authenticated by an access JWT Token, they go through "JwtAuthenticationFilter"
+        - "signin" and "signup" are bound by BCrypt, "refresh" by the refresh JWT Token store
+     */
+    SIGNUP,
+    SIGNIN,
+    REFRESH,
+    USER,
+    ADMIN;
+
+    public String key() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,47 @@
+package com.springsecurity.reactive;
+
+import com.springsecurity.security.config.ApiExceptionHandler;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.crypto.BCryptCostCalibrator;
+import com.springsecurity.security.invalidation.InProcessInvalidationBus;
+import com.springsecurity.security.jwt.CompactTokenCodec;
+import com.springsecurity.security.jwt.CwtTokenCodec;
+import com.springsecurity.security.jwt.JjwtTokenCodec;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import com.springsecurity.security.jwt.TokenRevocationList;
+import com.springsecurity.security.jwt.VerifiedTokenCache;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.services.impl.JWTServiceImpl;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Import;
+
+@SpringBootApplication
+@EnableConfigurationProperties({JwtProperties.class, AuthProperties.class})
+@Import({
+		JwtKeyRing.class,
+		CompactTokenCodec.class,
+		CwtTokenCodec.class,
+		JjwtTokenCodec.class,
+		VerifiedTokenCache.class,
+		TokenRevocationList.class,
+		AuthMetrics.class,
+		BCryptCostCalibrator.class,
+		InProcessInvalidationBus.class,
+		JWTServiceImpl.class,
+		ApiExceptionHandler.class
+})
+public class ReactiveSecurityApplication {
+	/*
+		Reactive variant of the application
+		- Serves the same "/api/v1/auth" endpoints and role rules on WebFlux instead of the servlet stack
+		- JWT signing, verification and caching are imported from the servlet application, nothing else is scanned
+		- Password hashing rejections are answered by the servlet "ApiExceptionHandler", with 503 and "Retry-After"
+	 */
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveSecurityApplication.class, args);
+	}
+}
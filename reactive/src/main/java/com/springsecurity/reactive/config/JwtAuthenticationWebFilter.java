@@ -0,0 +1,79 @@
+package com.springsecurity.reactive.config;
+
+import com.springsecurity.reactive.services.CachedReactiveUserDetailsService;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.services.JWTService;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationWebFilter implements WebFilter {
+    /*
+        Class to authenticate requests from their JWT Token on the reactive stack
+        - Works like the servlet "JwtAuthenticationFilter"
+        - The JWT Token is verified once, on the calling thread, since verification is CPU work without I/O
+        - The user is looked up without blocking through "CachedReactiveUserDetailsService"
+     */
+
+    // Instantiate JWT Service
+    private final JWTService jwtService;
+    // Instantiate reactive User Details Service
+    private final CachedReactiveUserDetailsService userDetailsService;
+    // Instantiate object recording authentication metrics
+    private final AuthMetrics authMetrics;
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        // Get the authorization header from HTTP request
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        // Requests without a JWT Token are passed on unauthenticated
+        if(authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        // Verify the JWT Token once, refresh JWT Tokens are not accepted in place of access tokens
+        final VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtService.verifyAccessToken(authHeader.substring(7));
+        }
+        catch (JwtException | IllegalArgumentException exception) {
+            authMetrics.requestAuthenticated(AuthMetrics.outcomeOf(exception));
+            return chain.filter(exchange);
+        }
+        if(verifiedToken.getSubject() == null) {
+            return chain.filter(exchange);
+        }
+
+        // Look up the user and, if the JWT Token is issued to them, pass the request on authenticated
+        // - The chain is called exactly once, with or without an authentication
+        return userDetailsService.findByUsername(verifiedToken.getSubject())
+                .filter(userDetails -> jwtService.isTokenValid(verifiedToken, userDetails))
+                .map(userDetails -> Optional.of(new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities())))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(authToken -> {
+                    if(authToken.isEmpty()) {
+                        authMetrics.requestAuthenticated(AuthMetrics.UNKNOWN_USER);
+                        return chain.filter(exchange);
+                    }
+                    authMetrics.requestAuthenticated(AuthMetrics.VALID);
+                    return chain.filter(exchange)
+                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authToken.get()));
+                });
+    }
+}
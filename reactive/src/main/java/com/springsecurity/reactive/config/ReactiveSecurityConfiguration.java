@@ -0,0 +1,98 @@
+package com.springsecurity.reactive.config;
+
+import com.springsecurity.reactive.services.CachedReactiveUserDetailsService;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.crypto.BCryptCostCalibrator;
+import com.springsecurity.security.entities.Role;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@EnableWebFluxSecurity
+@RequiredArgsConstructor
+public class ReactiveSecurityConfiguration {
+    /*
+        Class responsible for instantiating the reactive Security Filters
+        - The role rules are the same as those of the servlet "SecurityConfiguration"
+     */
+
+    // Declare object for JWT Authentication web filter
+    private final JwtAuthenticationWebFilter jwtAuthWebFilter;
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity httpSecurity) {
+        /*
+            Function to create a "SecurityWebFilterChain"
+         */
+        return httpSecurity
+                // Disable CSRF, form login and HTTP basic, every request carries a JWT Token
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                // Declaring authentication for API Endpoints
+                .authorizeExchange(exchange -> exchange
+                        // Whitelisting API Endpoints
+                        .pathMatchers("/api/v1/auth/**").permitAll()
+                        // ADMIN API Endpoints can only be accessed by users having ADMIN Role
+                        .pathMatchers("/api/v1/admin", "/api/v1/admin/**").hasAnyAuthority(Role.ADMIN.name())
+                        // USER API Endpoints can only be accessed by users having USER Role
+                        .pathMatchers("/api/v1/user").hasAnyAuthority(Role.USER.name())
+                        // Other API Endpoints need to be authenticated
+                        .anyExchange().authenticated()
+                )
+                // Requests are stateless, the authentication is never stored between requests
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                // Authenticate requests from their JWT Token
+                .addFilterAt(jwtAuthWebFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    @Bean
+    public Scheduler passwordHashingScheduler(AuthProperties authProperties) {
+        /*
+            Function to create the bounded scheduler BCrypt runs on
+            - BCrypt never runs on an event loop thread
+            - Once the queue is full, new work is rejected instead of piling up
+         */
+        AuthProperties.Hashing hashing = authProperties.getHashing();
+        int threads = hashing.getThreads() > 0 ? hashing.getThreads() : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(threads, hashing.getQueueCapacity(), "password-hashing");
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder(BCryptCostCalibrator bCryptCostCalibrator) {
+        /*
+            Function to return the same password encoder as the servlet variant, at the calibrated BCrypt cost
+            - Hashes are prefixed with their algorithm, which a plain "BCryptPasswordEncoder" would not accept
+         */
+        return bCryptCostCalibrator.passwordEncoder();
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(
+            CachedReactiveUserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            Scheduler passwordHashingScheduler
+    ) {
+        /*
+            Function to return the Authentication Manager used at sign in
+            - The password check runs on the bounded password hashing scheduler
+         */
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userDetailsService);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setScheduler(passwordHashingScheduler);
+        return authenticationManager;
+    }
+}
@@ -0,0 +1,23 @@
+package com.springsecurity.reactive.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+public class GreetingController {
+    /*
+        Class to act as API Gateway for users and admins on the reactive stack
+     */
+
+    @GetMapping("/api/v1/user")
+    public Mono<ResponseEntity<String>> sayHelloToUser() {
+        return Mono.just(ResponseEntity.ok("Hi User!"));
+    }
+
+    @GetMapping("/api/v1/admin")
+    public Mono<ResponseEntity<String>> sayHelloToAdmin() {
+        return Mono.just(ResponseEntity.ok("Hi Admin!"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.springsecurity.reactive.controller;
+
+import com.springsecurity.reactive.services.ReactiveAuthenticationService;
+import com.springsecurity.security.dto.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthenticationController {
+    /*
+        Class to act as authentication API Gateway for users on the reactive stack
+     */
+
+    // Instantiate reactive Authentication Service object
+    private final ReactiveAuthenticationService authenticationService;
+
+    @PostMapping("/signup")
+    public Mono<ResponseEntity<SignUpResponse>> signup(@RequestBody SignUpRequest signUpRequest) {
+        return authenticationService.signUpRequest(signUpRequest).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/signin")
+    public Mono<ResponseEntity<JwtAuthenticationResponse>> signin(@RequestBody SignInRequest signInRequest) {
+        return authenticationService.signInRequest(signInRequest).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<JwtAuthenticationResponse>> refresh(@RequestBody RefreshTokenRequest refreshTokenRequest) {
+        return authenticationService.refreshToken(refreshTokenRequest)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.ok(null));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException exception) {
+        return ResponseEntity.badRequest().body(exception.getMessage());
+    }
+}
@@ -0,0 +1,35 @@
+package com.springsecurity.reactive.entities;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+@Data
+@Table("refresh_token")
+public class RefreshTokenRow implements Persistable<String> {
+    /*
+        Class mapping the "refresh_token" table for R2DBC
+        - The table is the one created by the servlet application for the JPA "RefreshToken" entity
+        - The id is the "jti" claim of the refresh JWT Token, every refresh JWT Token of a sign in shares the family id
+     */
+    @Id
+    private String id;
+    private String familyId;
+    private String email;
+    private Instant expiresAt;
+    private boolean used;
+    private boolean revoked;
+
+    // Ids are assigned before saving, so new rows are inserted instead of updated
+    @Transient
+    private boolean newToken = true;
+
+    @Override
+    public boolean isNew() {
+        return newToken;
+    }
+}
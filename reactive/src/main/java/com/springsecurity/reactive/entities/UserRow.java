@@ -0,0 +1,38 @@
+package com.springsecurity.reactive.entities;
+
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Table("user")
+public class UserRow {
+    /*
+        Class mapping the "user" table for R2DBC
+        - The table is the one created by the servlet application for the JPA "User" entity
+        - The role is stored by JPA as its ordinal, so it is mapped as a number here
+     */
+    @Id
+    private Integer id;
+    private String firstname;
+    private String secondname;
+    private String email;
+    private String password;
+    private Integer role;
+
+    public User toUser() {
+        /*
+            Function to convert the row into the "User" used by Spring Security and "JWTService"
+         */
+        User user = new User();
+        user.setId(id);
+        user.setFirstname(firstname);
+        user.setSecondname(secondname);
+        user.setEmail(email);
+        user.setPassword(password);
+        user.setRole(role == null ? null : Role.values()[role]);
+        return user;
+    }
+}
@@ -0,0 +1,24 @@
+package com.springsecurity.reactive.repository;
+
+import com.springsecurity.reactive.entities.RefreshTokenRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+public interface ReactiveRefreshTokenRepository extends R2dbcRepository<RefreshTokenRow, String> {
+    @Modifying
+    @Query("update refresh_token set used = true where id = :id and used = false and revoked = false")
+    Mono<Integer> markUsed(@Param("id") String id);
+
+    @Modifying
+    @Query("update refresh_token set revoked = true where family_id = :familyId")
+    Mono<Integer> revokeFamily(@Param("familyId") String familyId);
+
+    @Query("select * from refresh_token where family_id = :familyId and expires_at > :now")
+    Flux<RefreshTokenRow> findLiveByFamily(@Param("familyId") String familyId, @Param("now") Instant now);
+}
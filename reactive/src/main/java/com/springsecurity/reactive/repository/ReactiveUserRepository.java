@@ -0,0 +1,9 @@
+package com.springsecurity.reactive.repository;
+
+import com.springsecurity.reactive.entities.UserRow;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository extends R2dbcRepository<UserRow, Integer> {
+    Mono<UserRow> findByEmail(String email);
+}
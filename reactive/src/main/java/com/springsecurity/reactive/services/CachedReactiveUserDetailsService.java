@@ -0,0 +1,55 @@
+package com.springsecurity.reactive.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springsecurity.reactive.entities.UserRow;
+import com.springsecurity.reactive.repository.ReactiveUserRepository;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.entities.User;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class CachedReactiveUserDetailsService implements ReactiveUserDetailsService {
+    /*
+        Class to fetch user details from database through R2DBC and a cache
+        - The cache is bounded in size and every entry expires after a time to live
+        - Concurrent lookups of the same email share a single query
+        - Users which do not exist are not cached
+     */
+
+    // Declare object used to fetch data from database
+    private final ReactiveUserRepository userRepository;
+
+    // Users by email, held as futures so that concurrent lookups share one query
+    private final AsyncCache<String, User> cache;
+
+    public CachedReactiveUserDetailsService(ReactiveUserRepository userRepository, AuthProperties authProperties) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(authProperties.getUserCache().getMaximumSize())
+                .expireAfterWrite(authProperties.getUserCache().getTimeToLive())
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        /*
+            Function to fetch user details by email
+            - An empty result means the user does not exist
+         */
+        return Mono.fromFuture(() -> cache.get(username, (email, executor) ->
+                        userRepository.findByEmail(email).map(UserRow::toUser).toFuture()))
+                .cast(UserDetails.class);
+    }
+
+    public void evict(String email) {
+        /*
+            Function to drop a user from the cache
+         */
+        cache.synchronous().invalidate(email);
+    }
+}
@@ -0,0 +1,139 @@
+package com.springsecurity.reactive.services;
+
+import com.springsecurity.reactive.entities.UserRow;
+import com.springsecurity.reactive.repository.ReactiveUserRepository;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.crypto.PasswordHashingRejectedException;
+import com.springsecurity.security.dto.*;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.services.JWTService;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveAuthenticationService {
+    /*
+        Service to sign up, sign in and refresh JWT Tokens on the reactive stack
+        - Works like the servlet "AuthenticationServiceImpl"
+        - BCrypt runs on the bounded password hashing scheduler, never on an event loop thread
+        - When that scheduler's queue is full, the request fails with "PasswordHashingRejectedException", answered with 503
+     */
+
+    // Instantiate object for ReactiveUserRepository
+    private final ReactiveUserRepository userRepository;
+    // Instantiate object to encode password
+    private final PasswordEncoder passwordEncoder;
+    // Instantiate object for reactive Authentication Manager
+    private final ReactiveAuthenticationManager authenticationManager;
+    // Instantiate object for JWT Service
+    private final JWTService jwtService;
+    // Instantiate reactive User Details Service
+    private final CachedReactiveUserDetailsService userDetailsService;
+    // Instantiate scheduler BCrypt runs on
+    private final Scheduler passwordHashingScheduler;
+    // Instantiate service issuing and rotating refresh JWT Tokens
+    private final ReactiveRefreshTokenService refreshTokenService;
+    // Instantiate authentication settings
+    private final AuthProperties authProperties;
+
+    public Mono<SignUpResponse> signUpRequest(SignUpRequest signUpRequest) {
+        /*
+            Function to sign up new user
+            - The password is encoded on the password hashing scheduler before the user is saved
+         */
+        return Mono.fromCallable(() -> passwordEncoder.encode(signUpRequest.getPassword()))
+                .subscribeOn(passwordHashingScheduler)
+                .onErrorMap(RejectedExecutionException.class, this::hashingRejected)
+                .flatMap(encodedPassword -> {
+                    // Feed details to the user row from SignUpRequest
+                    UserRow user = new UserRow();
+                    user.setEmail(signUpRequest.getEmail());
+                    user.setFirstname(signUpRequest.getFirstName());
+                    user.setSecondname(signUpRequest.getLastName());
+                    user.setRole(Role.USER.ordinal());
+                    user.setPassword(encodedPassword);
+                    return userRepository.save(user);
+                })
+                .map(user -> {
+                    // Drop any cached details for this email, so the next lookup reads the saved user
+                    userDetailsService.evict(user.getEmail());
+
+                    // Create a new sign-up response
+                    SignUpResponse signUpResponse = new SignUpResponse();
+                    signUpResponse.setFirstName(signUpRequest.getFirstName());
+                    signUpResponse.setLastName(signUpRequest.getLastName());
+                    signUpResponse.setEmail(signUpRequest.getEmail());
+                    signUpResponse.setUsername(signUpRequest.getEmail());
+                    return signUpResponse;
+                });
+    }
+
+    public Mono<JwtAuthenticationResponse> signInRequest(SignInRequest signInRequest) {
+        /*
+            Function to validate a Sign In Request and generate JWT token for the user
+         */
+        return authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+                        signInRequest.getEmail(),
+                        signInRequest.getPassword()
+                ))
+                .onErrorMap(RejectedExecutionException.class, this::hashingRejected)
+                .onErrorMap(AuthenticationException.class,
+                        exception -> new IllegalArgumentException("Invalid username or password"))
+                .flatMap(authentication -> {
+                    User user = (User) authentication.getPrincipal();
+
+                    // Create JWT Token and start a new family of refresh JWT Tokens for the user
+                    return refreshTokenService.issue(user).map(refreshToken -> {
+                        JwtAuthenticationResponse jwtAuthenticationResponse = new JwtAuthenticationResponse();
+                        jwtAuthenticationResponse.setToken(jwtService.generateToken(user));
+                        jwtAuthenticationResponse.setRefreshToken(refreshToken);
+                        return jwtAuthenticationResponse;
+                    });
+                });
+    }
+
+    public Mono<JwtAuthenticationResponse> refreshToken(RefreshTokenRequest refreshTokenRequest) {
+        /*
+            Function to refresh JWT Token
+            - The refresh JWT Token is verified once, then the user is looked up without blocking
+            - The refresh JWT Token is used up and the next one of its family is returned, like on the servlet stack
+            - Completes empty if the refresh JWT Token is not valid for the user
+            - Errors with Illegal Argument Exception if the refresh JWT Token has been used or revoked
+         */
+        final VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtService.verifyToken(refreshTokenRequest.getToken());
+        }
+        catch (JwtException exception) {
+            return Mono.error(new IllegalArgumentException("Invalid refresh token"));
+        }
+
+        return userDetailsService.findByUsername(verifiedToken.getSubject())
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("User not found")))
+                .filter(user -> jwtService.isTokenValid(verifiedToken, user))
+                .flatMap(user -> refreshTokenService.rotate(verifiedToken, user).map(nextRefreshToken -> {
+                    JwtAuthenticationResponse jwtAuthenticationResponse = new JwtAuthenticationResponse();
+                    jwtAuthenticationResponse.setToken(jwtService.generateToken(user, refreshTokenRequest.getTokenFormat()));
+                    jwtAuthenticationResponse.setRefreshToken(nextRefreshToken);
+                    return jwtAuthenticationResponse;
+                }));
+    }
+
+    private PasswordHashingRejectedException hashingRejected(RejectedExecutionException exception) {
+        /*
+            Function to report a full password hashing queue like the servlet stack does
+         */
+        return new PasswordHashingRejectedException(authProperties.getHashing().getRetryAfter());
+    }
+}
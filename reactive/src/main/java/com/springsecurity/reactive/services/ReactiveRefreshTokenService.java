@@ -0,0 +1,125 @@
+package com.springsecurity.reactive.services;
+
+import com.springsecurity.reactive.entities.RefreshTokenRow;
+import com.springsecurity.reactive.repository.ReactiveRefreshTokenRepository;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.jwt.TokenIds;
+import com.springsecurity.security.services.JWTService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Service
+public class ReactiveRefreshTokenService {
+    /*
+        Service to issue and rotate refresh JWT Tokens on the reactive stack
+        - Works like the servlet "RefreshTokenServiceImpl", on the same "refresh_token" table
+        - Every sign in starts a family, every refresh uses up its refresh JWT Token and issues the next one of the family
+        - Using a refresh JWT Token a second time means it has leaked, so its whole family is revoked
+        - The database decides which of two requests used a refresh JWT Token first, through a conditional update
+        - There is no in-memory index, every rotation reads the row of its refresh JWT Token
+        - Expired rows are purged by the servlet application
+     */
+
+    // Declare object storing refresh JWT Tokens in the database
+    private final ReactiveRefreshTokenRepository refreshTokenRepository;
+    // Declare object signing refresh JWT Tokens
+    private final JWTService jwtService;
+    // Declare object running database work in a transaction
+    private final TransactionalOperator transactionalOperator;
+
+    private final Duration timeToLive;
+
+    public ReactiveRefreshTokenService(ReactiveRefreshTokenRepository refreshTokenRepository, JWTService jwtService,
+                                       TransactionalOperator transactionalOperator, AuthProperties authProperties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtService = jwtService;
+        this.transactionalOperator = transactionalOperator;
+        this.timeToLive = authProperties.getRefreshTokens().getTimeToLive();
+    }
+
+    public Mono<String> issue(UserDetails userDetails) {
+        /*
+            Function to issue the first refresh JWT Token of a new family, on sign in
+         */
+        RefreshTokenRow refreshToken = newRefreshToken(userDetails, TokenIds.newId());
+        return refreshTokenRepository.save(refreshToken).map(saved -> sign(refreshToken, userDetails));
+    }
+
+    public Mono<String> rotate(VerifiedToken refreshToken, UserDetails userDetails) {
+        /*
+            Function to use up a refresh JWT Token and issue the next one of its family
+            - The refresh JWT Token is used up and its successor saved in a single transaction
+            - Errors with Illegal Argument Exception if the refresh JWT Token is unknown, used or revoked
+         */
+        String tokenId = refreshToken.getTokenId();
+        String familyId = refreshToken.getFamilyId();
+        if(tokenId == null || familyId == null) {
+            return invalid();
+        }
+
+        return refreshTokenRepository.findById(tokenId)
+                .filter(stored -> stored.getFamilyId().equals(familyId) && !stored.isRevoked())
+                .switchIfEmpty(invalid())
+                .flatMap(stored -> {
+                    // The refresh JWT Token has been used before, it has leaked
+                    if(stored.isUsed()) {
+                        return revokeFamily(familyId).then(invalid());
+                    }
+                    RefreshTokenRow successor = newRefreshToken(userDetails, familyId);
+                    return refreshTokenRepository.markUsed(tokenId)
+                            .flatMap(updated -> updated == 0
+                                    // Another request used this refresh JWT Token first
+                                    ? Mono.<RefreshTokenRow>error(new ReusedRefreshTokenException())
+                                    : refreshTokenRepository.save(successor))
+                            .as(transactionalOperator::transactional)
+                            .map(saved -> sign(successor, userDetails))
+                            .onErrorResume(ReusedRefreshTokenException.class,
+                                    exception -> revokeFamily(familyId).then(invalid()));
+                });
+    }
+
+    public Mono<Void> revokeFamily(String familyId) {
+        /*
+            Function to revoke every refresh JWT Token of a family
+            - The token id of each refresh JWT Token of the family which has not expired is revoked as well
+         */
+        return refreshTokenRepository.revokeFamily(familyId)
+                .thenMany(refreshTokenRepository.findLiveByFamily(familyId, Instant.now()))
+                .doOnNext(refreshToken -> jwtService.revokeToken(
+                        refreshToken.getId(), refreshToken.getExpiresAt().toEpochMilli()))
+                .then();
+    }
+
+    private RefreshTokenRow newRefreshToken(UserDetails userDetails, String familyId) {
+        RefreshTokenRow refreshToken = new RefreshTokenRow();
+        refreshToken.setId(TokenIds.newId());
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setEmail(userDetails.getUsername());
+        refreshToken.setExpiresAt(Instant.now().plus(timeToLive));
+        return refreshToken;
+    }
+
+    private String sign(RefreshTokenRow refreshToken, UserDetails userDetails) {
+        return jwtService.generateRefreshedToken(userDetails, refreshToken.getId(), refreshToken.getFamilyId(),
+                refreshToken.getExpiresAt().toEpochMilli());
+    }
+
+    private static <T> Mono<T> invalid() {
+        return Mono.error(new IllegalArgumentException("Invalid refresh token"));
+    }
+
+    private static class ReusedRefreshTokenException extends RuntimeException {
+        /*
+            Exception rolling back a rotation which lost the race for its refresh JWT Token
+         */
+        ReusedRefreshTokenException() {
+            super("Refresh token already used", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+#!/usr/bin/env bash
+#
+# Startup time and memory of the JVM, CDS, AOT and native builds
+# - Every build is started RUNS times with the same arguments, the median is reported
+# - Startup is the wall time from launch to the "Started SecurityApplication" log line
+# - RSS is read from /proc once the application has started, before any request
+# - The database in application.yml must be reachable, with the schema already created
+#
+# Usage:
+#   ./mvnw -P native package native:compile -DskipTests
+#   scripts/startup-benchmark.sh [runs] [spring arguments...]
+#
+# Example:
+#   scripts/startup-benchmark.sh 10 --spring.profiles.active=cold-start --auth.hashing.bcrypt-cost=12
+#
+set -euo pipefail
+
+RUNS="${1:-5}"
+shift || true
+ARGS=("$@")
+[ ${#ARGS[@]} -eq 0 ] && ARGS=(--spring.profiles.active=cold-start)
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$(ls "$ROOT"/target/security-*-exec.jar | head -n 1)"
+NATIVE="$ROOT/target/security"
+WORK="$ROOT/target/startup-benchmark"
+MAIN=com.springsecurity.security.SecurityApplication
+
+# The jar is unpacked, so the JVM loads classes from a plain class path which CDS can archive
+rm -rf "$WORK" && mkdir -p "$WORK/app"
+(cd "$WORK/app" && jar -xf "$JAR")
+CLASSPATH="$WORK/app/BOOT-INF/classes:$WORK/app/BOOT-INF/lib/*"
+
+start() {
+  # Launch one build, wait for it to start, print "<milliseconds> <kilobytes>" and stop it
+  local log="$WORK/run.log"
+  local begin
+  begin=$(date +%s%N)
+  "$@" > "$log" 2>&1 &
+  local pid=$!
+  until grep -q "Started SecurityApplication" "$log"; do
+    if ! kill -0 "$pid" 2> /dev/null; then
+      echo "Application exited before starting, see $log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  local end
+  end=$(date +%s%N)
+  local rss
+  rss=$(awk '/VmRSS/ { print $2 }' "/proc/$pid/status")
+  kill -TERM "$pid"
+  wait "$pid" || true
+  echo "$(( (end - begin) / 1000000 )) $rss"
+}
+
+measure() {
+  # Run one build RUNS times and print the median startup time and RSS
+  local name=$1
+  shift
+  local times=() sizes=()
+  for _ in $(seq "$RUNS"); do
+    read -r time size < <(start "$@")
+    times+=("$time")
+    sizes+=("$size")
+  done
+  local median=$(( (RUNS + 1) / 2 ))
+  printf "%-8s startup %6d ms   rss %8d KB\n" "$name" \
+    "$(printf "%s\n" "${times[@]}" | sort -n | sed -n "${median}p")" \
+    "$(printf "%s\n" "${sizes[@]}" | sort -n | sed -n "${median}p")"
+}
+
+# Record the class data archive with one training run, stopped once started
+start java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -cp "$CLASSPATH" "$MAIN" "${ARGS[@]}" > /dev/null
+
+measure jvm java -cp "$CLASSPATH" "$MAIN" "${ARGS[@]}"
+measure cds java -XX:SharedArchiveFile="$WORK/app.jsa" -cp "$CLASSPATH" "$MAIN" "${ARGS[@]}"
+if unzip -l "$JAR" | grep -q "__ApplicationContextInitializer"; then
+  measure aot java -Dspring.aot.enabled=true -cp "$CLASSPATH" "$MAIN" "${ARGS[@]}"
+else
+  echo "aot      skipped, build with -P native"
+fi
+if [ -x "$NATIVE" ]; then
+  measure native "$NATIVE" "${ARGS[@]}"
+else
+  echo "native   skipped, build with -P native native:compile"
+fi
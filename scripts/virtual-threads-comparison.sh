@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+#
+# Load test of the platform thread pool against the virtual-threads profile
+# - Both runs use the load test module, the embedded H2 database and the same load settings
+# - The Hikari pool is sized the same for both, so only the threads running requests differ
+# - The runs alternate ROUNDS times, each run starts a fresh JVM, and every summary is printed at the end
+# - Compare req/s and the p99 and p99.9 columns, the ".hgrm" files can be plotted side by side
+#
+# Usage:
+#   ./mvnw -f loadtest/pom.xml package
+#   scripts/virtual-threads-comparison.sh [rounds] [loadtest arguments...]
+#
+# Example:
+#   scripts/virtual-threads-comparison.sh 3 --loadtest.rate=800 --loadtest.duration=2m --loadtest.concurrency=400
+#
+set -euo pipefail
+
+ROUNDS="${1:-2}"
+shift || true
+ARGS=("$@")
+[ ${#ARGS[@]} -eq 0 ] && ARGS=(--loadtest.rate=500 --loadtest.duration=2m --loadtest.concurrency=256)
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$(ls "$ROOT"/loadtest/target/security-loadtest-*.jar | grep -v original | head -n 1)"
+WORK="$ROOT/target/virtual-threads-comparison"
+POOL=(--spring.datasource.hikari.maximum-pool-size=50)
+
+rm -rf "$WORK" && mkdir -p "$WORK"
+
+for round in $(seq "$ROUNDS"); do
+  echo "Round $round of $ROUNDS: platform threads"
+  java -jar "$JAR" "${POOL[@]}" "${ARGS[@]}" --loadtest.output="$WORK/platform-$round" > "$WORK/platform-$round.log" 2>&1
+  echo "Round $round of $ROUNDS: virtual threads"
+  java -jar "$JAR" --spring.profiles.active=virtual-threads "${POOL[@]}" "${ARGS[@]}" \
+    --loadtest.output="$WORK/virtual-threads-$round" > "$WORK/virtual-threads-$round.log" 2>&1
+done
+
+for round in $(seq "$ROUNDS"); do
+  for profile in platform virtual-threads; do
+    echo
+    echo "== $profile, round $round"
+    cat "$WORK/$profile-$round/summary.txt"
+  done
+done
+echo
+echo "Percentile distributions written to $WORK"
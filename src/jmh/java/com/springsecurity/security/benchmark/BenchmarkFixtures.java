@@ -0,0 +1,108 @@
+package com.springsecurity.security.benchmark;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.invalidation.InProcessInvalidationBus;
+import com.springsecurity.security.jwt.CompactTokenCodec;
+import com.springsecurity.security.jwt.CwtTokenCodec;
+import com.springsecurity.security.jwt.JjwtTokenCodec;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import com.springsecurity.security.jwt.TokenCodec;
+import com.springsecurity.security.jwt.TokenRevocationList;
+import com.springsecurity.security.jwt.VerifiedTokenCache;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.impl.JWTServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+final class BenchmarkFixtures {
+    /*
+        Class building the objects shared by the benchmarks, without starting Spring
+     */
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtProperties jwtProperties(boolean cacheEnabled) {
+        return jwtProperties(cacheEnabled, "HS256");
+    }
+
+    static JwtProperties jwtProperties(boolean cacheEnabled, String algorithm) {
+        JwtProperties.KeyDefinition key = keyDefinition(algorithm);
+        key.setKid("benchmark");
+        key.setActive(true);
+
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.getKeys().add(key);
+        jwtProperties.getCache().setEnabled(cacheEnabled);
+        return jwtProperties;
+    }
+
+    static JwtProperties.KeyDefinition keyDefinition(String algorithm) {
+        /*
+            Function to build a key definition, generating a fresh key pair for ES256 and EdDSA
+         */
+        JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+        key.setAlgorithm(algorithm);
+        if("HS256".equals(algorithm)) {
+            key.setSecret("413F4428472B4B6250655368566D5970337336763979244226452948404D6351");
+            return key;
+        }
+        try {
+            KeyPairGenerator generator;
+            if("ES256".equals(algorithm)) {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            }
+            else {
+                generator = KeyPairGenerator.getInstance("Ed25519");
+            }
+            KeyPair keyPair = generator.generateKeyPair();
+            key.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+            key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+            return key;
+        }
+        catch (GeneralSecurityException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    static TokenCodec codec(String codec, JwtKeyRing keyRing) {
+        return "jjwt".equals(codec) ? new JjwtTokenCodec(keyRing) : new CompactTokenCodec(keyRing);
+    }
+
+    static JWTService jwtService(String codec, boolean cacheEnabled) {
+        return jwtService(codec, cacheEnabled, "HS256");
+    }
+
+    static JWTService jwtService(String codec, boolean cacheEnabled, String algorithm) {
+        JwtProperties jwtProperties = jwtProperties(cacheEnabled, algorithm);
+        JwtKeyRing keyRing = new JwtKeyRing(jwtProperties);
+        AuthMetrics authMetrics = authMetrics();
+        return new JWTServiceImpl(codec(codec, keyRing), new VerifiedTokenCache(jwtProperties),
+                authMetrics, new TokenRevocationList(jwtProperties), new CwtTokenCodec(keyRing),
+                jwtProperties, new InProcessInvalidationBus(new AuthProperties(), authMetrics));
+    }
+
+    static AuthMetrics authMetrics() {
+        return new AuthMetrics(new SimpleMeterRegistry());
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(1);
+        user.setFirstname("bench");
+        user.setSecondname("mark");
+        user.setEmail("benchmark@somemail.com");
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,105 @@
+package com.springsecurity.security.benchmark;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.config.JwtAuthenticationFilter;
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+    /*
+        Benchmark of a full "JwtAuthenticationFilter" pass for a request with a valid JWT Token
+        - The user lookup is an in-memory stub, so the numbers exclude the database
+        - With "serverTiming" the phases are also collected for the "Server-Timing" header
+     */
+
+    @Param({"compact", "jjwt"})
+    public String codec;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    @Param({"false", "true"})
+    public boolean statelessPrincipal;
+
+    @Param({"false", "true"})
+    public boolean serverTiming;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        User user = BenchmarkFixtures.user();
+        JWTService jwtService = BenchmarkFixtures.jwtService(codec, cache);
+        JwtProperties jwtProperties = BenchmarkFixtures.jwtProperties(cache);
+        jwtProperties.setStatelessPrincipal(statelessPrincipal);
+
+        AuthProperties authProperties = new AuthProperties();
+        authProperties.getServerTiming().setEnabled(serverTiming);
+
+        filter = new JwtAuthenticationFilter(jwtService, new StubUserService(user), jwtProperties,
+                BenchmarkFixtures.authMetrics(), authProperties);
+        authorization = "Bearer " + jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/user");
+        request.addHeader("Authorization", authorization);
+        MockFilterChain chain = new MockFilterChain();
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        }
+        finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private record StubUserService(User user) implements UserService {
+        /*
+            User Service returning a single in-memory user
+         */
+        @Override
+        public UserDetailsService userDetailsService() {
+            return username -> user;
+        }
+
+        @Override
+        public AuthenticationProvider authenticationProvider() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void evictUser(String email) {
+        }
+
+        @Override
+        public void evictNewUsers(Collection<String> emails) {
+        }
+
+        @Override
+        public User changeRole(String email, Role role) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
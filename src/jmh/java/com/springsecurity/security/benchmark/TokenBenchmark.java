@@ -0,0 +1,63 @@
+package com.springsecurity.security.benchmark;
+
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.services.JWTService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenBenchmark {
+    /*
+        Benchmarks of JWT Token issuance and verification in "JWTServiceImpl"
+        - Runs against both codecs, with and without the verified JWT Token cache
+        - Runs with a shared HS256 secret and with an ES256 key pair
+        - EdDSA is only supported by the compact codec, run it with "-p codec=compact -p algorithm=EdDSA"
+     */
+
+    @Param({"compact", "jjwt"})
+    public String codec;
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private JWTService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService(codec, cache, algorithm);
+        user = BenchmarkFixtures.user();
+        token = jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateRefreshedToken() {
+        return jwtService.generateRefreshedToken(new HashMap<>(), user);
+    }
+
+    @Benchmark
+    public String extractUserName() {
+        return jwtService.extractUserName(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
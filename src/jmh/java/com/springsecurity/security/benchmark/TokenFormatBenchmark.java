@@ -0,0 +1,89 @@
+package com.springsecurity.security.benchmark;
+
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.jwt.CompactTokenCodec;
+import com.springsecurity.security.jwt.CwtTokenCodec;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import com.springsecurity.security.jwt.TokenClaims;
+import com.springsecurity.security.jwt.TokenIds;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenFormatBenchmark {
+    /*
+        Benchmarks comparing JWT Tokens and CWT Tokens carrying the same claims
+        - The codecs are called directly, without the verified token cache, so only encoding and parsing are measured
+        - The size of each token is reported by JMH as the "bytes" secondary result, next to the encode and parse cost
+     */
+
+    @Param({"JWT", "CWT"})
+    public String format;
+
+    @Param({"HS256", "ES256"})
+    public String algorithm;
+
+    private Function<TokenClaims, String> encoder;
+    private Function<String, VerifiedToken> decoder;
+    private TokenClaims claims;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtProperties jwtProperties = BenchmarkFixtures.jwtProperties(false, algorithm);
+        JwtKeyRing keyRing = new JwtKeyRing(jwtProperties);
+        if("CWT".equals(format)) {
+            CwtTokenCodec codec = new CwtTokenCodec(keyRing);
+            encoder = codec::encode;
+            decoder = codec::decode;
+        }
+        else {
+            CompactTokenCodec codec = new CompactTokenCodec(keyRing);
+            encoder = codec::encode;
+            decoder = codec::decode;
+        }
+
+        long now = System.currentTimeMillis();
+        claims = TokenClaims.builder()
+                .subject(BenchmarkFixtures.user().getUsername())
+                .userId(BenchmarkFixtures.user().getId())
+                .roles(List.of("USER"))
+                .tokenId(TokenIds.newId())
+                .issuedAt(now)
+                .expiration(now + 1000 * 60 * 60)
+                .build();
+        token = encoder.apply(claims);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class TokenSize {
+        /*
+            Secondary result holding the size of the token, in bytes
+            - The value is set, not added up, so it reads as the size of one token
+         */
+        public long bytes;
+    }
+
+    @Benchmark
+    public String encode(TokenSize tokenSize) {
+        String encoded = encoder.apply(claims);
+        tokenSize.bytes = encoded.length();
+        return encoded;
+    }
+
+    @Benchmark
+    public VerifiedToken decode(TokenSize tokenSize) {
+        tokenSize.bytes = token.length();
+        return decoder.apply(token);
+    }
+}
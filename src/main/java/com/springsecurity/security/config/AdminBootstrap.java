@@ -0,0 +1,60 @@
+package com.springsecurity.security.config;
+
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdminBootstrap {
+    /*
+        Class creating the ADMIN user when the database has none
+        - It runs on its own thread once the application is ready, so startup does not wait for a query and a BCrypt hash
+        - Until it is done, only the ADMIN user cannot sign in, every other request is served
+     */
+
+    // Declare object used to fetch data from database
+    private final UserRepository userRepository;
+    // Declare object to encode password
+    private final PasswordEncoder passwordEncoder;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::createAdminIfMissing, "admin-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void createAdminIfMissing() {
+        try {
+            // Fetch Admin user from database
+            User adminUser = userRepository.findByRole(Role.ADMIN);
+
+            // Check if admin user was not available in the database
+            if(adminUser == null) {
+                // Create a new user
+                User user = new User();
+
+                // Set ADMIN related details for the user
+                user.setFirstname("admin");
+                user.setSecondname("admin");
+                user.setEmail("admin@somemail.com");
+                user.setRole(Role.ADMIN);
+                user.setPassword(passwordEncoder.encode("admin"));
+
+                // Persist admin data to database
+                userRepository.save(user);
+            }
+        }
+        catch (RuntimeException exception) {
+            log.warn("Could not create the admin user", exception);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.springsecurity.security.config;
+
+import com.springsecurity.security.crypto.PasswordHashingRejectedException;
+import com.springsecurity.security.ratelimit.SignInThrottledException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class ApiExceptionHandler {
+    /*
+        Class turning exceptions thrown by controllers into HTTP responses
+     */
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<String> passwordHashingRejected(PasswordHashingRejectedException exception) {
+        /*
+            Function to answer with "503 Service Unavailable" when no password can be hashed right now
+            - The "Retry-After" header tells the client when to try again
+         */
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .body(exception.getMessage());
+    }
+
+    @ExceptionHandler(SignInThrottledException.class)
+    public ResponseEntity<String> signInThrottled(SignInThrottledException exception) {
+        /*
+            Function to answer with "429 Too Many Requests" when a sign in is throttled
+            - The "Retry-After" header tells the client when a token is available again, rounded up to a second
+         */
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().plusMillis(999).toSeconds())))
+                .body(exception.getMessage());
+    }
+}
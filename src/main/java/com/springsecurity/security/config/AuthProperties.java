@@ -0,0 +1,169 @@
+package com.springsecurity.security.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "auth")
+public class AuthProperties {
+    /*
+        Class holding the authentication configuration from "application.yml"
+        - The properties are bound once at startup under the "auth" prefix
+     */
+
+    // Cache of user details used by "CachedUserDetailsService"
+    private UserCache userCache = new UserCache();
+
+    // Executor running BCrypt off the request threads, used by "PasswordHashingExecutor"
+    private Hashing hashing = new Hashing();
+
+    // Bulk user import, used by "UserImportServiceImpl"
+    private BulkImport bulkImport = new BulkImport();
+
+    // Batch refresh of JWT Tokens, used by "AuthenticationServiceImpl"
+    private BatchRefresh batchRefresh = new BatchRefresh();
+
+    // Store of refresh JWT Tokens, used by "RefreshTokenServiceImpl" and "RefreshTokenIndex"
+    private RefreshTokens refreshTokens = new RefreshTokens();
+
+    // Token introspection endpoint, used by "TokenIntrospectionServiceImpl"
+    private Introspection introspection = new Introspection();
+
+    // Throttling of sign in attempts, used by "SignInRateLimiter"
+    private SignInRateLimit signInRateLimit = new SignInRateLimit();
+
+    // "Server-Timing" response header, written by "JwtAuthenticationFilter" and "ServerTimingAdvice"
+    private ServerTiming serverTiming = new ServerTiming();
+
+    // Propagation of cache invalidations to the other nodes, used by the "InvalidationBus" implementations
+    private Invalidation invalidation = new Invalidation();
+
+    @Data
+    public static class UserCache {
+        /*
+            Class holding the settings of the user details cache
+            - The maximum size bounds the number of users held at once
+            - Users are reloaded from the database once the time to live has passed
+         */
+        private long maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class Hashing {
+        /*
+            Class holding the settings of the password hashing executor
+            - Zero threads means one thread per available processor
+            - Once the queue is full, sign in and sign up fail fast and clients are asked to retry later
+            - Zero BCrypt cost means the highest cost whose hash fits in the target latency, measured at startup
+            - The measured cost is kept between the minimum and maximum cost
+            - A stored hash is only rehashed when its cost is more than the rehash tolerance away from the chosen cost
+         */
+        private int threads = 0;
+        private int queueCapacity = 64;
+        private Duration retryAfter = Duration.ofSeconds(1);
+        private int bcryptCost = 0;
+        private Duration targetLatency = Duration.ofMillis(100);
+        private int minCost = 10;
+        private int maxCost = 14;
+        private int rehashTolerance = 1;
+    }
+
+    @Data
+    public static class BulkImport {
+        /*
+            Class holding the settings of the bulk user import
+            - Users are validated, hashed and inserted one batch at a time, so memory use does not grow with the input
+            - Zero hashing parallelism means half of the password hashing threads
+         */
+        private int batchSize = 500;
+        private int hashingParallelism = 0;
+    }
+
+    @Data
+    public static class BatchRefresh {
+        /*
+            Class holding the settings of the batch refresh
+            - Requests with more refresh JWT Tokens than the maximum are rejected
+         */
+        private int maxTokens = 1000;
+    }
+
+    @Data
+    public static class RefreshTokens {
+        /*
+            Class holding the settings of the refresh JWT Token store
+            - The index maximum size bounds the refresh JWT Tokens held in memory, the rest are read from the database
+            - Expired refresh JWT Tokens are purged every purge interval, deleting at most the purge batch size per statement
+         */
+        private Duration timeToLive = Duration.ofDays(7);
+        private long indexMaximumSize = 5_000_000;
+        private Duration purgeInterval = Duration.ofMinutes(1);
+        private int purgeBatchSize = 10_000;
+    }
+
+    @Data
+    public static class Introspection {
+        /*
+            Class holding the settings of the token introspection endpoint
+            - Requests with more JWT Tokens than the maximum are rejected
+            - Introspections may be cached for at most the maximum age, which bounds how late a revocation is noticed
+         */
+        private int maxTokens = 1000;
+        private Duration maxAge = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class ServerTiming {
+        /*
+            Class holding the settings of the "Server-Timing" response header
+            - Off by default, the header tells clients how long each phase of authentication took
+         */
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class Invalidation {
+        /*
+            Class holding the settings of the invalidation bus
+            - The bus is "local" for a single node, or "jdbc" for nodes sharing the database
+            - Invalidations are sent every flush interval, in batches of at most the maximum batch size
+            - The "jdbc" bus reads the invalidations of other nodes every poll interval
+            - Rows are kept for the retention, and revocations until their JWT Token expires, so starting nodes catch up
+            - An id skipped by a poll is looked for again until the gap timeout, in case its insert had not committed yet
+            - At most the maximum number of gaps are looked for at once, further skipped ids are given up
+         */
+        private String bus = "local";
+        private Duration flushInterval = Duration.ofMillis(20);
+        private int maxBatchSize = 500;
+        private Duration pollInterval = Duration.ofMillis(200);
+        private Duration retention = Duration.ofMinutes(30);
+        private Duration gapTimeout = Duration.ofSeconds(10);
+        private int maxGaps = 10_000;
+    }
+
+    @Data
+    public static class SignInRateLimit {
+        /*
+            Class holding the settings of the sign in rate limiter
+            - Each bucket holds up to "capacity" attempts and gains one back every refill interval
+            - The number of slots bounds the memory used, idle buckets are reused for new keys
+         */
+        private boolean enabled = true;
+        private Bucket address = new Bucket(65_536, 20, Duration.ofSeconds(1));
+        private Bucket email = new Bucket(65_536, 5, Duration.ofSeconds(12));
+
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Bucket {
+            private int slots;
+            private int capacity;
+            private Duration refillInterval;
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package com.springsecurity.security.config;
 
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.jwt.TokenPrincipal;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.metrics.AuthTrace;
+import com.springsecurity.security.metrics.ServerTiming;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,6 +16,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -28,6 +35,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JWTService jwtService;
     // Instantiate User Service
     private final UserService userService;
+    // Instantiate JWT configuration
+    private final JwtProperties jwtProperties;
+    // Instantiate object recording authentication metrics
+    private final AuthMetrics authMetrics;
+    // Instantiate authentication configuration
+    private final AuthProperties authProperties;
 
     @Override
     protected void doFilterInternal(
@@ -37,6 +50,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         /*
             Function to filter HTTP request
+            - If enabled, the phases of authentication are collected for the "Server-Timing" header until the request ends
+         */
+        if(!authProperties.getServerTiming().isEnabled()) {
+            authenticate(request, response, filterChain);
+            return;
+        }
+        ServerTiming.start();
+        try {
+            authenticate(request, response, filterChain);
+        }
+        finally {
+            ServerTiming.stop();
+        }
+    }
+
+    private void authenticate(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        /*
+            Function to authenticate HTTP request
             - Filters are the first responders to HTTP requests
             - Filters validate the HTTP requests before the requests are routed to Servlet
             - Filters can be chained with each other
@@ -66,20 +101,50 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // - String: "B e a r e r  "
         jwt = authHeader.substring(7);
 
-        // Get email from authorization header
-        userEmail = jwtService.extractUserName(jwt);
+        // Verify the JWT Token once
+        // - The signature is checked and the claims are decoded a single time for the whole request
+        // - If the JWT Token has been tampered with, is malformed or has expired, the user is not authenticated
+        // - Refresh JWT Tokens are not accepted in place of access tokens either
+        // - The request is still passed on, Spring Security will then reject it for protected API Endpoints
+        final VerifiedToken verifiedToken;
+        AuthTrace verifyTrace = AuthTrace.tokenVerify();
+        try {
+            verifiedToken = jwtService.verifyAccessToken(jwt);
+            verifyTrace.end(AuthMetrics.VALID);
+        }
+        catch (JwtException | IllegalArgumentException exception) {
+            String outcome = AuthMetrics.outcomeOf(exception);
+            verifyTrace.end(outcome);
+            authMetrics.requestAuthenticated(outcome);
+            continueChain(request, response, filterChain);
+            return;
+        }
+
+        // Get email from the verified JWT Token
+        userEmail = verifiedToken.getSubject();
 
         // Check if user email is not null and if the user has not already been authenticated
         if(userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Check if the user actually exist in the database
-            // - UserDetails will help us to get the user details from the database
-            // - Check against the database if a user by the username of their email exist in the database
-            UserDetails userDetails = userService.userDetailsService().loadUserByUsername(userEmail);
+            // Get the user details for the verified JWT Token
+            // - If the user no longer exists, the request is passed on without authentication
+            final UserDetails userDetails;
+            AuthTrace userTrace = AuthTrace.userLoad();
+            try {
+                userDetails = loadUserDetails(verifiedToken);
+                userTrace.end(userDetails instanceof TokenPrincipal ? "stateless" : "found");
+            }
+            catch (UsernameNotFoundException exception) {
+                userTrace.end(AuthMetrics.UNKNOWN_USER);
+                authMetrics.requestAuthenticated(AuthMetrics.UNKNOWN_USER);
+                continueChain(request, response, filterChain);
+                return;
+            }
 
             // Check if the token has not expired
             // This involves checking if the token is being sent by the same user who is logging in
             // This is because JWT Token will have some user details and that needs to be compared with user who is logging in
-            if(jwtService.isTokenValid(jwt, userDetails)) {
+            // - The already verified token is used, so the JWT Token is not parsed again
+            if(jwtService.isTokenValid(verifiedToken, userDetails)) {
                 // Token is valid
                 // - Which means the user details in JWT Token is the same as that which is being passed in the credentials
                 // - Also, the JWT Token has not expired yet
@@ -102,10 +167,83 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // Finally, send this UsernamePasswordAuthenticationToken to Security Context
                 securityContext.setAuthentication(authToken);
                 SecurityContextHolder.setContext(securityContext);
+                authMetrics.requestAuthenticated(AuthMetrics.VALID);
+
+                // Hand out a new access token if this one is about to expire
+                renewIfExpiring(verifiedToken, userDetails, response);
+            }
+            else {
+                authMetrics.requestAuthenticated(AuthMetrics.INVALID);
             }
+        }
 
-            // Call the next filter in the filter chain
-            filterChain.doFilter(request, response);
+        // Call the next filter in the filter chain
+        continueChain(request, response, filterChain);
+    }
+
+    private void continueChain(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        /*
+            Function to call the next filter, after writing the phases timed so far to the "Server-Timing" header
+            - The header is written before the response can be committed, even if the request is then rejected
+         */
+        String serverTiming = ServerTiming.drain();
+        if(serverTiming != null) {
+            response.addHeader(ServerTiming.HEADER, serverTiming);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private void renewIfExpiring(VerifiedToken verifiedToken, UserDetails userDetails, HttpServletResponse response) {
+        /*
+            Function to renew an access token which expires within the renewal window
+            - The new access token is written to the renewal header, the client uses it from the next request on
+            - Refresh tokens are never renewed here, they carry a family id
+            - Access tokens issued before the time of sign in was embedded are not renewed, the client refreshes them as before
+            - Once the maximum session age has passed since sign in, the access token is left to expire and the user signs in again
+            - An access token issued within its own renewal window is not renewed, otherwise every request would sign a new one
+            - The new access token is built from the current user, a stateless principal only holds the roles of the old one
+         */
+        JwtProperties.Renewal renewal = jwtProperties.getRenewal();
+        if(!renewal.isEnabled() || verifiedToken.getFamilyId() != null || verifiedToken.getAuthTime() == 0L) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long windowStart = verifiedToken.getExpiration() - renewal.getWindow().toMillis();
+        if(now < windowStart || verifiedToken.getIssuedAt() >= windowStart
+                || now - verifiedToken.getAuthTime() > renewal.getMaxSessionAge().toMillis()) {
+            return;
+        }
+        final UserDetails currentUser;
+        try {
+            currentUser = userDetails instanceof TokenPrincipal tokenPrincipal
+                    ? tokenPrincipal.getUserDetails()
+                    : userDetails;
+        }
+        catch (UsernameNotFoundException exception) {
+            // The user no longer exists, the access token is left to expire
+            return;
+        }
+        AuthTrace signTrace = AuthTrace.tokenSign();
+        response.setHeader(renewal.getHeader(), jwtService.renewToken(verifiedToken, currentUser));
+        signTrace.end("renewed");
+    }
+
+    private UserDetails loadUserDetails(VerifiedToken verifiedToken) {
+        /*
+            Function to get the user details for a verified JWT Token
+            - In stateless principal mode, the user details are built from the roles and user id in the JWT Token
+            - The user is then only loaded from the database if a controller asks for it
+            - Otherwise, or for JWT Tokens issued without roles, the user is loaded from the database
+         */
+        if(jwtProperties.isStatelessPrincipal() && verifiedToken.getRoles() != null) {
+            return new TokenPrincipal(verifiedToken,
+                    () -> userService.userDetailsService().loadUserByUsername(verifiedToken.getSubject()));
         }
+
+        // Check if the user actually exist in the database
+        // - UserDetails will help us to get the user details from the database
+        // - Check against the database if a user by the username of their email exist in the database
+        return userService.userDetailsService().loadUserByUsername(verifiedToken.getSubject());
     }
 }
@@ -0,0 +1,113 @@
+package com.springsecurity.security.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+    /*
+        Class holding the JWT configuration from "application.yml"
+        - The properties are bound once at startup under the "jwt" prefix
+     */
+
+    // Signing keys loaded into the "JwtKeyRing"
+    // - Exactly one key must be active, it is used to sign new JWT Tokens
+    // - Retired keys are only used to verify JWT Tokens that were signed before a rotation
+    private List<KeyDefinition> keys = new ArrayList<>();
+
+    // Codec used to sign and verify JWT Tokens
+    // - "compact" selects "CompactTokenCodec", "jjwt" selects "JjwtTokenCodec"
+    private String codec = "compact";
+
+    // Authorize requests from the claims of the JWT Token instead of loading the user from the database
+    // - The user is then only loaded when a controller asks for it
+    // - Role changes take effect when the JWT Token is refreshed
+    private boolean statelessPrincipal = false;
+
+    // Upper bound of the random time taken off the lifetime of each access token
+    // - Access tokens issued together then expire, and are renewed, spread over this span instead of all at once
+    private Duration expiryJitter = Duration.ofMinutes(2);
+
+    // Renewal of access tokens close to their expiry by "JwtAuthenticationFilter"
+    private Renewal renewal = new Renewal();
+
+    // Cache of verified JWT Tokens used by "VerifiedTokenCache"
+    private Cache cache = new Cache();
+
+    // Revoked JWT Tokens used by "TokenRevocationList"
+    private Revocation revocation = new Revocation();
+
+    // Public keys published on "/.well-known/jwks.json"
+    private Jwks jwks = new Jwks();
+
+    @Data
+    public static class KeyDefinition {
+        /*
+            Class holding a single signing key
+            - The "kid" is written to the header of every JWT Token signed with this key
+            - The algorithm is "HS256", "ES256" or "EdDSA"
+            - HS256 keys have a secret, Base64 encoded and at least 256 bits long
+            - ES256 and EdDSA keys have a Base64 encoded public key in X.509 form and private key in PKCS#8 form
+            - A key pair without a private key only verifies JWT Tokens, it cannot be active
+         */
+        private String kid;
+        private String algorithm = "HS256";
+        private String secret;
+        private String privateKey;
+        private String publicKey;
+        private boolean active;
+    }
+
+    @Data
+    public static class Cache {
+        /*
+            Class holding the settings of the verified JWT Token cache
+            - The cache is switched off unless it is enabled
+            - The maximum size bounds the number of JWT Tokens held at once
+         */
+        private boolean enabled = false;
+        private long maximumSize = 10_000;
+    }
+
+    @Data
+    public static class Revocation {
+        /*
+            Class holding the settings of the JWT Token revocation list
+            - Revocations are only kept in memory unless a file is set
+            - There is one Bloom filter per window of expiry, it starts small and grows up to the expected revocations per window
+         */
+        private String file;
+        private int initialCapacity = 65_536;
+        private Duration window = Duration.ofMinutes(5);
+        private long expectedRevocations = 100_000;
+        private double falsePositiveRate = 0.01;
+    }
+
+    @Data
+    public static class Renewal {
+        /*
+            Class holding the settings of sliding expiry
+            - Renewal is switched off unless it is enabled
+            - An authenticated request whose access token expires within the window gets a new access token in the header
+            - Access tokens are only renewed until the maximum session age has passed since the user signed in
+         */
+        private boolean enabled = false;
+        private Duration window = Duration.ofMinutes(5);
+        private Duration maxSessionAge = Duration.ofHours(12);
+        private String header = "X-Renewed-Token";
+    }
+
+    @Data
+    public static class Jwks {
+        /*
+            Class holding the settings of the JWKS endpoint
+            - Clients may cache the key set for the maximum age, a rotation must publish the next key at least this long ahead
+         */
+        private Duration maxAge = Duration.ofMinutes(5);
+    }
+}
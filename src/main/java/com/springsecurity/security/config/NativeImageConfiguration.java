@@ -0,0 +1,59 @@
+package com.springsecurity.security.config;
+
+import com.springsecurity.security.dto.*;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeImageConfiguration.JjwtRuntimeHints.class)
+@RegisterReflectionForBinding({
+        SignUpRequest.class, SignUpResponse.class, SignInRequest.class, JwtAuthenticationResponse.class,
+        RefreshTokenRequest.class, BatchRefreshRequest.class, BatchRefreshResponse.class, BatchRefreshResult.class,
+        IntrospectionResponse.class, BatchIntrospectionRequest.class, BatchIntrospectionResponse.class,
+        KeyRotationRequest.class, RoleChangeRequest.class, TokenRevocationRequest.class,
+        UserImportRow.class, UserImportResult.class
+})
+public class NativeImageConfiguration {
+    /*
+        Class holding the reflection hints a GraalVM native image needs beyond what Spring AOT finds by itself
+        - The Lombok DTOs are read and written by Jackson through their generated getters and setters
+        - Request and response bodies of controllers are found by Spring AOT, but "UserImportRow" is read by an "ObjectReader"
+        - Every DTO is listed, so a DTO moved out of a controller signature keeps working
+        - The hints are only used when building with the "native" Maven profile, they cost nothing on the JVM
+     */
+
+    static class JjwtRuntimeHints implements RuntimeHintsRegistrar {
+        /*
+            Class registering the classes jjwt loads by name
+            - "jjwt-api" creates its implementation classes through reflection, so they are never reached statically
+            - The Jackson serializer and deserializer are found through "META-INF/services"
+         */
+
+        private static final String[] CLASSES = {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParser",
+                "io.jsonwebtoken.impl.DefaultClaims",
+                "io.jsonwebtoken.impl.DefaultHeader",
+                "io.jsonwebtoken.impl.DefaultJwsHeader",
+                "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+                "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for(String className : CLASSES) {
+                hints.reflection().registerType(TypeReference.of(className),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+        }
+    }
+}
@@ -40,8 +40,17 @@ public class SecurityConfiguration {
                 .authorizeHttpRequests(request -> request
                         // Whitelisting API Endpoints
                         .requestMatchers("/api/v1/auth/**").permitAll()
+                        // Whitelisting health and Prometheus endpoints for monitoring
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                        // Whitelisting the public signing keys, other services fetch them to verify JWT Tokens
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
                         // ADMIN API Endpoints can only be accessed by users having ADMIN Role
-                        .requestMatchers("/api/v1/admin").hasAnyAuthority(Role.ADMIN.name())
+                        // - This includes every endpoint below "/api/v1/admin", such as key rotation, role changes and bulk import
+                        .requestMatchers("/api/v1/admin", "/api/v1/admin/**").hasAnyAuthority(Role.ADMIN.name())
+                        // Token introspection can only be accessed by services and admins, as RFC 7662 requires callers to authenticate
+                        // - It is kept out of "/api/v1/auth", which is open to everyone
+                        .requestMatchers("/api/v1/introspect", "/api/v1/introspect/**")
+                        .hasAnyAuthority(Role.SERVICE.name(), Role.ADMIN.name())
                         // USER API Endpoints can only be accessed by users having USER Role
                         .requestMatchers("/api/v1/user").hasAnyAuthority(Role.USER.name())
                         // Other API Endpoints need to be authenticated
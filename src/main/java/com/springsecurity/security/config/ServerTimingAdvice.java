@@ -0,0 +1,41 @@
+package com.springsecurity.security.config;
+
+import com.springsecurity.security.metrics.ServerTiming;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+    /*
+        Class writing the phases timed by controllers and services to the "Server-Timing" header
+        - Sign in and refresh time their phases after "JwtAuthenticationFilter" has passed the request on
+        - The header is added just before the body is written, while the response can still take headers
+        - Responses of "ApiExceptionHandler" get the header too
+     */
+
+    // Instantiate authentication configuration
+    private final AuthProperties authProperties;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return authProperties.getServerTiming().isEnabled();
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        String serverTiming = ServerTiming.drain();
+        if(serverTiming != null) {
+            response.getHeaders().add(ServerTiming.HEADER, serverTiming);
+        }
+        return body;
+    }
+}
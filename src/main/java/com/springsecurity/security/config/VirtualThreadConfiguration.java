@@ -0,0 +1,40 @@
+package com.springsecurity.security.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfiguration {
+    /*
+        Class switching request handling to virtual threads, active with the "virtual-threads" profile
+        - Each request runs on its own virtual thread instead of a thread from Tomcat's fixed pool
+        - A request blocked on JDBC in "UserRepository" or waiting for BCrypt no longer holds a platform thread
+        - BCrypt itself still runs on the bounded "PasswordHashingExecutor", so CPU use stays bounded
+        - JDBC concurrency is still bounded by the connection pool size
+     */
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        /*
+            Function to make Tomcat run every request on a new virtual thread
+         */
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        /*
+            Function to run "@Async" and other application tasks on virtual threads
+         */
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
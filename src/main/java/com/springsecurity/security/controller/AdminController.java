@@ -1,10 +1,31 @@
 package com.springsecurity.security.controller;
 
+import com.springsecurity.security.dto.KeyRotationRequest;
+import com.springsecurity.security.dto.RoleChangeRequest;
+import com.springsecurity.security.dto.SignUpResponse;
+import com.springsecurity.security.dto.TokenRevocationRequest;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import com.springsecurity.security.jwt.RevokedJwtException;
+import com.springsecurity.security.jwt.SigningKey;
+import com.springsecurity.security.jwt.VerifiedTokenCache;
+import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.RefreshTokenService;
+import com.springsecurity.security.services.UserImportService;
+import com.springsecurity.security.services.UserService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/admin")
@@ -14,6 +35,19 @@ public class AdminController {
         Class to act as API Gateway for admin
      */
 
+    // Instantiate object holding the JWT signing keys
+    private final JwtKeyRing keyRing;
+    // Instantiate object caching verified JWT Tokens
+    private final VerifiedTokenCache verifiedTokenCache;
+    // Instantiate User Service object
+    private final UserService userService;
+    // Instantiate User Import Service object
+    private final UserImportService userImportService;
+    // Instantiate JWT Service object
+    private final JWTService jwtService;
+    // Instantiate object storing refresh JWT Tokens
+    private final RefreshTokenService refreshTokenService;
+
     @GetMapping
     public ResponseEntity<String> sayHello() {
         /*
@@ -21,4 +55,93 @@ public class AdminController {
          */
         return ResponseEntity.ok("Hi Admin!");
     }
+
+    @PutMapping("/keys")
+    public ResponseEntity<Map<String, Boolean>> rotateKeys(@RequestBody KeyRotationRequest keyRotationRequest) {
+        /*
+            Function to rotate the JWT signing keys without a restart
+            - The new key set replaces the current one on this node only, it is not sent to other nodes
+            - With several nodes, call this on every node before any of them makes a new key active
+            - Otherwise nodes still holding the old key set reject JWT Tokens signed with the new key
+            - Keep the previous active key as a retired key, so JWT Tokens signed with it stay valid
+            - Function returns the installed "kid"s and whether each one is active, secrets are never returned
+         */
+        try {
+            keyRing.install(keyRotationRequest.getKeys());
+        }
+        catch (RuntimeException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Drop cached JWT Tokens, so tokens signed with removed keys are rejected straight away
+        verifiedTokenCache.invalidateAll();
+
+        Map<String, Boolean> keys = new LinkedHashMap<>();
+        for(SigningKey signingKey : keyRing.keys()) {
+            keys.put(signingKey.getKid(), signingKey.isActive());
+        }
+        return ResponseEntity.ok(keys);
+    }
+
+    @PutMapping("/users/role")
+    public ResponseEntity<SignUpResponse> changeRole(@RequestBody RoleChangeRequest roleChangeRequest) {
+        /*
+            Function to change the role of a user
+            - Function uses User Service to save the new role and evict the user from the user details cache
+         */
+        User user = userService.changeRole(roleChangeRequest.getEmail(), roleChangeRequest.getRole());
+
+        // Create a response with the user details
+        SignUpResponse signUpResponse = new SignUpResponse();
+        signUpResponse.setFirstName(user.getFirstname());
+        signUpResponse.setLastName(user.getSecondname());
+        signUpResponse.setEmail(user.getEmail());
+        signUpResponse.setUsername(user.getUsername());
+        return ResponseEntity.ok(signUpResponse);
+    }
+
+    @PostMapping("/tokens/revoke")
+    public ResponseEntity<Void> revokeToken(@RequestBody TokenRevocationRequest tokenRevocationRequest) {
+        /*
+            Function to revoke a JWT Token before it expires
+            - The JWT Token is rejected on every later request, until it would have expired anyway
+            - For a refresh JWT Token, its whole family is revoked as well
+            - Function answers "204 No Content" if the JWT Token is revoked, expired or already revoked
+            - Function answers "400 Bad Request" if the JWT Token is not valid or cannot be revoked
+         */
+        final VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtService.verifyToken(tokenRevocationRequest.getToken());
+        }
+        catch (RevokedJwtException | ExpiredJwtException exception) {
+            return ResponseEntity.noContent().build();
+        }
+        catch (JwtException | IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            jwtService.revokeToken(verifiedToken);
+        }
+        catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+        if(verifiedToken.getFamilyId() != null) {
+            refreshTokenService.revokeFamily(verifiedToken.getFamilyId());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(value = "/users/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        /*
+            Function to create many users at once
+            - The body is read as a stream, one JSON object per line or a JSON array of users
+            - One JSON result per user is written back as soon as the batch holding it is inserted
+            - The response is always "200 OK", the outcome of each user is in its result
+         */
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        userImportService.importUsers(request.getInputStream(), response.getOutputStream());
+    }
 }
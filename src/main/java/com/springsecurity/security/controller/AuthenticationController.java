@@ -1,7 +1,9 @@
 package com.springsecurity.security.controller;
 
 import com.springsecurity.security.dto.*;
+import com.springsecurity.security.ratelimit.SignInRateLimiter;
 import com.springsecurity.security.services.AuthenticationService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,9 @@ public class AuthenticationController {
     // Instantiate Authentication Service object
     private final AuthenticationService authenticationService;
 
+    // Instantiate object throttling sign in attempts
+    private final SignInRateLimiter signInRateLimiter;
+
     @PostMapping("/signup")
     public ResponseEntity<SignUpResponse> signup(@RequestBody SignUpRequest signUpRequest) {
         /*
@@ -28,12 +33,15 @@ public class AuthenticationController {
     }
 
     @PostMapping("/signin")
-    public ResponseEntity<JwtAuthenticationResponse> signin(@RequestBody SignInRequest signInRequest) {
+    public ResponseEntity<JwtAuthenticationResponse> signin(@RequestBody SignInRequest signInRequest,
+                                                            HttpServletRequest request) {
         /*
             Function to sign in new user
             - Function uses Authentication Service to sign in existing user
             - Function provides JWT Token in response to a successful sign in
+            - Attempts are throttled per client address and per email before the password is checked
          */
+        signInRateLimiter.check(signInRequest.getEmail(), request.getRemoteAddr());
         return ResponseEntity.ok(authenticationService.signInRequest(signInRequest));
     }
 
@@ -46,4 +54,20 @@ public class AuthenticationController {
          */
         return ResponseEntity.ok(authenticationService.refreshToken(refreshTokenRequest));
     }
+
+    @PostMapping("/refresh/batch")
+    public ResponseEntity<BatchRefreshResponse> refreshBatch(@RequestBody BatchRefreshRequest batchRefreshRequest) {
+        /*
+            Function to refresh many JWT Tokens in one request
+            - Meant for services refreshing JWT Tokens on behalf of many users
+            - Function returns one result per refresh JWT Token, a JWT Token which cannot be refreshed does not fail the others
+            - Function answers "400 Bad Request" if the request holds more refresh JWT Tokens than allowed
+         */
+        try {
+            return ResponseEntity.ok(authenticationService.refreshTokens(batchRefreshRequest));
+        }
+        catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
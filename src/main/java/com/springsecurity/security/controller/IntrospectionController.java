@@ -0,0 +1,70 @@
+package com.springsecurity.security.controller;
+
+import com.springsecurity.security.dto.BatchIntrospectionRequest;
+import com.springsecurity.security.dto.BatchIntrospectionResponse;
+import com.springsecurity.security.dto.IntrospectionResponse;
+import com.springsecurity.security.services.TokenIntrospectionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/introspect")
+@RequiredArgsConstructor
+public class IntrospectionController {
+    /*
+        Class to act as token introspection API Gateway for services, as defined in RFC 7662
+        - Services which cannot verify JWT Tokens themselves ask here whether a JWT Token is active
+        - Callers authenticate with a JWT Token of their own, having SERVICE or ADMIN Role
+        - Responses carry a "Cache-Control" lifetime bounded by the remaining lifetime of the JWT Tokens
+     */
+
+    // Instantiate Token Introspection Service object
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    @PostMapping(consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<IntrospectionResponse> introspect(@RequestParam("token") String token) {
+        /*
+            Function to introspect a JWT Token sent as the "token" form parameter
+         */
+        IntrospectionResponse introspection = tokenIntrospectionService.introspect(token);
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl(List.of(introspection)))
+                .body(introspection);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchIntrospectionResponse> introspectBatch(
+            @RequestBody BatchIntrospectionRequest batchIntrospectionRequest) {
+        /*
+            Function to introspect many JWT Tokens in one request
+            - Function returns one introspection per JWT Token, in the order of the request
+            - The response may be cached as long as the shortest lived active JWT Token
+            - Function answers "400 Bad Request" if the request holds more JWT Tokens than allowed
+         */
+        List<IntrospectionResponse> introspections;
+        try {
+            introspections = tokenIntrospectionService.introspectAll(batchIntrospectionRequest.getTokens());
+        }
+        catch (IllegalArgumentException exception) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl(introspections))
+                .body(new BatchIntrospectionResponse(introspections));
+    }
+
+    private CacheControl cacheControl(List<IntrospectionResponse> introspections) {
+        /*
+            Function to build the "Cache-Control" header of an introspection
+            - The response is private to the calling service, shared caches must not store it
+         */
+        Duration lifetime = tokenIntrospectionService.cacheLifetime(introspections);
+        return lifetime.getSeconds() <= 0 ? CacheControl.noStore() : CacheControl.maxAge(lifetime).cachePrivate();
+    }
+}
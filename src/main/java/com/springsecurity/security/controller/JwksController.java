@@ -0,0 +1,52 @@
+package com.springsecurity.security.controller;
+
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+    /*
+        Class to publish the public signing keys as a JWKS document
+        - Other services verify ES256 and EdDSA JWT Tokens locally with these keys, without calling this service
+        - The document is serialized by "JwtKeyRing" when keys are installed, requests only copy out the bytes
+        - Clients revalidate with "If-None-Match" and get "304 Not Modified" until the keys are rotated
+     */
+
+    // Instantiate object holding the signing keys
+    private final JwtKeyRing keyRing;
+
+    // Instantiate object holding the JWT configuration
+    private final JwtProperties jwtProperties;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> jwks(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        /*
+            Function to send back the JWKS document of the installed keys
+            - Function answers "304 Not Modified" when the client already holds the current document
+         */
+        JwtKeyRing.Jwks jwks = keyRing.jwks();
+        CacheControl cacheControl = CacheControl.maxAge(jwtProperties.getJwks().getMaxAge()).cachePublic();
+        if(ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(jwks.etag()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(jwks.etag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(jwks.etag())
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(jwks.body().length)
+                .body(jwks.body());
+    }
+}
@@ -0,0 +1,106 @@
+package com.springsecurity.security.crypto;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import io.micrometer.core.instrument.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Slf4j
+@Component
+public class BCryptCostCalibrator {
+    /*
+        Class choosing the BCrypt cost once at startup, from how fast this machine hashes
+        - Each step of cost doubles the work, so one measurement at a low cost predicts every other cost
+        - The chosen cost is the highest whose hash still fits in the target latency, within the configured bounds
+        - A fixed cost in the configuration skips the measurement
+        - Sign in latency and CPU per sign in are then tuned with one setting per machine class
+     */
+
+    // Identifier of BCrypt hashes, stored in front of every new hash as "{bcrypt}"
+    public static final String BCRYPT = "bcrypt";
+
+    // Cost the measurement is made at, cheap enough not to slow startup down
+    private static final int MEASURED_COST = 8;
+    private static final int MEASUREMENTS = 3;
+    private static final int WARM_UP = 20;
+
+    private final int cost;
+    private final int rehashTolerance;
+
+    public BCryptCostCalibrator(AuthProperties authProperties, AuthMetrics authMetrics) {
+        AuthProperties.Hashing hashing = authProperties.getHashing();
+        this.rehashTolerance = hashing.getRehashTolerance();
+        if(hashing.getBcryptCost() > 0) {
+            this.cost = hashing.getBcryptCost();
+        }
+        else {
+            long measured = measure();
+            this.cost = costFor(measured, hashing.getTargetLatency(), hashing.getMinCost(), hashing.getMaxCost());
+            log.info("BCrypt cost {} chosen for a target of {} ms, a hash at cost {} took {} µs",
+                    cost, hashing.getTargetLatency().toMillis(), MEASURED_COST, measured / 1000);
+        }
+        Gauge.builder("auth.hashing.bcrypt.cost", this, BCryptCostCalibrator::cost)
+                .description("BCrypt cost new password hashes are made with")
+                .register(authMetrics.registry());
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    public PasswordEncoder passwordEncoder() {
+        /*
+            Function to create the password encoder for the calibrated cost
+            - New hashes are prefixed with "{bcrypt}", so the algorithm can be changed later without resetting passwords
+            - Hashes stored before the prefix existed are still checked with BCrypt, and upgraded on the next sign in
+         */
+        CalibratedBCryptPasswordEncoder bcrypt = new CalibratedBCryptPasswordEncoder(cost, rehashTolerance);
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(BCRYPT, Map.of(BCRYPT, bcrypt));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
+    }
+
+    static int costFor(long measuredNanos, Duration targetLatency, int minCost, int maxCost) {
+        /*
+            Function to get the highest cost whose hash is predicted to take no longer than the target latency
+         */
+        long target = targetLatency.toNanos();
+        long predicted = Math.max(1L, measuredNanos);
+        int cost = MEASURED_COST;
+        while(cost < maxCost && predicted * 2 <= target) {
+            predicted *= 2;
+            cost++;
+        }
+        while(cost > minCost && predicted > target) {
+            predicted /= 2;
+            cost--;
+        }
+        return Math.min(maxCost, Math.max(minCost, cost));
+    }
+
+    private static long measure() {
+        /*
+            Function to time one hash at the measured cost
+            - BCrypt is warmed up first so the JIT has compiled it, the fastest of a few hashes is kept
+         */
+        String salt = BCrypt.gensalt(4);
+        for(int i = 0; i < WARM_UP; i++) {
+            BCrypt.hashpw("calibration", salt);
+        }
+        salt = BCrypt.gensalt(MEASURED_COST);
+        long fastest = Long.MAX_VALUE;
+        for(int i = 0; i < MEASUREMENTS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}
@@ -0,0 +1,51 @@
+package com.springsecurity.security.crypto;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    /*
+        Class hashing passwords with BCrypt at the cost chosen by "BCryptCostCalibrator"
+        - Every BCrypt hash records its own cost, as in "$2a$12$..."
+        - A hash more than the tolerance away from the cost, higher or lower, needs an upgrade
+        - "BCryptPasswordEncoder" only upgrades hashes below its cost, so a cost lowered for slower machines would never apply
+        - Nodes of different machine classes calibrate costs a step or so apart, the tolerance keeps them from
+          rehashing the same user back and forth on every sign in
+     */
+
+    // Declare the cost new hashes are made with
+    private final int cost;
+    // Declare how far the cost of a hash may be from "cost" before it is upgraded
+    private final int tolerance;
+
+    public CalibratedBCryptPasswordEncoder(int cost, int tolerance) {
+        super(cost);
+        this.cost = cost;
+        this.tolerance = tolerance;
+    }
+
+    public int cost() {
+        return cost;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return Math.abs(costOf(encodedPassword) - cost) > tolerance;
+    }
+
+    static int costOf(String encodedPassword) {
+        /*
+            Function to read the cost of a BCrypt hash
+            - Returns "-1" if the hash is not a BCrypt hash
+         */
+        if(encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char units = encodedPassword.charAt(5);
+        if(tens < '0' || tens > '9' || units < '0' || units > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+}
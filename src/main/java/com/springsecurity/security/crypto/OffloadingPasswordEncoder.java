@@ -0,0 +1,67 @@
+package com.springsecurity.security.crypto;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+    /*
+        Class running every password hash and check of another "PasswordEncoder" on the "PasswordHashingExecutor"
+        - Used for sign in, through "DaoAuthenticationProvider", and for sign up
+        - Bulk imports hash many passwords in parallel through "encodeAll"
+        - Passwords nobody waits on are hashed through "encodeInBackground"
+     */
+
+    // Declare the encoder doing the actual work
+    private final PasswordEncoder delegate;
+    // Declare the executor running the work
+    private final PasswordHashingExecutor executor;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords, int parallelism) {
+        /*
+            Function to encode many passwords in parallel
+            - At most "parallelism" passwords are hashed at once, the rest of the pool stays free for sign in
+            - Encoded passwords are returned in the order of the raw passwords
+            - Throws "PasswordHashingRejectedException" if the hashing queue is full
+         */
+        List<Supplier<String>> tasks = rawPasswords.stream()
+                .<Supplier<String>>map(rawPassword -> () -> delegate.encode(rawPassword))
+                .toList();
+        return executor.executeAll(tasks, parallelism);
+    }
+
+    public boolean encodeInBackground(CharSequence rawPassword, Consumer<String> callback) {
+        /*
+            Function to encode a password without waiting for it
+            - The callback gets the encoded password, on the hashing thread
+            - Returns "false" if the hashing queue is full, nothing is encoded then
+         */
+        return executor.submit(() -> callback.accept(delegate.encode(rawPassword)));
+    }
+
+    public int threads() {
+        return executor.threads();
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
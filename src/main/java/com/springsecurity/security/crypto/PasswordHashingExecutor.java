@@ -0,0 +1,189 @@
+package com.springsecurity.security.crypto;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Component
+public class PasswordHashingExecutor implements DisposableBean {
+    /*
+        Class running password hashing and checking on a dedicated, bounded thread pool
+        - BCrypt is CPU heavy, running it on request threads lets a login storm starve every other endpoint
+        - The pool has a fixed number of threads and a bounded queue
+        - When the queue is full, the work is rejected at once with a "PasswordHashingRejectedException"
+        - Queue depth, time spent waiting in the queue and rejections are recorded as metrics
+     */
+
+    // Declare the thread pool doing the hashing
+    private final ThreadPoolExecutor executor;
+    // Declare how long clients are asked to wait before retrying
+    private final Duration retryAfter;
+    // Declare the number of threads in the pool
+    private final int threads;
+
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingExecutor(AuthProperties authProperties, AuthMetrics authMetrics) {
+        AuthProperties.Hashing hashing = authProperties.getHashing();
+        int threads = hashing.getThreads() > 0 ? hashing.getThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashing.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.retryAfter = hashing.getRetryAfter();
+        this.threads = threads;
+
+        MeterRegistry registry = authMetrics.registry();
+        Gauge.builder("auth.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Passwords waiting to be hashed or checked")
+                .register(registry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Passwords being hashed or checked")
+                .register(registry);
+        this.waitTimer = Timer.builder("auth.hashing.wait")
+                .description("Time passwords spend waiting for a hashing thread")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejectedCounter = Counter.builder("auth.hashing.rejected")
+                .description("Passwords rejected because the hashing queue was full")
+                .register(registry);
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        /*
+            Function to run a hashing task on the pool and wait for its result
+            - The calling thread waits, but the CPU work is bounded by the pool size
+            - Throws "PasswordHashingRejectedException" if the queue is full
+         */
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            });
+        }
+        catch (RejectedExecutionException exception) {
+            rejectedCounter.increment();
+            throw new PasswordHashingRejectedException(retryAfter);
+        }
+
+        try {
+            return future.get();
+        }
+        catch (InterruptedException exception) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", exception);
+        }
+        catch (ExecutionException exception) {
+            if(exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    public boolean submit(Runnable task) {
+        /*
+            Function to run a hashing task on the pool without waiting for it
+            - Used for work nobody waits on, which gives way to sign in and sign up
+            - Returns "false" if the queue is full, the task is then dropped
+         */
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            });
+            return true;
+        }
+        catch (RejectedExecutionException exception) {
+            return false;
+        }
+    }
+
+    public <T> List<T> executeAll(List<Supplier<T>> tasks, int parallelism) {
+        /*
+            Function to run many hashing tasks on the pool and wait for all of their results
+            - Used for bulk work, which must not take every queue slot away from sign in and sign up
+            - At most "parallelism" tasks are queued or running at once
+            - When the queue is full, the tasks not yet done are cancelled and a "PasswordHashingRejectedException" is thrown
+            - The calling thread never hashes itself, so the pool size stays the bound on concurrent BCrypt work
+            - Results are returned in the order of the tasks
+         */
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for(Supplier<T> task : tasks) {
+            permits.acquireUninterruptibly();
+            long submittedAt = System.nanoTime();
+            try {
+                futures.add(executor.submit(() -> {
+                    try {
+                        waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                        return task.get();
+                    }
+                    finally {
+                        permits.release();
+                    }
+                }));
+            }
+            catch (RejectedExecutionException exception) {
+                permits.release();
+                futures.forEach(pending -> pending.cancel(true));
+                rejectedCounter.increment();
+                throw new PasswordHashingRejectedException(retryAfter);
+            }
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for(Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            }
+            catch (InterruptedException exception) {
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for password hashing", exception);
+            }
+            catch (ExecutionException exception) {
+                futures.forEach(pending -> pending.cancel(true));
+                if(exception.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException(exception.getCause());
+            }
+        }
+        return results;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
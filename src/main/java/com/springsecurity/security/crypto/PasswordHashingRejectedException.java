@@ -0,0 +1,19 @@
+package com.springsecurity.security.crypto;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class PasswordHashingRejectedException extends RuntimeException {
+    /*
+        Exception thrown when the password hashing executor has no room for another password
+        - The client should retry once the "retryAfter" duration has passed
+     */
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(Duration retryAfter) {
+        super("Password hashing capacity exceeded");
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,103 @@
+package com.springsecurity.security.crypto;
+
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.repository.UserRepository;
+import com.springsecurity.security.services.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordRehasher implements DisposableBean {
+    /*
+        Class rehashing the password of a user after a successful sign in, when its hash is out of date
+        - A hash is out of date when it was made at another BCrypt cost, or before hashes were prefixed with their algorithm
+        - The sign in only checks the hash, the new hash is made and written in the background
+        - The new hash only replaces the one that was checked, so a password changed meanwhile is never overwritten
+        - Rehashing is the first work dropped when the hashing queue is full, it is tried again on the next sign in
+        - The new hash is written on a thread of its own, so database latency never holds a BCrypt thread sign in needs
+        - Writes are dropped as well once their queue is full
+     */
+
+    // Outcomes of a rehash
+    static final String UPDATED = "updated";
+    static final String STALE = "stale";
+    static final String DROPPED = "dropped";
+
+    // Instantiate object hashing passwords on the "PasswordHashingExecutor"
+    private final OffloadingPasswordEncoder passwordEncoder;
+    // Instantiate object for UserRepository
+    private final UserRepository userRepository;
+    // Instantiate object for User Service
+    private final UserService userService;
+    // Instantiate object recording authentication metrics
+    private final AuthMetrics authMetrics;
+
+    // Number of new hashes which may wait to be written
+    private static final int WRITE_QUEUE_CAPACITY = 256;
+
+    // Instantiate the executor writing new hashes to the database
+    private final ThreadPoolExecutor writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(WRITE_QUEUE_CAPACITY), runnable -> {
+                Thread thread = new Thread(runnable, "password-rehash-write");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public void rehashIfNeeded(User user, String rawPassword) {
+        /*
+            Function to rehash the password of a user who just signed in with it, if needed
+            - Returns at once, the hash is written later
+         */
+        String checkedPassword = user.getPassword();
+        if(rawPassword == null || !passwordEncoder.upgradeEncoding(checkedPassword)) {
+            return;
+        }
+        String email = user.getEmail();
+        boolean submitted = passwordEncoder.encodeInBackground(rawPassword, encodedPassword -> {
+            // The hashing thread only hands the new hash over, it is written on the writer thread
+            try {
+                writer.execute(() -> write(email, checkedPassword, encodedPassword));
+            }
+            catch (RejectedExecutionException exception) {
+                authMetrics.passwordRehashed(DROPPED);
+            }
+        });
+        if(!submitted) {
+            authMetrics.passwordRehashed(DROPPED);
+        }
+    }
+
+    private void write(String email, String checkedPassword, String encodedPassword) {
+        /*
+            Function to replace the checked hash of a user with the new one
+            - A failed write is logged, the hash is made again on the next sign in
+         */
+        try {
+            if(userRepository.updatePassword(email, checkedPassword, encodedPassword) > 0) {
+                userService.evictUser(email);
+                authMetrics.passwordRehashed(UPDATED);
+            }
+            else {
+                authMetrics.passwordRehashed(STALE);
+            }
+        }
+        catch (RuntimeException exception) {
+            log.warn("Could not write the rehashed password", exception);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        writer.shutdown();
+    }
+}
@@ -0,0 +1,16 @@
+package com.springsecurity.security.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchIntrospectionRequest {
+    /*
+        Class holding fields to be sent in POST request to API
+        - The "BatchIntrospectionRequest" will be sent to API by a service checking many JWT Tokens at once
+        - Each JWT Token is introspected like a single introspection request
+     */
+    private List<String> tokens = new ArrayList<>();
+}
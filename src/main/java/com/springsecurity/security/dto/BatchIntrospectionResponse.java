@@ -0,0 +1,18 @@
+package com.springsecurity.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchIntrospectionResponse {
+    /*
+        Class holding fields sent by Spring Boot server to a service
+        - One introspection per JWT Token, in the order of the "BatchIntrospectionRequest"
+     */
+    private List<IntrospectionResponse> results;
+}
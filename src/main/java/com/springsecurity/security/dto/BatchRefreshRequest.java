@@ -0,0 +1,19 @@
+package com.springsecurity.security.dto;
+
+import com.springsecurity.security.jwt.TokenFormat;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BatchRefreshRequest {
+    /*
+        Class holding fields to be sent in POST request to API
+        - The "BatchRefreshRequest" will be sent to API by a service refreshing JWT Tokens for many users at once
+        - Each refresh JWT Token is handled like a single "RefreshTokenRequest"
+     */
+    private List<String> tokens = new ArrayList<>();
+    // Format of every new access token, as in "SignInRequest"
+    private TokenFormat tokenFormat;
+}
@@ -0,0 +1,18 @@
+package com.springsecurity.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRefreshResponse {
+    /*
+        Class holding fields sent by Spring Boot server to a service
+        - One result per refresh JWT Token, in the order of the "BatchRefreshRequest"
+     */
+    private List<BatchRefreshResult> results;
+}
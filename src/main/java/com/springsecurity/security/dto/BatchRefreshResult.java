@@ -0,0 +1,27 @@
+package com.springsecurity.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRefreshResult {
+    /*
+        Class holding the outcome of refreshing one JWT Token of a "BatchRefreshRequest"
+        - The index is the position of the refresh JWT Token in the request
+        - On success the new JWT Token and the refresh JWT Token are set and the error is "null"
+        - Otherwise only the error is set
+     */
+    private int index;
+    private String token;
+    private String refreshToken;
+    private Error error;
+
+    public enum Error {
+        INVALID_TOKEN,
+        UNKNOWN_USER,
+        REJECTED
+    }
+}
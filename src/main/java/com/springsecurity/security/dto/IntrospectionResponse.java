@@ -0,0 +1,41 @@
+package com.springsecurity.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntrospectionResponse {
+    /*
+        Class holding the introspection of one JWT Token, as defined in RFC 7662
+        - Only "active" is set for a JWT Token which is invalid, expired or revoked
+        - Dates are written in seconds, as in the JWT Token itself
+        - The token type is "refresh_token" for refresh JWT Tokens and "access_token" otherwise
+        - A JWT Token used before its "nbf" is inactive for now only, this is never written to the response
+     */
+    private boolean active;
+    private String sub;
+    private String username;
+    private List<String> roles;
+    private Long exp;
+    private Long iat;
+    private String jti;
+    @JsonProperty("token_type")
+    private String tokenType;
+    @JsonIgnore
+    private boolean notYetValid;
+
+    public static IntrospectionResponse inactive() {
+        return new IntrospectionResponse();
+    }
+
+    public static IntrospectionResponse notYetValid() {
+        IntrospectionResponse introspection = new IntrospectionResponse();
+        introspection.setNotYetValid(true);
+        return introspection;
+    }
+}
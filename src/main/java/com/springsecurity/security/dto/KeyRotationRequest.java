@@ -0,0 +1,17 @@
+package com.springsecurity.security.dto;
+
+import com.springsecurity.security.config.JwtProperties;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class KeyRotationRequest {
+    /*
+        Class holding fields to be sent in PUT request to API
+        - The "KeyRotationRequest" will be sent to API by an admin to replace the JWT signing keys
+        - The complete key set is sent, keys which are left out are no longer accepted
+     */
+    private List<JwtProperties.KeyDefinition> keys = new ArrayList<>();
+}
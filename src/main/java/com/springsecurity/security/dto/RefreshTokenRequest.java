@@ -1,5 +1,6 @@
 package com.springsecurity.security.dto;
 
+import com.springsecurity.security.jwt.TokenFormat;
 import lombok.Data;
 
 @Data
@@ -8,6 +9,8 @@ public class RefreshTokenRequest {
         Class holding fields to be sent in POST request to API
         - The "RefreshTokenRequest" will be sent to API when existing user logs in
         - The existing JWT Token will be sent to the API using which a refreshed JWT Token will be created
+        - The token format of the new access token is optional, as in "SignInRequest"
      */
     private String token;
+    private TokenFormat tokenFormat;
 }
@@ -0,0 +1,14 @@
+package com.springsecurity.security.dto;
+
+import com.springsecurity.security.entities.Role;
+import lombok.Data;
+
+@Data
+public class RoleChangeRequest {
+    /*
+        Class holding fields to be sent in PUT request to API
+        - The "RoleChangeRequest" will be sent to API by an admin to change the role of a user
+     */
+    private String email;
+    private Role role;
+}
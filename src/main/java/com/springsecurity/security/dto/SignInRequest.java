@@ -1,5 +1,6 @@
 package com.springsecurity.security.dto;
 
+import com.springsecurity.security.jwt.TokenFormat;
 import lombok.Data;
 
 @Data
@@ -7,7 +8,9 @@ public class SignInRequest {
     /*
         Class holding fields to be sent in POST request to API
         - The "SignInRequest" will be sent to API when existing user logs in
+        - The token format is optional, clients on slow links can ask for a smaller "CWT" access token
      */
     private String email;
     private String password;
+    private TokenFormat tokenFormat;
 }
@@ -0,0 +1,13 @@
+package com.springsecurity.security.dto;
+
+import lombok.Data;
+
+@Data
+public class TokenRevocationRequest {
+    /*
+        Class holding fields to be sent in POST request to API
+        - The "TokenRevocationRequest" will be sent to API by an admin to revoke a JWT Token before it expires
+        - Revoking a refresh JWT Token also revokes every refresh JWT Token of its family
+     */
+    private String token;
+}
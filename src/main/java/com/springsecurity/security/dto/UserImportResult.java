@@ -0,0 +1,27 @@
+package com.springsecurity.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResult {
+    /*
+        Class holding the outcome of importing one user
+        - One result is streamed back per row, in the order of the rows
+        - The row number starts at 1
+     */
+    private long row;
+    private String email;
+    private Status status;
+    private String message;
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+}
@@ -0,0 +1,18 @@
+package com.springsecurity.security.dto;
+
+import com.springsecurity.security.entities.Role;
+import lombok.Data;
+
+@Data
+public class UserImportRow {
+    /*
+        Class holding fields of one user in a bulk import
+        - The import body is a stream of these, one JSON object per line or a JSON array
+        - The role is optional and defaults to "USER"
+     */
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String password;
+    private Role role;
+}
@@ -0,0 +1,45 @@
+package com.springsecurity.security.dto;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Value
+public class VerifiedToken {
+    /*
+        Class holding the result of verifying a JWT Token
+        - The "VerifiedToken" is created by "JWTService" after the signature of the JWT Token has been checked
+        - It is immutable, so it can be passed through the filter chain and services without parsing the token again
+        - Dates are held as epoch milliseconds
+        - The user id and roles are "null" for JWT Tokens issued without them
+        - The token id is set on every JWT Token this service issues, revocation is keyed by it
+        - The family id is only set on refresh JWT Tokens
+        - The authentication time is when the user last signed in with a password, "0" for JWT Tokens issued without it
+     */
+
+    // Names of the claims holding the user id, roles, token id and refresh token family id
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String TOKEN_ID_CLAIM = "jti";
+    public static final String FAMILY_ID_CLAIM = "fam";
+    public static final String AUTH_TIME_CLAIM = "auth_time";
+
+    String token;
+    String subject;
+    long issuedAt;
+    long expiration;
+    Integer userId;
+    List<String> roles;
+    String tokenId;
+    String familyId;
+    long authTime;
+    Map<String, Object> claims;
+
+    public boolean isExpired() {
+        /*
+            Function to check if the verified token has expired
+         */
+        return expiration <= System.currentTimeMillis();
+    }
+}
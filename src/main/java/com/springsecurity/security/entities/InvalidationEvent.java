@@ -0,0 +1,31 @@
+package com.springsecurity.security.entities;
+
+import com.springsecurity.security.invalidation.Invalidation;
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+@Entity
+@Table(name = "invalidation_event", indexes = {
+        @Index(name = "idx_invalidation_event_published", columnList = "published_at")
+})
+public class InvalidationEvent {
+    /*
+        Class holding one cache invalidation published through the database
+        - Rows are written and read in batches by "JdbcInvalidationBus" with plain SQL
+        - The entity declares the table, so it is created along with the rest of the schema
+        - Ids grow with every insert, nodes read the rows after the last id they have seen
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private Invalidation.Type type;
+    @Column(name = "invalidation_key", nullable = false)
+    private String key;
+    private long expiresAt;
+    private long publishedAt;
+    @Column(length = 32, nullable = false)
+    private String origin;
+}
@@ -0,0 +1,48 @@
+package com.springsecurity.security.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+@Data
+@Entity
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_token_expires", columnList = "expires_at")
+})
+public class RefreshToken implements Persistable<String> {
+    /*
+        Class holding one issued refresh JWT Token
+        - The id is the "jti" claim of the refresh JWT Token, the JWT Token itself is not stored
+        - Every refresh JWT Token rotated from the same sign in shares a family id
+        - A refresh JWT Token is used once, reusing it revokes its whole family
+     */
+    @Id
+    @Column(length = 32)
+    private String id;
+    @Column(length = 32, nullable = false)
+    private String familyId;
+    @Column(nullable = false)
+    private String email;
+    @Column(nullable = false)
+    private Instant expiresAt;
+    private boolean used;
+    private boolean revoked;
+
+    // Ids are assigned before saving, so new rows are inserted straight away instead of merged
+    @Transient
+    private boolean newToken = true;
+
+    @Override
+    public boolean isNew() {
+        return newToken;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newToken = false;
+    }
+}
@@ -2,5 +2,7 @@ package com.springsecurity.security.entities;
 
 public enum Role {
     USER,
-    ADMIN
+    ADMIN,
+    // Services calling the token introspection endpoint, kept last since roles are stored by ordinal
+    SERVICE
 }
@@ -0,0 +1,156 @@
+package com.springsecurity.security.invalidation;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.jwt.TokenIds;
+import com.springsecurity.security.metrics.AuthMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@Slf4j
+public abstract class BatchingInvalidationBus implements InvalidationBus, DisposableBean {
+    /*
+        Class batching and coalescing invalidations before they are sent to the other nodes
+        - Publishing only puts the invalidation in a map keyed by type and key, it never waits for the network or database
+        - Publishing the same key again before the next flush updates the queued invalidation instead of adding one
+        - Every flush interval, the queued invalidations are sent in batches of at most the maximum batch size
+        - A batch which cannot be sent is queued again and retried on the next flush
+        - Received invalidations are timed from when they were published, as "auth.invalidation.lag"
+     */
+
+    // Invalidations waiting for the next flush, by type and key
+    private final ConcurrentHashMap<Target, Invalidation> pending = new ConcurrentHashMap<>();
+    // Handlers of received invalidations, by type
+    private final ConcurrentHashMap<Invalidation.Type, List<Consumer<Invalidation>>> handlers = new ConcurrentHashMap<>();
+
+    // Id of this node, changes of this node are not handled again when they come back
+    private final String nodeId = TokenIds.newId();
+
+    protected final AuthMetrics authMetrics;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flusher;
+
+    protected BatchingInvalidationBus(AuthProperties authProperties, AuthMetrics authMetrics) {
+        this.authMetrics = authMetrics;
+        this.maxBatchSize = authProperties.getInvalidation().getMaxBatchSize();
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = authProperties.getInvalidation().getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(Invalidation.Type type, String key, long expiresAt) {
+        /*
+            Function to queue an invalidation for the other nodes
+         */
+        Invalidation invalidation = new Invalidation(type, key, expiresAt, System.currentTimeMillis(), nodeId);
+        pending.merge(new Target(type, key), invalidation, (queued, next) -> {
+            authMetrics.invalidationCoalesced(type.name());
+            return queued.coalesce(next);
+        });
+        authMetrics.invalidationPublished(type.name());
+    }
+
+    @Override
+    public void subscribe(Invalidation.Type type, Consumer<Invalidation> handler) {
+        handlers.computeIfAbsent(type, ignored -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    public void flush() {
+        /*
+            Function to send every queued invalidation now
+            - Called by the flush thread, and on shutdown so no queued invalidation is lost
+         */
+        if(pending.isEmpty()) {
+            return;
+        }
+        List<Invalidation> batch = new ArrayList<>(Math.min(pending.size(), maxBatchSize));
+        for(Target target : pending.keySet()) {
+            Invalidation invalidation = pending.remove(target);
+            if(invalidation == null) {
+                continue;
+            }
+            batch.add(invalidation);
+            if(batch.size() == maxBatchSize) {
+                sendBatch(batch);
+                batch = new ArrayList<>(maxBatchSize);
+            }
+        }
+        if(!batch.isEmpty()) {
+            sendBatch(batch);
+        }
+    }
+
+    private void sendBatch(List<Invalidation> batch) {
+        try {
+            send(batch);
+            authMetrics.invalidationBatchSent(batch.size());
+        }
+        catch (RuntimeException exception) {
+            log.warn("Could not send {} invalidations, retrying on the next flush", batch.size(), exception);
+            for(Invalidation invalidation : batch) {
+                pending.merge(new Target(invalidation.getType(), invalidation.getKey()), invalidation,
+                        Invalidation::coalesce);
+            }
+        }
+    }
+
+    protected abstract void send(List<Invalidation> batch);
+
+    protected void deliver(List<Invalidation> batch) {
+        /*
+            Function to apply a batch of invalidations received from the other nodes
+            - Invalidations published by this node are skipped, they have been applied already
+            - A failing handler is logged and does not stop the other invalidations of the batch
+         */
+        long now = System.currentTimeMillis();
+        for(Invalidation invalidation : batch) {
+            if(nodeId.equals(invalidation.getOrigin())) {
+                continue;
+            }
+            for(Consumer<Invalidation> handler : handlers.getOrDefault(invalidation.getType(), List.of())) {
+                try {
+                    handler.accept(invalidation);
+                }
+                catch (RuntimeException exception) {
+                    log.warn("Could not apply invalidation of {} {}", invalidation.getType(), invalidation.getKey(),
+                            exception);
+                }
+            }
+            authMetrics.invalidationReceived(invalidation.getType().name(), now - invalidation.getPublishedAt());
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public int pendingSize() {
+        return pending.size();
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    private record Target(Invalidation.Type type, String key) {
+        /*
+            Record holding what an invalidation applies to, two invalidations of the same target are coalesced
+         */
+    }
+}
@@ -0,0 +1,49 @@
+package com.springsecurity.security.invalidation;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Component
+@ConditionalOnProperty(prefix = "auth.invalidation", name = "bus", havingValue = "local", matchIfMissing = true)
+public class InProcessInvalidationBus extends BatchingInvalidationBus {
+    /*
+        Class linking the nodes of a single JVM
+        - With a single node there is nobody to tell, batches are dropped once flushed
+        - Tests create further nodes with "join", every batch is then handed to each node of the group
+        - Batching and coalescing behave as with any other bus, so tests see the same delays and batches
+     */
+
+    private final AuthProperties authProperties;
+
+    // Nodes sharing this bus, this one included
+    private volatile List<InProcessInvalidationBus> nodes = new CopyOnWriteArrayList<>();
+
+    public InProcessInvalidationBus(AuthProperties authProperties, AuthMetrics authMetrics) {
+        super(authProperties, authMetrics);
+        this.authProperties = authProperties;
+        nodes.add(this);
+    }
+
+    public InProcessInvalidationBus join() {
+        /*
+            Function to add another node to the group of this bus
+         */
+        InProcessInvalidationBus node = new InProcessInvalidationBus(authProperties, authMetrics);
+        node.nodes = nodes;
+        nodes.add(node);
+        return node;
+    }
+
+    @Override
+    protected void send(List<Invalidation> batch) {
+        List<Invalidation> received = List.copyOf(batch);
+        for(InProcessInvalidationBus node : nodes) {
+            node.deliver(received);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.springsecurity.security.invalidation;
+
+import lombok.Value;
+
+@Value
+public class Invalidation {
+    /*
+        Class holding one change which other nodes must apply to their local caches
+        - The key is an email for "USER" and "USER_TOKENS", a token id for "TOKEN" and a family id for "TOKEN_FAMILY"
+        - The expiry is when the change stops mattering, "0" if it is applied once and forgotten
+        - The publishing time and node are kept, so receivers can skip their own changes and measure the lag
+     */
+
+    public enum Type {
+        // A user was saved, cached user details must be reloaded
+        USER,
+        // A JWT Token was revoked until its expiry
+        TOKEN,
+        // A family of refresh JWT Tokens was revoked until its expiry
+        TOKEN_FAMILY,
+        // Every access token of a user was revoked, each node revokes the ones it issued
+        USER_TOKENS
+    }
+
+    Type type;
+    String key;
+    long expiresAt;
+    long publishedAt;
+    String origin;
+
+    public Invalidation coalesce(Invalidation next) {
+        /*
+            Function to merge two invalidations of the same key into one
+            - The latest expiry and the earliest publishing time are kept, so the lag is never understated
+         */
+        return new Invalidation(type, key, Math.max(expiresAt, next.expiresAt),
+                Math.min(publishedAt, next.publishedAt), origin);
+    }
+}
@@ -0,0 +1,14 @@
+package com.springsecurity.security.invalidation;
+
+import java.util.function.Consumer;
+
+public interface InvalidationBus {
+    /*
+        Interface carrying cache invalidations from the node where a change is made to every other node
+        - The publishing node applies the change to its own caches itself, handlers only run for changes of other nodes
+        - "InProcessInvalidationBus" links nodes in one JVM, "JdbcInvalidationBus" links nodes through the database
+        - A broker based bus only needs to send batches and hand received batches to "BatchingInvalidationBus.deliver"
+     */
+    void publish(Invalidation.Type type, String key, long expiresAt);
+    void subscribe(Invalidation.Type type, Consumer<Invalidation> handler);
+}
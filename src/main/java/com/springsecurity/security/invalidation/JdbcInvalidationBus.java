@@ -0,0 +1,197 @@
+package com.springsecurity.security.invalidation;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "auth.invalidation", name = "bus", havingValue = "jdbc")
+public class JdbcInvalidationBus extends BatchingInvalidationBus {
+    /*
+        Class linking nodes which share the database, through the "invalidation_event" table
+        - Each batch is written with a single "JdbcTemplate.batchUpdate"
+        - Every poll interval, the rows after the last id read are fetched in order, in pages of the maximum batch size
+        - A starting node reads every row still kept, so it learns of revocations made before it started
+        - An id skipped between two rows may belong to an insert which has not committed yet
+        - Such ids are looked for again on each poll until the gap timeout, then given up as rolled back
+        - Every skipped id is tracked, however many, up to the maximum number of gaps
+        - Rows are purged once older than the retention, revocations are kept until their JWT Token expires
+        - The table is created by Hibernate, or by "db/invalidation_event.sql" where Hibernate does not create the schema
+     */
+
+    private static final String INSERT_EVENT =
+            "insert into invalidation_event (type, invalidation_key, expires_at, published_at, origin) values (?, ?, ?, ?, ?)";
+    private static final String SELECT_EVENTS =
+            "select id, type, invalidation_key, expires_at, published_at, origin from invalidation_event";
+    private static final String DELETE_EVENTS =
+            "delete from invalidation_event where published_at < ? and expires_at < ?";
+
+    private static final RowMapper<Event> EVENT_MAPPER = (resultSet, rowNumber) -> new Event(
+            resultSet.getLong("id"),
+            new Invalidation(
+                    Invalidation.Type.valueOf(resultSet.getString("type")),
+                    resultSet.getString("invalidation_key"),
+                    resultSet.getLong("expires_at"),
+                    resultSet.getLong("published_at"),
+                    resultSet.getString("origin")));
+
+    // Declare object used to write and read the table
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int pageSize;
+    private final long retentionMillis;
+    private final long gapTimeoutMillis;
+    private final int maxGaps;
+    private final ScheduledExecutorService poller;
+
+    // State of the poll thread, only touched by it
+    // - The last id read, and whether the rows kept at startup have all been read
+    private long lastId;
+    private boolean caughtUp;
+    // - Ids skipped by a poll, with the time they were first missed
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    public JdbcInvalidationBus(JdbcTemplate jdbcTemplate, AuthProperties authProperties, AuthMetrics authMetrics) {
+        super(authProperties, authMetrics);
+        this.jdbcTemplate = jdbcTemplate;
+        AuthProperties.Invalidation settings = authProperties.getInvalidation();
+        this.pageSize = settings.getMaxBatchSize();
+        this.retentionMillis = settings.getRetention().toMillis();
+        this.gapTimeoutMillis = settings.getGapTimeout().toMillis();
+        this.maxGaps = settings.getMaxGaps();
+
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "invalidation-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getPollInterval().toMillis();
+        poller.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+        poller.scheduleWithFixedDelay(this::purge, retentionMillis, retentionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void send(List<Invalidation> batch) {
+        List<Object[]> arguments = new ArrayList<>(batch.size());
+        for(Invalidation invalidation : batch) {
+            arguments.add(new Object[] {
+                    invalidation.getType().name(), invalidation.getKey(), invalidation.getExpiresAt(),
+                    invalidation.getPublishedAt(), invalidation.getOrigin()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, arguments);
+    }
+
+    void poll() {
+        /*
+            Function to read and apply the invalidations published by the other nodes since the last poll
+            - A failed read is logged and retried from the same id on the next poll
+         */
+        try {
+            long now = System.currentTimeMillis();
+            recheckGaps(now);
+            List<Event> events;
+            do {
+                events = jdbcTemplate.query(SELECT_EVENTS + " where id > ? order by id limit ?",
+                        EVENT_MAPPER, lastId, pageSize);
+                List<Invalidation> received = new ArrayList<>(events.size());
+                for(Event event : events) {
+                    // Remember the ids skipped since the last row, unless they are old rows purged before startup
+                    if(caughtUp && event.id() > lastId + 1) {
+                        trackGaps(lastId + 1, event.id(), now);
+                    }
+                    lastId = event.id();
+                    received.add(event.invalidation());
+                }
+                deliver(received);
+            } while(events.size() == pageSize);
+            caughtUp = true;
+        }
+        catch (DataAccessException exception) {
+            log.warn("Could not read invalidations of other nodes", exception);
+        }
+    }
+
+    private void trackGaps(long fromId, long toId, long now) {
+        /*
+            Function to remember the ids skipped between two rows, "toId" excluded
+            - Ids beyond the maximum number of gaps are given up at once, which is logged
+         */
+        long room = Math.max(0, maxGaps - gaps.size());
+        long skipped = toId - fromId;
+        for(long id = fromId; id < toId && id - fromId < room; id++) {
+            gaps.putIfAbsent(id, now);
+        }
+        if(skipped > room) {
+            log.warn("Gave up {} skipped invalidation ids, {} are already looked for", skipped - room, gaps.size());
+        }
+    }
+
+    private void recheckGaps(long now) {
+        /*
+            Function to look again for ids skipped by earlier polls
+            - Ids missing for longer than the gap timeout belong to inserts which were rolled back
+            - The ids are looked for in pages of the maximum batch size
+         */
+        gaps.values().removeIf(firstMissed -> now - firstMissed > gapTimeoutMillis);
+        List<Long> ids = new ArrayList<>(gaps.keySet());
+        for(int from = 0; from < ids.size(); from += pageSize) {
+            List<Long> page = ids.subList(from, Math.min(ids.size(), from + pageSize));
+            String placeholders = String.join(", ", Collections.nCopies(page.size(), "?"));
+            List<Event> events = jdbcTemplate.query(SELECT_EVENTS + " where id in (" + placeholders + ") order by id",
+                    EVENT_MAPPER, page.toArray());
+            List<Invalidation> received = new ArrayList<>(events.size());
+            for(Event event : events) {
+                gaps.remove(event.id());
+                received.add(event.invalidation());
+            }
+            deliver(received);
+        }
+    }
+
+    int gapCount() {
+        return gaps.size();
+    }
+
+    void purge() {
+        /*
+            Function to delete the rows no node needs any more
+            - Every node purges, deleting the same rows twice does no harm
+         */
+        try {
+            long now = System.currentTimeMillis();
+            int deleted = jdbcTemplate.update(DELETE_EVENTS, now - retentionMillis, now);
+            log.debug("Purged {} invalidations", deleted);
+        }
+        catch (DataAccessException exception) {
+            log.warn("Could not purge invalidations", exception);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        poller.shutdownNow();
+        super.destroy();
+    }
+
+    private record Event(long id, Invalidation invalidation) {
+        /*
+            Record holding one row of the table with its id
+         */
+    }
+}
@@ -0,0 +1,97 @@
+package com.springsecurity.security.jwt;
+
+import io.jsonwebtoken.MalformedJwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+final class Base64Url {
+    /*
+        Class to encode and decode unpadded Base64URL between byte arrays
+        - Works on ranges of existing arrays, so no intermediate strings or arrays are created
+     */
+    private static final byte[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for(int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = i;
+        }
+    }
+
+    private Base64Url() {
+    }
+
+    static void encode(byte[] source, int offset, int length, ByteSink sink) {
+        /*
+            Function to append the Base64URL encoding of a byte range to a sink, without padding
+         */
+        int end = offset + length;
+        int i = offset;
+        for(; i + 2 < end; i += 3) {
+            int bits = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8 | (source[i + 2] & 0xFF);
+            sink.write(ALPHABET[bits >>> 18]);
+            sink.write(ALPHABET[(bits >>> 12) & 0x3F]);
+            sink.write(ALPHABET[(bits >>> 6) & 0x3F]);
+            sink.write(ALPHABET[bits & 0x3F]);
+        }
+        int remaining = end - i;
+        if(remaining == 1) {
+            int bits = (source[i] & 0xFF) << 16;
+            sink.write(ALPHABET[bits >>> 18]);
+            sink.write(ALPHABET[(bits >>> 12) & 0x3F]);
+        }
+        else if(remaining == 2) {
+            int bits = (source[i] & 0xFF) << 16 | (source[i + 1] & 0xFF) << 8;
+            sink.write(ALPHABET[bits >>> 18]);
+            sink.write(ALPHABET[(bits >>> 12) & 0x3F]);
+            sink.write(ALPHABET[(bits >>> 6) & 0x3F]);
+        }
+    }
+
+    static int decodedLength(int length) {
+        return length * 3 / 4;
+    }
+
+    static int decode(byte[] source, int offset, int length, byte[] target) {
+        /*
+            Function to decode a Base64URL byte range into the start of the target array
+            - Trailing padding is tolerated
+            - Returns the number of decoded bytes, or throws a "MalformedJwtException" for invalid input
+         */
+        while(length > 0 && source[offset + length - 1] == '=') {
+            length--;
+        }
+        if(length % 4 == 1 || decodedLength(length) > target.length) {
+            throw new MalformedJwtException("Invalid Base64URL encoded JWT section");
+        }
+        int written = 0;
+        int bits = 0;
+        int count = 0;
+        for(int i = offset; i < offset + length; i++) {
+            int b = source[i];
+            int value = b >= 0 && b < 128 ? VALUES[b] : -1;
+            if(value < 0) {
+                throw new MalformedJwtException("Invalid Base64URL character in JWT section");
+            }
+            bits = bits << 6 | value;
+            if(++count == 4) {
+                target[written++] = (byte) (bits >> 16);
+                target[written++] = (byte) (bits >> 8);
+                target[written++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if(count == 2) {
+            target[written++] = (byte) (bits >> 4);
+        }
+        else if(count == 3) {
+            target[written++] = (byte) (bits >> 10);
+            target[written++] = (byte) (bits >> 2);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,85 @@
+package com.springsecurity.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+final class BloomFilter {
+    /*
+        Class holding a lock-free Bloom filter of token ids
+        - "mightContain" returning "false" means the token id was never added, "true" must be confirmed elsewhere
+        - Bits are set with compare-and-set on an "AtomicLongArray", readers never block and never allocate
+        - Each token id is hashed once to 64 bits, the probe positions are derived from the two halves of that hash
+        - The filter counts its entries, once it holds more than it was sized for its false positive rate rises
+        - The count is not thread-safe, entries must be added by one writer at a time
+     */
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedEntries;
+    private long entries;
+
+    BloomFilter(long expectedEntries, double falsePositiveRate) {
+        this.expectedEntries = expectedEntries;
+        // Optimal number of bits and of hash functions for the expected entries and false positive rate
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedEntries * ln2));
+    }
+
+    void add(long hash) {
+        entries++;
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for(int i = 0; i < hashCount; i++) {
+            long bit = index(first + i * second);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while(((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    boolean mightContain(long hash) {
+        int first = (int) hash;
+        int second = (int) (hash >>> 32);
+        for(int i = 0; i < hashCount; i++) {
+            long bit = index(first + i * second);
+            if((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long expectedEntries() {
+        return expectedEntries;
+    }
+
+    boolean isFull() {
+        return entries >= expectedEntries;
+    }
+
+    private long index(int combined) {
+        return (combined & 0x7FFFFFFFL) % bitCount;
+    }
+
+    static long hash(String tokenId) {
+        /*
+            Function to hash a token id to 64 bits, with FNV-1a followed by a final mix
+         */
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < tokenId.length(); i++) {
+            hash ^= tokenId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,177 @@
+package com.springsecurity.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+final class ByteSink {
+    /*
+        Class holding a growable byte buffer which is reused between JWT Tokens
+        - Used by "CompactTokenCodec" to write JSON and compact JWT Tokens without intermediate strings
+        - Instances are not thread-safe, each thread keeps its own
+     */
+    private byte[] bytes;
+    private int length;
+
+    ByteSink(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    ByteSink reset() {
+        length = 0;
+        return this;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void write(int b) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) b;
+    }
+
+    void write(byte[] source) {
+        ensureCapacity(source.length);
+        System.arraycopy(source, 0, bytes, length, source.length);
+        length += source.length;
+    }
+
+    void writeLong(long value) {
+        /*
+            Function to write a number in decimal without creating a string
+         */
+        if(value == Long.MIN_VALUE) {
+            write(String.valueOf(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if(value < 0) {
+            write('-');
+            value = -value;
+        }
+        int digits = 1;
+        for(long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for(int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    void writeJsonString(String value) {
+        /*
+            Function to write a JSON string, escaped and encoded as UTF-8
+         */
+        write('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '"' || c == '\\') {
+                write('\\');
+                write(c);
+            }
+            else if(c < 0x20) {
+                write('\\');
+                write('u');
+                write('0');
+                write('0');
+                write(HEX[c >> 4]);
+                write(HEX[c & 0xF]);
+            }
+            else if(c < 0x80) {
+                write(c);
+            }
+            else if(c < 0x800) {
+                write(0xC0 | (c >> 6));
+                write(0x80 | (c & 0x3F));
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            }
+            else {
+                write(0xE0 | (c >> 12));
+                write(0x80 | ((c >> 6) & 0x3F));
+                write(0x80 | (c & 0x3F));
+            }
+        }
+        write('"');
+    }
+
+    void writeJsonValue(Object value) {
+        /*
+            Function to write a claim value as JSON
+            - Supports the value types a claim can have: strings, numbers, booleans, collections and maps
+         */
+        if(value == null) {
+            write(NULL);
+        }
+        else if(value instanceof String string) {
+            writeJsonString(string);
+        }
+        else if(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        }
+        else if(value instanceof Number number) {
+            write(number.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        else if(value instanceof Boolean bool) {
+            write(bool ? TRUE : FALSE);
+        }
+        else if(value instanceof Collection<?> collection) {
+            write('[');
+            boolean first = true;
+            for(Object element : collection) {
+                if(!first) {
+                    write(',');
+                }
+                writeJsonValue(element);
+                first = false;
+            }
+            write(']');
+        }
+        else if(value instanceof Map<?, ?> map) {
+            write('{');
+            boolean first = true;
+            for(Map.Entry<?, ?> entry : map.entrySet()) {
+                if(!first) {
+                    write(',');
+                }
+                writeJsonString(String.valueOf(entry.getKey()));
+                write(':');
+                writeJsonValue(entry.getValue());
+                first = false;
+            }
+            write('}');
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported claim value type: " + value.getClass().getName());
+        }
+    }
+
+    String toAsciiString() {
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private void ensureCapacity(int extra) {
+        if(length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+}
@@ -0,0 +1,284 @@
+package com.springsecurity.security.jwt;
+
+import io.jsonwebtoken.MalformedJwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+final class Cbor {
+    /*
+        Class to write and read the subset of CBOR (RFC 8949) used by CWT Tokens
+        - Only definite lengths are written and accepted
+        - Values are written into a "ByteSink" and read in place from a byte array, like the JSON of "CompactTokenCodec"
+     */
+
+    // Major types
+    static final int UNSIGNED = 0;
+    static final int NEGATIVE = 1;
+    static final int BYTES = 2;
+    static final int TEXT = 3;
+    static final int ARRAY = 4;
+    static final int MAP = 5;
+    static final int TAG = 6;
+    static final int SIMPLE = 7;
+
+    // Nesting allowed when skipping unknown values, so a crafted CWT Token cannot exhaust the stack
+    private static final int MAX_DEPTH = 16;
+
+    private Cbor() {
+    }
+
+    static void writeHead(ByteSink sink, int majorType, long argument) {
+        /*
+            Function to write the initial byte and argument of a data item, in its shortest form
+         */
+        int major = majorType << 5;
+        if(argument < 24) {
+            sink.write(major | (int) argument);
+        }
+        else if(argument < 0x100) {
+            sink.write(major | 24);
+            sink.write((int) argument);
+        }
+        else if(argument < 0x10000) {
+            sink.write(major | 25);
+            sink.write((int) (argument >>> 8));
+            sink.write((int) argument);
+        }
+        else if(argument < 0x100000000L) {
+            sink.write(major | 26);
+            for(int shift = 24; shift >= 0; shift -= 8) {
+                sink.write((int) (argument >>> shift));
+            }
+        }
+        else {
+            sink.write(major | 27);
+            for(int shift = 56; shift >= 0; shift -= 8) {
+                sink.write((int) (argument >>> shift));
+            }
+        }
+    }
+
+    static void writeInt(ByteSink sink, long value) {
+        if(value >= 0) {
+            writeHead(sink, UNSIGNED, value);
+        }
+        else {
+            writeHead(sink, NEGATIVE, -1 - value);
+        }
+    }
+
+    static void writeText(ByteSink sink, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeHead(sink, TEXT, bytes.length);
+        sink.write(bytes);
+    }
+
+    static void writeBytes(ByteSink sink, byte[] source, int offset, int length) {
+        writeHead(sink, BYTES, length);
+        for(int i = offset; i < offset + length; i++) {
+            sink.write(source[i]);
+        }
+    }
+
+    static void writeValue(ByteSink sink, Object value) {
+        /*
+            Function to write a claim value of any type supported in JSON claims
+            - Values of other types are written as their string form, as "CompactTokenCodec" does
+         */
+        if(value == null) {
+            sink.write(SIMPLE << 5 | 22);
+        }
+        else if(value instanceof Boolean bool) {
+            sink.write(SIMPLE << 5 | (bool ? 21 : 20));
+        }
+        else if(value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeInt(sink, ((Number) value).longValue());
+        }
+        else if(value instanceof Number number) {
+            long bits = Double.doubleToLongBits(number.doubleValue());
+            sink.write(SIMPLE << 5 | 27);
+            for(int shift = 56; shift >= 0; shift -= 8) {
+                sink.write((int) (bits >>> shift));
+            }
+        }
+        else if(value instanceof Collection<?> collection) {
+            writeHead(sink, ARRAY, collection.size());
+            for(Object element : collection) {
+                writeValue(sink, element);
+            }
+        }
+        else if(value instanceof Map<?, ?> map) {
+            writeHead(sink, MAP, map.size());
+            for(Map.Entry<?, ?> entry : map.entrySet()) {
+                writeText(sink, String.valueOf(entry.getKey()));
+                writeValue(sink, entry.getValue());
+            }
+        }
+        else {
+            writeText(sink, value.toString());
+        }
+    }
+
+    static final class Reader {
+        /*
+            Class reading data items in place from a byte range
+            - Throws "MalformedJwtException" for truncated or unexpected input
+            - Instances are reused, each thread keeps its own
+         */
+        private byte[] bytes;
+        private int position;
+        private int limit;
+
+        // Argument of the last head read
+        private long argument;
+
+        Reader reset(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.limit = offset + length;
+            return this;
+        }
+
+        int position() {
+            return position;
+        }
+
+        boolean atEnd() {
+            return position == limit;
+        }
+
+        int peekMajorType() {
+            require(1);
+            return (bytes[position] & 0xFF) >>> 5;
+        }
+
+        int readHead() {
+            /*
+                Function to read the initial byte and argument of a data item
+                - Returns the major type, the argument is kept for the caller
+             */
+            require(1);
+            int initial = bytes[position++] & 0xFF;
+            int additional = initial & 0x1F;
+            if(additional < 24) {
+                argument = additional;
+            }
+            else if(additional <= 27) {
+                int length = 1 << (additional - 24);
+                require(length);
+                long value = 0;
+                for(int i = 0; i < length; i++) {
+                    value = value << 8 | (bytes[position++] & 0xFF);
+                }
+                argument = value;
+            }
+            else {
+                throw new MalformedJwtException("Unsupported CBOR item in CWT");
+            }
+            return initial >>> 5;
+        }
+
+        long expect(int majorType) {
+            /*
+                Function to read a head of the given major type and return its argument
+             */
+            if(readHead() != majorType) {
+                throw new MalformedJwtException("Unexpected CBOR item in CWT");
+            }
+            return argument;
+        }
+
+        int expectLength(int majorType) {
+            /*
+                Function to read the head of a byte string, text string, array or map and return its length
+                - Every item takes at least a byte, so no length can exceed the bytes left
+             */
+            long length = expect(majorType);
+            if(length < 0 || length > limit - position) {
+                throw new MalformedJwtException("Invalid CBOR length in CWT");
+            }
+            return (int) length;
+        }
+
+        long readInt() {
+            int majorType = readHead();
+            if(argument < 0) {
+                throw new MalformedJwtException("CBOR integer out of range in CWT");
+            }
+            if(majorType == UNSIGNED) {
+                return argument;
+            }
+            if(majorType == NEGATIVE) {
+                return -1 - argument;
+            }
+            throw new MalformedJwtException("Expected a CBOR integer in CWT");
+        }
+
+        String readText() {
+            int length = expectLength(TEXT);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        int readBytes() {
+            /*
+                Function to read a byte string in place
+                - Returns its length, the byte string ends at the new position
+             */
+            int length = expectLength(BYTES);
+            position += length;
+            return length;
+        }
+
+        boolean readNull() {
+            if(position < limit && (bytes[position] & 0xFF) == (SIMPLE << 5 | 22)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void skip() {
+            skip(0);
+        }
+
+        private void skip(int depth) {
+            /*
+                Function to skip a data item of any type, including nested arrays and maps
+             */
+            if(depth > MAX_DEPTH) {
+                throw new MalformedJwtException("CBOR nested too deeply in CWT");
+            }
+            int majorType = readHead();
+            switch(majorType) {
+                case UNSIGNED, NEGATIVE, SIMPLE -> {
+                }
+                case BYTES, TEXT -> {
+                    if(argument < 0 || argument > limit - position) {
+                        throw new MalformedJwtException("Invalid CBOR length in CWT");
+                    }
+                    position += (int) argument;
+                }
+                case ARRAY, MAP -> {
+                    if(argument < 0 || argument > limit - position) {
+                        throw new MalformedJwtException("Invalid CBOR length in CWT");
+                    }
+                    long items = majorType == MAP ? argument * 2 : argument;
+                    for(long i = 0; i < items; i++) {
+                        skip(depth + 1);
+                    }
+                }
+                default -> skip(depth + 1);
+            }
+        }
+
+        private void require(int length) {
+            if(limit - position < length) {
+                throw new MalformedJwtException("Truncated CBOR in CWT");
+            }
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.dto.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+@ConditionalOnProperty(prefix = "jwt", name = "codec", havingValue = "compact", matchIfMissing = true)
+@RequiredArgsConstructor
+public class CompactTokenCodec implements TokenCodec {
+    /*
+        Class to sign and verify HS256, ES256 and EdDSA JWT Tokens without a general purpose JWT library
+        - This is the default codec, "jwt.codec: jjwt" selects "JjwtTokenCodec" instead
+        - JWT Tokens are identical in format to those of jjwt, either codec can read what the other has written
+        - The header of each key is serialized once and reused
+        - The "alg" header must match the algorithm of the key named by "kid", a JWT Token cannot pick its own algorithm
+        - JSON and Base64URL are written into pooled buffers, the only allocation per JWT Token is the result
+        - On decode, only "sub", "exp", "iat", "nbf", "uid", "roles", "jti", "fam" and "auth_time" are read, no map of claims is built
+        - The claims map of the returned "VerifiedToken" is therefore always empty
+     */
+
+    // HMAC-SHA256 signatures are 32 bytes long, ES256 and EdDSA signatures are 64 bytes long
+    private static final int MAX_SIGNATURE_LENGTH = 64;
+
+    private static final byte[] ALG = ascii("alg");
+    private static final byte[] KID = ascii("kid");
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] IAT = ascii("iat");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] NBF = ascii("nbf");
+    private static final byte[] UID = ascii(VerifiedToken.USER_ID_CLAIM);
+    private static final byte[] ROLES = ascii(VerifiedToken.ROLES_CLAIM);
+    private static final byte[] JTI = ascii(VerifiedToken.TOKEN_ID_CLAIM);
+    private static final byte[] FAM = ascii(VerifiedToken.FAMILY_ID_CLAIM);
+    private static final byte[] AUTH_TIME = ascii(VerifiedToken.AUTH_TIME_CLAIM);
+
+    // Claims written by the codec itself, extra claims with these names are ignored
+    private static final Set<String> REGISTERED_CLAIMS =
+            Set.of("sub", "iat", "exp", VerifiedToken.USER_ID_CLAIM, VerifiedToken.ROLES_CLAIM,
+                    VerifiedToken.TOKEN_ID_CLAIM, VerifiedToken.FAMILY_ID_CLAIM, VerifiedToken.AUTH_TIME_CLAIM);
+
+    // Pooled buffers, each taken for one JWT Token at a time whatever thread handles it
+    private static final ObjectPool<Buffers> BUFFERS = new ObjectPool<>(Buffers::new);
+
+    // Instantiate object holding the signing keys
+    private final JwtKeyRing keyRing;
+
+    // Base64URL encoded header of each "kid", serialized on first use
+    private final ConcurrentMap<String, EncodedHeader> encodedHeaders = new ConcurrentHashMap<>();
+
+    @Override
+    public String encode(TokenClaims claims) {
+        /*
+            Function to sign the claims into a compact JWT Token
+            - The token is "header.payload.signature", each part Base64URL encoded
+            - The signature is computed over "header.payload" with the active key, in the algorithm of that key
+         */
+        SigningKey signingKey = keyRing.activeKey();
+        Buffers buffers = BUFFERS.acquire();
+        try {
+            return encode(claims, signingKey, buffers);
+        }
+        finally {
+            BUFFERS.release(buffers);
+        }
+    }
+
+    private String encode(TokenClaims claims, SigningKey signingKey, Buffers buffers) {
+        // Write the payload JSON
+        ByteSink json = buffers.json.reset();
+        writePayload(json, claims);
+
+        // Write "header.payload"
+        ByteSink token = buffers.token.reset();
+        token.write(encodedHeader(signingKey));
+        token.write('.');
+        Base64Url.encode(json.array(), 0, json.length(), token);
+
+        // Sign "header.payload" and append the signature
+        signingKey.sign(token.array(), token.length(), buffers.signature);
+        token.write('.');
+        Base64Url.encode(buffers.signature, 0, signingKey.getSignatureLength(), token);
+
+        return token.toAsciiString();
+    }
+
+    @Override
+    public VerifiedToken decode(String token) {
+        /*
+            Function to verify a compact JWT Token
+            - The signature is checked before the payload is read
+            - Throws the same "JwtException" types as jjwt for malformed, unsupported, tampered or expired JWT Tokens
+         */
+        if(token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+        }
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if(firstDot <= 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new MalformedJwtException("JWT strings must contain exactly 2 period characters.");
+        }
+
+        Buffers buffers = BUFFERS.acquire();
+        try {
+            return decode(token, firstDot, secondDot, buffers);
+        }
+        finally {
+            BUFFERS.release(buffers);
+        }
+    }
+
+    private VerifiedToken decode(String token, int firstDot, int secondDot, Buffers buffers) {
+        // Copy the JWT Token into the pooled byte buffer
+        byte[] ascii = buffers.ascii(token.length());
+        for(int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if(c > 0x7F) {
+                throw new MalformedJwtException("JWT strings must be ASCII.");
+            }
+            ascii[i] = (byte) c;
+        }
+
+        // Read "alg" and "kid" from the header
+        byte[] header = buffers.decoded(Base64Url.decodedLength(firstDot));
+        int headerLength = Base64Url.decode(ascii, 0, firstDot, header);
+        JsonScanner scanner = buffers.scanner.reset(header, 0, headerLength);
+        String alg = null;
+        String kid = null;
+        scanner.beginObject();
+        while(scanner.nextField()) {
+            if(scanner.fieldIs(ALG)) {
+                alg = scanner.readString();
+            }
+            else if(scanner.fieldIs(KID)) {
+                kid = scanner.readString();
+            }
+            else {
+                scanner.skipValue();
+            }
+        }
+        if(!SigningKey.HS256.equals(alg) && !SigningKey.ES256.equals(alg) && !SigningKey.EDDSA.equals(alg)) {
+            throw new UnsupportedJwtException("Unsupported JWT signature algorithm: " + alg);
+        }
+
+        // Check the signature of "header.payload" with the key named by "kid"
+        // - A JWT Token claiming another algorithm than its key fails like a bad signature
+        SigningKey signingKey = keyRing.findKey(kid);
+        int signatureLength;
+        try {
+            signatureLength = Base64Url.decode(ascii, secondDot + 1, token.length() - secondDot - 1, buffers.provided);
+        }
+        catch (MalformedJwtException exception) {
+            signatureLength = -1;
+        }
+        if(!alg.equals(signingKey.getAlgorithm())
+                || !signingKey.verify(ascii, secondDot, buffers.provided, signatureLength, buffers.signature)) {
+            throw new SignatureException("JWT signature does not match locally computed signature. "
+                    + "JWT validity cannot be asserted and should not be trusted.");
+        }
+
+        // Read the registered claims from the payload
+        int payloadLength = secondDot - firstDot - 1;
+        byte[] payload = buffers.decoded(Base64Url.decodedLength(payloadLength));
+        payloadLength = Base64Url.decode(ascii, firstDot + 1, payloadLength, payload);
+        scanner.reset(payload, 0, payloadLength);
+
+        String subject = null;
+        long issuedAt = 0L;
+        long expiration = Long.MAX_VALUE;
+        long notBefore = 0L;
+        Integer userId = null;
+        List<String> roles = null;
+        String tokenId = null;
+        String familyId = null;
+        long authTime = 0L;
+
+        scanner.beginObject();
+        while(scanner.nextField()) {
+            if(scanner.fieldIs(SUB)) {
+                subject = scanner.readString();
+            }
+            else if(scanner.fieldIs(EXP)) {
+                expiration = scanner.readNull() ? Long.MAX_VALUE : scanner.readLong() * 1000;
+            }
+            else if(scanner.fieldIs(IAT)) {
+                issuedAt = scanner.readNull() ? 0L : scanner.readLong() * 1000;
+            }
+            else if(scanner.fieldIs(NBF)) {
+                notBefore = scanner.readNull() ? 0L : scanner.readLong() * 1000;
+            }
+            else if(scanner.fieldIs(UID)) {
+                userId = scanner.readNull() ? null : Math.toIntExact(scanner.readLong());
+            }
+            else if(scanner.fieldIs(ROLES)) {
+                roles = scanner.readStringArray();
+            }
+            else if(scanner.fieldIs(JTI)) {
+                tokenId = scanner.readString();
+            }
+            else if(scanner.fieldIs(FAM)) {
+                familyId = scanner.readString();
+            }
+            else if(scanner.fieldIs(AUTH_TIME)) {
+                authTime = scanner.readNull() ? 0L : scanner.readLong() * 1000;
+            }
+            else {
+                scanner.skipValue();
+            }
+        }
+
+        // Check the JWT Token is within its validity period
+        long now = System.currentTimeMillis();
+        if(expiration <= now) {
+            throw new ExpiredJwtException(null, null, "JWT expired at " + expiration + ". Current time: " + now);
+        }
+        if(notBefore > now) {
+            throw new PrematureJwtException(null, null, "JWT must not be accepted before " + notBefore);
+        }
+
+        return new VerifiedToken(token, subject, issuedAt, expiration, userId, roles, tokenId, familyId, authTime,
+                Map.of());
+    }
+
+    private static void writePayload(ByteSink json, TokenClaims claims) {
+        /*
+            Function to write the claims as the JSON payload of a JWT Token
+            - Dates are written in seconds, as required for JWT Tokens
+         */
+        json.write('{');
+        for(Map.Entry<String, ?> extraClaim : claims.getExtraClaims().entrySet()) {
+            if(extraClaim.getValue() != null && !REGISTERED_CLAIMS.contains(extraClaim.getKey())) {
+                json.writeJsonString(extraClaim.getKey());
+                json.write(':');
+                json.writeJsonValue(extraClaim.getValue());
+                json.write(',');
+            }
+        }
+        if(claims.getSubject() != null) {
+            json.write(SUB_FIELD);
+            json.writeJsonString(claims.getSubject());
+            json.write(',');
+        }
+        if(claims.getUserId() != null) {
+            json.write(UID_FIELD);
+            json.writeLong(claims.getUserId());
+            json.write(',');
+        }
+        if(claims.getRoles() != null) {
+            json.write(ROLES_FIELD);
+            json.writeJsonValue(claims.getRoles());
+            json.write(',');
+        }
+        if(claims.getTokenId() != null) {
+            json.write(JTI_FIELD);
+            json.writeJsonString(claims.getTokenId());
+            json.write(',');
+        }
+        if(claims.getFamilyId() != null) {
+            json.write(FAM_FIELD);
+            json.writeJsonString(claims.getFamilyId());
+            json.write(',');
+        }
+        if(claims.getAuthTime() != 0L) {
+            json.write(AUTH_TIME_FIELD);
+            json.writeLong(claims.getAuthTime() / 1000);
+            json.write(',');
+        }
+        json.write(IAT_FIELD);
+        json.writeLong(claims.getIssuedAt() / 1000);
+        json.write(',');
+        json.write(EXP_FIELD);
+        json.writeLong(claims.getExpiration() / 1000);
+        json.write('}');
+    }
+
+    private byte[] encodedHeader(SigningKey signingKey) {
+        /*
+            Function to get the encoded header for a key
+            - The header is serialized again if a rotation reused the "kid" with another algorithm
+         */
+        EncodedHeader header = encodedHeaders.get(signingKey.getKid());
+        if(header == null || !header.algorithm().equals(signingKey.getAlgorithm())) {
+            header = new EncodedHeader(signingKey.getAlgorithm(), encodeHeader(signingKey.getKid(), signingKey.getAlgorithm()));
+            encodedHeaders.put(signingKey.getKid(), header);
+        }
+        return header.bytes();
+    }
+
+    private static byte[] encodeHeader(String kid, String algorithm) {
+        /*
+            Function to serialize and Base64URL encode the header for a "kid"
+         */
+        ByteSink json = new ByteSink(64);
+        json.write(ascii("{\"kid\":"));
+        json.writeJsonString(kid);
+        json.write(ascii(",\"alg\":"));
+        json.writeJsonString(algorithm);
+        json.write('}');
+        ByteSink encoded = new ByteSink(96);
+        Base64Url.encode(json.array(), 0, json.length(), encoded);
+        return Arrays.copyOf(encoded.array(), encoded.length());
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static final byte[] SUB_FIELD = ascii("\"sub\":");
+    private static final byte[] UID_FIELD = ascii("\"" + VerifiedToken.USER_ID_CLAIM + "\":");
+    private static final byte[] ROLES_FIELD = ascii("\"" + VerifiedToken.ROLES_CLAIM + "\":");
+    private static final byte[] JTI_FIELD = ascii("\"" + VerifiedToken.TOKEN_ID_CLAIM + "\":");
+    private static final byte[] FAM_FIELD = ascii("\"" + VerifiedToken.FAMILY_ID_CLAIM + "\":");
+    private static final byte[] AUTH_TIME_FIELD = ascii("\"" + VerifiedToken.AUTH_TIME_CLAIM + "\":");
+    private static final byte[] IAT_FIELD = ascii("\"iat\":");
+    private static final byte[] EXP_FIELD = ascii("\"exp\":");
+
+    private record EncodedHeader(String algorithm, byte[] bytes) {
+    }
+
+    private static final class Buffers {
+        /*
+            Class holding the buffers reused for every JWT Token
+            - Every buffer is reset or overwritten before it is read, so buffers go back to the pool even after a failure
+         */
+        private final ByteSink json = new ByteSink(256);
+        private final ByteSink token = new ByteSink(512);
+        private final JsonScanner scanner = new JsonScanner();
+        private final byte[] signature = new byte[MAX_SIGNATURE_LENGTH];
+        private final byte[] provided = new byte[MAX_SIGNATURE_LENGTH];
+        private byte[] ascii = new byte[512];
+        private byte[] decoded = new byte[384];
+
+        private byte[] ascii(int length) {
+            if(ascii.length < length) {
+                ascii = new byte[length];
+            }
+            return ascii;
+        }
+
+        private byte[] decoded(int length) {
+            if(decoded.length < length) {
+                decoded = new byte[length];
+            }
+            return decoded;
+        }
+    }
+}
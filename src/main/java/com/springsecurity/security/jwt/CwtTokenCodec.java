@@ -0,0 +1,443 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.dto.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+@Component
+@RequiredArgsConstructor
+public class CwtTokenCodec {
+    /*
+        Class to sign and verify CWT Tokens, as defined in RFC 8392
+        - A CWT Token carries the same claims as a JWT Token, encoded as CBOR with integer claim keys
+        - HS256 keys produce a "COSE_Mac0" message, ES256 and EdDSA keys a "COSE_Sign1" message (RFC 8152)
+        - The message is Base64URL encoded so it travels in the "Authorization" header like a JWT Token
+        - A CWT Token never contains a '.', which is how it is told apart from a JWT Token
+        - Signing keys and error types are shared with "CompactTokenCodec", so both formats verify alike
+        - This codec is used alongside the "TokenCodec" bean, for clients which asked for CWT Tokens
+     */
+
+    // Claim keys registered for CWT Tokens
+    private static final int SUB = 2;
+    private static final int EXP = 4;
+    private static final int NBF = 5;
+    private static final int IAT = 6;
+    private static final int CTI = 7;
+    // Claim keys of the private claims, from the range reserved for private use
+    private static final int UID = -65537;
+    private static final int ROLES = -65538;
+    private static final int FAM = -65539;
+    private static final int AUTH_TIME = -65540;
+
+    // COSE header labels, message tags and algorithm identifiers
+    private static final int ALG_LABEL = 1;
+    private static final int KID_LABEL = 4;
+    private static final int MAC0_TAG = 17;
+    private static final int SIGN1_TAG = 18;
+    private static final int HMAC_256 = 5;
+    private static final int ES256 = -7;
+    private static final int EDDSA = -8;
+
+    // Context strings of the structures which are signed, pre-encoded as CBOR text
+    private static final byte[] MAC0_CONTEXT = text("MAC0");
+    private static final byte[] SIGN1_CONTEXT = text("Signature1");
+
+    // Claims written by the codec itself, extra claims with these names are ignored
+    private static final Set<String> REGISTERED_CLAIMS =
+            Set.of("sub", "iat", "exp", VerifiedToken.USER_ID_CLAIM, VerifiedToken.ROLES_CLAIM,
+                    VerifiedToken.TOKEN_ID_CLAIM, VerifiedToken.FAMILY_ID_CLAIM, VerifiedToken.AUTH_TIME_CLAIM);
+
+    // Pooled buffers, each taken for one CWT Token at a time whatever thread handles it
+    private static final ObjectPool<Buffers> BUFFERS = new ObjectPool<>(Buffers::new);
+
+    // Instantiate object holding the signing keys
+    private final JwtKeyRing keyRing;
+
+    // Encoded protected header of each "kid", serialized on first use
+    private final ConcurrentMap<String, EncodedHeader> protectedHeaders = new ConcurrentHashMap<>();
+
+    public static boolean isCwt(String token) {
+        /*
+            Function to tell a CWT Token from a JWT Token, without decoding it
+         */
+        return token != null && !token.isEmpty() && token.indexOf('.') < 0;
+    }
+
+    public String encode(TokenClaims claims) {
+        /*
+            Function to sign the claims into a CWT Token with the active key
+         */
+        SigningKey signingKey = keyRing.activeKey();
+        Buffers buffers = BUFFERS.acquire();
+        try {
+            return encode(claims, signingKey, buffers);
+        }
+        finally {
+            BUFFERS.release(buffers);
+        }
+    }
+
+    private String encode(TokenClaims claims, SigningKey signingKey, Buffers buffers) {
+        boolean mac = signingKey.isSymmetric();
+        byte[] protectedHeader = protectedHeader(signingKey);
+
+        // Write the claims
+        ByteSink payload = buffers.payload.reset();
+        writePayload(payload, claims);
+
+        // Sign the structure defined by COSE over the protected header and the claims
+        ByteSink toBeSigned = buffers.toBeSigned.reset();
+        writeToBeSigned(toBeSigned, mac, protectedHeader, 0, protectedHeader.length,
+                payload.array(), 0, payload.length());
+        signingKey.sign(toBeSigned.array(), toBeSigned.length(), buffers.signature);
+
+        // Write the tagged message "[protected, unprotected, payload, signature]"
+        ByteSink message = buffers.message.reset();
+        Cbor.writeHead(message, Cbor.TAG, mac ? MAC0_TAG : SIGN1_TAG);
+        Cbor.writeHead(message, Cbor.ARRAY, 4);
+        Cbor.writeBytes(message, protectedHeader, 0, protectedHeader.length);
+        Cbor.writeHead(message, Cbor.MAP, 0);
+        Cbor.writeBytes(message, payload.array(), 0, payload.length());
+        Cbor.writeBytes(message, buffers.signature, 0, signingKey.getSignatureLength());
+
+        ByteSink token = buffers.token.reset();
+        Base64Url.encode(message.array(), 0, message.length(), token);
+        return token.toAsciiString();
+    }
+
+    public VerifiedToken decode(String token) {
+        /*
+            Function to verify a CWT Token
+            - The signature is checked before the claims are read
+            - Throws the same "JwtException" types as "CompactTokenCodec" for malformed, tampered or expired CWT Tokens
+         */
+        if(token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("CWT String argument cannot be null or empty.");
+        }
+
+        Buffers buffers = BUFFERS.acquire();
+        try {
+            return decode(token, buffers);
+        }
+        finally {
+            BUFFERS.release(buffers);
+        }
+    }
+
+    private VerifiedToken decode(String token, Buffers buffers) {
+        // Copy the CWT Token into the pooled byte buffer and decode it
+        byte[] ascii = buffers.ascii(token.length());
+        for(int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if(c > 0x7F) {
+                throw new MalformedJwtException("CWT strings must be ASCII.");
+            }
+            ascii[i] = (byte) c;
+        }
+        byte[] message = buffers.decoded(Base64Url.decodedLength(token.length()));
+        int messageLength = Base64Url.decode(ascii, 0, token.length(), message);
+
+        // Read "[protected, unprotected, payload, signature]"
+        Cbor.Reader reader = buffers.reader.reset(message, 0, messageLength);
+        long tag = reader.expect(Cbor.TAG);
+        if(tag != MAC0_TAG && tag != SIGN1_TAG) {
+            throw new UnsupportedJwtException("Unsupported COSE message in CWT: " + tag);
+        }
+        if(reader.expectLength(Cbor.ARRAY) != 4) {
+            throw new MalformedJwtException("COSE message must have 4 elements.");
+        }
+        int protectedLength = reader.readBytes();
+        int protectedOffset = reader.position() - protectedLength;
+        if(reader.peekMajorType() != Cbor.MAP) {
+            throw new MalformedJwtException("COSE unprotected header must be a map.");
+        }
+        reader.skip();
+        int payloadLength = reader.readBytes();
+        int payloadOffset = reader.position() - payloadLength;
+        int signatureLength = reader.readBytes();
+        int signatureOffset = reader.position() - signatureLength;
+        if(!reader.atEnd()) {
+            throw new MalformedJwtException("Unexpected data after COSE message.");
+        }
+
+        // Read "alg" and "kid" from the protected header
+        reader.reset(message, protectedOffset, protectedLength);
+        String alg = null;
+        String kid = null;
+        int labels = reader.expectLength(Cbor.MAP);
+        for(int i = 0; i < labels; i++) {
+            if(reader.peekMajorType() == Cbor.TEXT) {
+                reader.readText();
+                reader.skip();
+                continue;
+            }
+            long label = reader.readInt();
+            if(label == ALG_LABEL) {
+                alg = algorithm(reader.readInt());
+            }
+            else if(label == KID_LABEL) {
+                int kidLength = reader.readBytes();
+                kid = new String(message, reader.position() - kidLength, kidLength, StandardCharsets.UTF_8);
+            }
+            else {
+                reader.skip();
+            }
+        }
+        boolean mac = tag == MAC0_TAG;
+        if(alg == null || mac != SigningKey.HS256.equals(alg)) {
+            throw new UnsupportedJwtException("Unsupported CWT signature algorithm: " + alg);
+        }
+
+        // Check the signature with the key named by "kid"
+        // - A CWT Token claiming another algorithm than its key fails like a bad signature
+        SigningKey signingKey = keyRing.findKey(kid);
+        ByteSink toBeSigned = buffers.toBeSigned.reset();
+        writeToBeSigned(toBeSigned, mac, message, protectedOffset, protectedLength, message, payloadOffset, payloadLength);
+        boolean verified = false;
+        if(alg.equals(signingKey.getAlgorithm()) && signatureLength <= buffers.provided.length) {
+            System.arraycopy(message, signatureOffset, buffers.provided, 0, signatureLength);
+            verified = signingKey.verify(toBeSigned.array(), toBeSigned.length(),
+                    buffers.provided, signatureLength, buffers.signature);
+        }
+        if(!verified) {
+            throw new SignatureException("CWT signature does not match locally computed signature. "
+                    + "CWT validity cannot be asserted and should not be trusted.");
+        }
+
+        // Read the claims
+        String subject = null;
+        long issuedAt = 0L;
+        long expiration = Long.MAX_VALUE;
+        long notBefore = 0L;
+        Integer userId = null;
+        List<String> roles = null;
+        String tokenId = null;
+        String familyId = null;
+        long authTime = 0L;
+
+        reader.reset(message, payloadOffset, payloadLength);
+        int claimCount = reader.expectLength(Cbor.MAP);
+        for(int i = 0; i < claimCount; i++) {
+            if(reader.peekMajorType() == Cbor.TEXT) {
+                reader.readText();
+                reader.skip();
+                continue;
+            }
+            long key = reader.readInt();
+            if(key == SUB) {
+                subject = reader.readText();
+            }
+            else if(key == EXP) {
+                expiration = reader.readNull() ? Long.MAX_VALUE : reader.readInt() * 1000;
+            }
+            else if(key == IAT) {
+                issuedAt = reader.readNull() ? 0L : reader.readInt() * 1000;
+            }
+            else if(key == NBF) {
+                notBefore = reader.readNull() ? 0L : reader.readInt() * 1000;
+            }
+            else if(key == CTI) {
+                int length = reader.readBytes();
+                tokenId = new String(message, reader.position() - length, length, StandardCharsets.UTF_8);
+            }
+            else if(key == UID) {
+                userId = reader.readNull() ? null : Math.toIntExact(reader.readInt());
+            }
+            else if(key == ROLES) {
+                int count = reader.expectLength(Cbor.ARRAY);
+                List<String> values = new ArrayList<>(count);
+                for(int j = 0; j < count; j++) {
+                    values.add(reader.readText());
+                }
+                roles = List.copyOf(values);
+            }
+            else if(key == FAM) {
+                familyId = reader.readText();
+            }
+            else if(key == AUTH_TIME) {
+                authTime = reader.readNull() ? 0L : reader.readInt() * 1000;
+            }
+            else {
+                reader.skip();
+            }
+        }
+
+        // Check the CWT Token is within its validity period
+        long now = System.currentTimeMillis();
+        if(expiration <= now) {
+            throw new ExpiredJwtException(null, null, "CWT expired at " + expiration + ". Current time: " + now);
+        }
+        if(notBefore > now) {
+            throw new PrematureJwtException(null, null, "CWT must not be accepted before " + notBefore);
+        }
+
+        return new VerifiedToken(token, subject, issuedAt, expiration, userId, roles, tokenId, familyId, authTime,
+                Map.of());
+    }
+
+    private static void writePayload(ByteSink cbor, TokenClaims claims) {
+        /*
+            Function to write the claims as the CBOR map of a CWT Token
+            - Dates are written in seconds, as for JWT Tokens
+            - The token id is written as the bytes of its string form
+         */
+        int extraCount = 0;
+        for(Map.Entry<String, ?> extraClaim : claims.getExtraClaims().entrySet()) {
+            if(extraClaim.getValue() != null && !REGISTERED_CLAIMS.contains(extraClaim.getKey())) {
+                extraCount++;
+            }
+        }
+        int count = 2 + extraCount
+                + (claims.getSubject() != null ? 1 : 0)
+                + (claims.getUserId() != null ? 1 : 0)
+                + (claims.getRoles() != null ? 1 : 0)
+                + (claims.getTokenId() != null ? 1 : 0)
+                + (claims.getFamilyId() != null ? 1 : 0)
+                + (claims.getAuthTime() != 0L ? 1 : 0);
+
+        Cbor.writeHead(cbor, Cbor.MAP, count);
+        if(claims.getSubject() != null) {
+            Cbor.writeInt(cbor, SUB);
+            Cbor.writeText(cbor, claims.getSubject());
+        }
+        Cbor.writeInt(cbor, EXP);
+        Cbor.writeInt(cbor, claims.getExpiration() / 1000);
+        Cbor.writeInt(cbor, IAT);
+        Cbor.writeInt(cbor, claims.getIssuedAt() / 1000);
+        if(claims.getTokenId() != null) {
+            byte[] tokenId = claims.getTokenId().getBytes(StandardCharsets.UTF_8);
+            Cbor.writeInt(cbor, CTI);
+            Cbor.writeBytes(cbor, tokenId, 0, tokenId.length);
+        }
+        if(claims.getUserId() != null) {
+            Cbor.writeInt(cbor, UID);
+            Cbor.writeInt(cbor, claims.getUserId());
+        }
+        if(claims.getRoles() != null) {
+            Cbor.writeInt(cbor, ROLES);
+            Cbor.writeValue(cbor, claims.getRoles());
+        }
+        if(claims.getFamilyId() != null) {
+            Cbor.writeInt(cbor, FAM);
+            Cbor.writeText(cbor, claims.getFamilyId());
+        }
+        if(claims.getAuthTime() != 0L) {
+            Cbor.writeInt(cbor, AUTH_TIME);
+            Cbor.writeInt(cbor, claims.getAuthTime() / 1000);
+        }
+        for(Map.Entry<String, ?> extraClaim : claims.getExtraClaims().entrySet()) {
+            if(extraClaim.getValue() != null && !REGISTERED_CLAIMS.contains(extraClaim.getKey())) {
+                Cbor.writeText(cbor, extraClaim.getKey());
+                Cbor.writeValue(cbor, extraClaim.getValue());
+            }
+        }
+    }
+
+    private static void writeToBeSigned(ByteSink cbor, boolean mac,
+                                        byte[] protectedHeader, int protectedOffset, int protectedLength,
+                                        byte[] payload, int payloadOffset, int payloadLength) {
+        /*
+            Function to write the "MAC_structure" or "Sig_structure" which is signed, as defined by COSE
+            - "[context, protected, external_aad, payload]", the external data is always empty
+         */
+        Cbor.writeHead(cbor, Cbor.ARRAY, 4);
+        cbor.write(mac ? MAC0_CONTEXT : SIGN1_CONTEXT);
+        Cbor.writeBytes(cbor, protectedHeader, protectedOffset, protectedLength);
+        Cbor.writeHead(cbor, Cbor.BYTES, 0);
+        Cbor.writeBytes(cbor, payload, payloadOffset, payloadLength);
+    }
+
+    private byte[] protectedHeader(SigningKey signingKey) {
+        /*
+            Function to get the encoded protected header "{alg, kid}" for a key
+            - The header is serialized again if a rotation reused the "kid" with another algorithm
+         */
+        EncodedHeader header = protectedHeaders.get(signingKey.getKid());
+        if(header == null || !header.algorithm().equals(signingKey.getAlgorithm())) {
+            byte[] kid = signingKey.getKid().getBytes(StandardCharsets.UTF_8);
+            ByteSink cbor = new ByteSink(32 + kid.length);
+            Cbor.writeHead(cbor, Cbor.MAP, 2);
+            Cbor.writeInt(cbor, ALG_LABEL);
+            Cbor.writeInt(cbor, algorithmId(signingKey.getAlgorithm()));
+            Cbor.writeInt(cbor, KID_LABEL);
+            Cbor.writeBytes(cbor, kid, 0, kid.length);
+            header = new EncodedHeader(signingKey.getAlgorithm(), Arrays.copyOf(cbor.array(), cbor.length()));
+            protectedHeaders.put(signingKey.getKid(), header);
+        }
+        return header.bytes();
+    }
+
+    private static int algorithmId(String algorithm) {
+        return switch(algorithm) {
+            case SigningKey.HS256 -> HMAC_256;
+            case SigningKey.ES256 -> ES256;
+            default -> EDDSA;
+        };
+    }
+
+    private static String algorithm(long algorithmId) {
+        if(algorithmId == HMAC_256) {
+            return SigningKey.HS256;
+        }
+        if(algorithmId == ES256) {
+            return SigningKey.ES256;
+        }
+        if(algorithmId == EDDSA) {
+            return SigningKey.EDDSA;
+        }
+        throw new UnsupportedJwtException("Unsupported COSE algorithm in CWT: " + algorithmId);
+    }
+
+    private static byte[] text(String value) {
+        ByteSink cbor = new ByteSink(16);
+        Cbor.writeText(cbor, value);
+        return Arrays.copyOf(cbor.array(), cbor.length());
+    }
+
+    private record EncodedHeader(String algorithm, byte[] bytes) {
+    }
+
+    private static final class Buffers {
+        /*
+            Class holding the buffers reused for every CWT Token
+            - Every buffer is reset or overwritten before it is read, so buffers go back to the pool even after a failure
+         */
+        private final ByteSink payload = new ByteSink(192);
+        private final ByteSink toBeSigned = new ByteSink(256);
+        private final ByteSink message = new ByteSink(320);
+        private final ByteSink token = new ByteSink(448);
+        private final Cbor.Reader reader = new Cbor.Reader();
+        private final byte[] signature = new byte[64];
+        private final byte[] provided = new byte[64];
+        private byte[] ascii = new byte[448];
+        private byte[] decoded = new byte[320];
+
+        private byte[] ascii(int length) {
+            if(ascii.length < length) {
+                ascii = new byte[length];
+            }
+            return ascii;
+        }
+
+        private byte[] decoded(int length) {
+            if(decoded.length < length) {
+                decoded = new byte[length];
+            }
+            return decoded;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.dto.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(prefix = "jwt", name = "codec", havingValue = "jjwt")
+@RequiredArgsConstructor
+public class JjwtTokenCodec implements TokenCodec {
+    /*
+        Class to sign and verify JWT Tokens with the jjwt library
+        - Selected with "jwt.codec: jjwt", as a fallback to "CompactTokenCodec"
+        - All claims of a verified JWT Token are kept in the claims map of the "VerifiedToken"
+        - jjwt 0.11 has no EdDSA support, an active EdDSA key needs "CompactTokenCodec"
+     */
+
+    // Instantiate object holding the signing keys
+    private final JwtKeyRing keyRing;
+
+    @Override
+    public String encode(TokenClaims claims) {
+        /*
+            Function to sign the claims into a compact JWT Token
+            - The "kid" of the active key is written to the JWT Token header
+         */
+        SigningKey signingKey = keyRing.activeKey();
+        if(SigningKey.EDDSA.equals(signingKey.getAlgorithm())) {
+            throw new UnsupportedJwtException("EdDSA signing requires the compact codec");
+        }
+        return Jwts.builder()
+                .setClaims(new HashMap<>(claims.getExtraClaims()))
+                .setSubject(claims.getSubject())
+                .claim(VerifiedToken.USER_ID_CLAIM, claims.getUserId())
+                .claim(VerifiedToken.ROLES_CLAIM, claims.getRoles())
+                .setId(claims.getTokenId())
+                .claim(VerifiedToken.FAMILY_ID_CLAIM, claims.getFamilyId())
+                .claim(VerifiedToken.AUTH_TIME_CLAIM, claims.getAuthTime() == 0L ? null : claims.getAuthTime() / 1000)
+                .setIssuedAt(new Date(claims.getIssuedAt()))
+                .setExpiration(new Date(claims.getExpiration()))
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
+                .signWith(signingKey.getKey(), SignatureAlgorithm.forName(signingKey.getAlgorithm()))
+                .compact();
+    }
+
+    @Override
+    public VerifiedToken decode(String token) {
+        /*
+            Function to extract all Claims from JWT Token
+            - Function checks if the JWT Token has not been tampered with
+            - This is done by computing the signature from the Header + Payload
+            - This computed signature is compared with the signature provided in the JWT Token
+            - If both signatures match, the request is processed
+            - Otherwise, the function throws an error
+         */
+        // The parser is shared and resolves the key from the "kid" header of the JWT Token
+        final Claims claims = keyRing.parser()
+                .parseClaimsJws(token)
+                .getBody();
+
+        return new VerifiedToken(
+                token,
+                claims.getSubject(),
+                claims.getIssuedAt() == null ? 0L : claims.getIssuedAt().getTime(),
+                claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime(),
+                claims.get(VerifiedToken.USER_ID_CLAIM, Integer.class),
+                extractRoles(claims),
+                claims.getId(),
+                claims.get(VerifiedToken.FAMILY_ID_CLAIM, String.class),
+                claims.get(VerifiedToken.AUTH_TIME_CLAIM) instanceof Number authTime ? authTime.longValue() * 1000 : 0L,
+                Collections.unmodifiableMap(new HashMap<>(claims))
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> extractRoles(Claims claims) {
+        /*
+            Function to extract the roles from the Claims of a JWT Token
+            - Returns "null" for JWT Tokens issued without roles
+         */
+        Object roles = claims.get(VerifiedToken.ROLES_CLAIM);
+        return roles instanceof List<?> list ? List.copyOf((List<String>) list) : null;
+    }
+}
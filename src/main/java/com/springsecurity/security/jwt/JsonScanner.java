@@ -0,0 +1,327 @@
+package com.springsecurity.security.jwt;
+
+import io.jsonwebtoken.MalformedJwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+final class JsonScanner {
+    /*
+        Class to read the flat JSON objects of a JWT Token header and payload from a byte range
+        - Only the fields which are asked for are converted to Java values, all other fields are skipped
+        - No generic map of claims is built
+        - Invalid JSON results in a "MalformedJwtException"
+        - Instances are not thread-safe, each thread keeps its own
+     */
+    private static final int MAX_DEPTH = 32;
+
+    private byte[] bytes;
+    private int position;
+    private int end;
+    private boolean firstField;
+    private int nameStart;
+    private int nameEnd;
+
+    JsonScanner reset(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+        return this;
+    }
+
+    void beginObject() {
+        /*
+            Function to start reading the top level JSON object
+         */
+        skipWhitespace();
+        expect('{');
+        firstField = true;
+    }
+
+    boolean nextField() {
+        /*
+            Function to move to the next field of the JSON object
+            - Returns "false" once the end of the object has been reached
+         */
+        skipWhitespace();
+        if(peek() == '}') {
+            position++;
+            skipWhitespace();
+            if(position != end) {
+                throw malformed();
+            }
+            return false;
+        }
+        if(!firstField) {
+            expect(',');
+            skipWhitespace();
+        }
+        firstField = false;
+        expect('"');
+        nameStart = position;
+        while(peek() != '"') {
+            if(bytes[position] == '\\') {
+                position++;
+            }
+            position++;
+        }
+        nameEnd = position++;
+        skipWhitespace();
+        expect(':');
+        skipWhitespace();
+        return true;
+    }
+
+    boolean fieldIs(byte[] name) {
+        /*
+            Function to check if the current field has the given name
+         */
+        if(nameEnd - nameStart != name.length) {
+            return false;
+        }
+        for(int i = 0; i < name.length; i++) {
+            if(bytes[nameStart + i] != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean readNull() {
+        /*
+            Function to consume a "null" value
+            - Returns "false", without consuming anything, if the value is not "null"
+         */
+        if(peek() == 'n') {
+            expectLiteral("null");
+            return true;
+        }
+        return false;
+    }
+
+    String readString() {
+        /*
+            Function to read a JSON string value
+            - Strings without escapes are decoded straight from the UTF-8 bytes
+         */
+        if(readNull()) {
+            return null;
+        }
+        expect('"');
+        int start = position;
+        while(peek() != '"') {
+            if(bytes[position] == '\\') {
+                position = start;
+                return readEscapedString();
+            }
+            position++;
+        }
+        return new String(bytes, start, position++ - start, StandardCharsets.UTF_8);
+    }
+
+    long readLong() {
+        /*
+            Function to read a JSON number as a long
+            - Fractions and exponents are accepted and truncated
+         */
+        int start = position;
+        boolean integral = true;
+        if(peek() == '-') {
+            position++;
+        }
+        while(position < end) {
+            byte b = bytes[position];
+            if(b >= '0' && b <= '9') {
+                position++;
+            }
+            else if(b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                integral = false;
+                position++;
+            }
+            else {
+                break;
+            }
+        }
+        if(position == start) {
+            throw malformed();
+        }
+        try {
+            String number = new String(bytes, start, position - start, StandardCharsets.US_ASCII);
+            return integral ? Long.parseLong(number) : (long) Double.parseDouble(number);
+        }
+        catch (NumberFormatException exception) {
+            throw malformed();
+        }
+    }
+
+    List<String> readStringArray() {
+        /*
+            Function to read a JSON array of strings
+         */
+        if(readNull()) {
+            return null;
+        }
+        expect('[');
+        List<String> values = new ArrayList<>(2);
+        skipWhitespace();
+        if(peek() == ']') {
+            position++;
+            return List.of();
+        }
+        while(true) {
+            skipWhitespace();
+            String value = readString();
+            if(value == null) {
+                throw malformed();
+            }
+            values.add(value);
+            skipWhitespace();
+            if(peek() == ']') {
+                position++;
+                return List.copyOf(values);
+            }
+            expect(',');
+        }
+    }
+
+    void skipValue() {
+        /*
+            Function to skip the value of a field which is not needed
+         */
+        skipValue(0);
+    }
+
+    private void skipValue(int depth) {
+        if(depth > MAX_DEPTH) {
+            throw malformed();
+        }
+        skipWhitespace();
+        byte b = peek();
+        if(b == '"') {
+            position++;
+            while(peek() != '"') {
+                if(bytes[position] == '\\') {
+                    position++;
+                }
+                position++;
+            }
+            position++;
+        }
+        else if(b == '{' || b == '[') {
+            byte close = b == '{' ? (byte) '}' : (byte) ']';
+            position++;
+            skipWhitespace();
+            if(peek() == close) {
+                position++;
+                return;
+            }
+            while(true) {
+                if(b == '{') {
+                    skipValue(depth + 1);
+                    skipWhitespace();
+                    expect(':');
+                }
+                skipValue(depth + 1);
+                skipWhitespace();
+                if(peek() == close) {
+                    position++;
+                    return;
+                }
+                expect(',');
+            }
+        }
+        else if(b == 't') {
+            expectLiteral("true");
+        }
+        else if(b == 'f') {
+            expectLiteral("false");
+        }
+        else if(b == 'n') {
+            expectLiteral("null");
+        }
+        else {
+            readLong();
+        }
+    }
+
+    private String readEscapedString() {
+        /*
+            Function to read a JSON string which contains escape sequences
+            - Runs of plain bytes are decoded as UTF-8, escapes are appended as characters
+            - Escaped surrogate pairs are combined by the "StringBuilder"
+         */
+        StringBuilder builder = new StringBuilder(end - position);
+        int runStart = position;
+        while(peek() != '"') {
+            if(bytes[position] != '\\') {
+                position++;
+                continue;
+            }
+            builder.append(new String(bytes, runStart, position - runStart, StandardCharsets.UTF_8));
+            position++;
+            byte escaped = peek();
+            position++;
+            switch(escaped) {
+                case '"', '\\', '/' -> builder.append((char) escaped);
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if(position + 4 > end) {
+                        throw malformed();
+                    }
+                    try {
+                        builder.append((char) Integer.parseInt(
+                                new String(bytes, position, 4, StandardCharsets.US_ASCII), 16));
+                    }
+                    catch (NumberFormatException exception) {
+                        throw malformed();
+                    }
+                    position += 4;
+                }
+                default -> throw malformed();
+            }
+            runStart = position;
+        }
+        builder.append(new String(bytes, runStart, position - runStart, StandardCharsets.UTF_8));
+        position++;
+        return builder.toString();
+    }
+
+    private void skipWhitespace() {
+        while(position < end) {
+            byte b = bytes[position];
+            if(b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private byte peek() {
+        if(position >= end) {
+            throw malformed();
+        }
+        return bytes[position];
+    }
+
+    private void expect(char c) {
+        if(peek() != c) {
+            throw malformed();
+        }
+        position++;
+    }
+
+    private void expectLiteral(String literal) {
+        for(int i = 0; i < literal.length(); i++) {
+            expect(literal.charAt(i));
+        }
+    }
+
+    private static MalformedJwtException malformed() {
+        return new MalformedJwtException("Unable to read JSON value of JWT Token");
+    }
+}
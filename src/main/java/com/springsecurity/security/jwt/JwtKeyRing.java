@@ -0,0 +1,256 @@
+package com.springsecurity.security.jwt;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springsecurity.security.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.SignatureException;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class JwtKeyRing {
+    /*
+        Class holding every key used to sign and verify JWT Tokens
+        - Keys are loaded once at startup from "JwtProperties" and indexed by their "kid"
+        - New JWT Tokens are signed with the active key, the "kid" is written to the JWT Token header
+        - JWT Tokens are verified with the key named by their "kid", so retired keys keep working after a rotation
+        - Keys can be replaced at runtime through 'install', without restarting the application
+        - The public keys of ES256 and EdDSA keys are published as a JWKS, so other services can verify JWT Tokens locally
+        - The JWKS document and its ETag are serialized once per install, serving it never touches the keys
+     */
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Current keys, replaced as a whole on rotation
+    private volatile KeySet current;
+
+    // Parser shared by all threads
+    // - "JwtParser" is immutable and thread-safe, the key is resolved per JWT Token from its "kid"
+    private final JwtParser parser;
+
+    public JwtKeyRing(JwtProperties jwtProperties) {
+        install(jwtProperties.getKeys());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return findKey(header.getKeyId()).getVerificationKey();
+                    }
+                })
+                .build();
+    }
+
+    public SigningKey activeKey() {
+        /*
+            Function to get the key used to sign new JWT Tokens
+         */
+        return current.active;
+    }
+
+    public SigningKey findKey(String kid) {
+        /*
+            Function to get the key for the "kid" of a JWT Token
+            - JWT Tokens issued before the "kid" header was introduced are verified with the active key
+            - Unknown keys fail the same way as a bad signature
+         */
+        KeySet keys = current;
+        if(kid == null) {
+            return keys.active;
+        }
+        SigningKey signingKey = keys.byKid.get(kid);
+        if(signingKey == null) {
+            throw new SignatureException("Unknown signing key: " + kid);
+        }
+        return signingKey;
+    }
+
+    public JwtParser parser() {
+        /*
+            Function to get the shared JWT Token parser
+         */
+        return parser;
+    }
+
+    public Collection<SigningKey> keys() {
+        /*
+            Function to list all installed keys
+         */
+        return current.byKid.values();
+    }
+
+    public Jwks jwks() {
+        /*
+            Function to get the serialized JWKS document of the installed public keys
+         */
+        return current.jwks;
+    }
+
+    public synchronized void install(List<JwtProperties.KeyDefinition> definitions) {
+        /*
+            Function to replace the installed keys
+            - All keys are decoded before anything is swapped in, so a bad definition leaves the current keys in place
+            - Keys which are left out are no longer accepted, keys which are kept as retired still verify JWT Tokens
+            - Keys which are not active yet are published too, so they can be rolled out before they sign anything
+         */
+        Map<String, SigningKey> byKid = new LinkedHashMap<>();
+        SigningKey active = null;
+
+        for(JwtProperties.KeyDefinition definition : definitions) {
+            if(definition.getKid() == null || definition.getKid().isBlank()) {
+                throw new IllegalArgumentException("Signing key without kid");
+            }
+            SigningKey signingKey = decode(definition);
+            if(signingKey.isActive() && !signingKey.canSign()) {
+                throw new IllegalArgumentException("Active signing key without private key: " + signingKey.getKid());
+            }
+            if(byKid.put(signingKey.getKid(), signingKey) != null) {
+                throw new IllegalArgumentException("Duplicate signing key: " + signingKey.getKid());
+            }
+            if(signingKey.isActive()) {
+                if(active != null) {
+                    throw new IllegalArgumentException("More than one active signing key");
+                }
+                active = signingKey;
+            }
+        }
+
+        if(active == null) {
+            throw new IllegalArgumentException("No active signing key");
+        }
+
+        current = new KeySet(active, Collections.unmodifiableMap(byKid), serialize(byKid.values()));
+    }
+
+    private static SigningKey decode(JwtProperties.KeyDefinition definition) {
+        /*
+            Function to decode the key material of a key definition
+            - Throws Illegal Argument Exception for an unknown algorithm or key material which does not match it
+         */
+        String kid = definition.getKid();
+        String algorithm = definition.getAlgorithm() == null ? SigningKey.HS256 : definition.getAlgorithm();
+        if(SigningKey.HS256.equals(algorithm)) {
+            return SigningKey.hmac(kid, Decoders.BASE64.decode(definition.getSecret()), definition.isActive());
+        }
+
+        String keyAlgorithm;
+        if(SigningKey.ES256.equals(algorithm)) {
+            keyAlgorithm = "EC";
+        }
+        else if(SigningKey.EDDSA.equals(algorithm)) {
+            keyAlgorithm = "Ed25519";
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported signing algorithm: " + algorithm);
+        }
+        if(definition.getPublicKey() == null) {
+            throw new IllegalArgumentException("Signing key without public key: " + kid);
+        }
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm);
+            PublicKey publicKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(definition.getPublicKey())));
+            PrivateKey privateKey = definition.getPrivateKey() == null ? null : keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Base64.getDecoder().decode(definition.getPrivateKey())));
+            // ES256 is only defined on the P-256 curve
+            if(publicKey instanceof ECPublicKey ecPublicKey
+                    && ecPublicKey.getParams().getCurve().getField().getFieldSize() != 256) {
+                throw new IllegalArgumentException("ES256 signing key is not on P-256: " + kid);
+            }
+            return SigningKey.asymmetric(kid, algorithm, privateKey, publicKey, definition.isActive());
+        }
+        catch (GeneralSecurityException exception) {
+            throw new IllegalArgumentException("Invalid " + algorithm + " signing key: " + kid, exception);
+        }
+    }
+
+    private static Jwks serialize(Collection<SigningKey> signingKeys) {
+        /*
+            Function to serialize the public keys as a JWKS document, as defined in RFC 7517 and RFC 8037
+            - HS256 keys are shared secrets and are never published
+            - The ETag is derived from the document, so every node serving the same keys serves the same ETag
+         */
+        List<Map<String, String>> keys = new ArrayList<>();
+        for(SigningKey signingKey : signingKeys) {
+            if(signingKey.isSymmetric()) {
+                continue;
+            }
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kid", signingKey.getKid());
+            jwk.put("use", "sig");
+            jwk.put("alg", signingKey.getAlgorithm());
+            if(signingKey.getPublicKey() instanceof ECPublicKey ecPublicKey) {
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-256");
+                jwk.put("x", base64Url(unsigned(ecPublicKey.getW().getAffineX(), 32)));
+                jwk.put("y", base64Url(unsigned(ecPublicKey.getW().getAffineY(), 32)));
+            }
+            else {
+                // The X.509 form of an Ed25519 key ends with the 32 byte raw public key
+                byte[] encoded = signingKey.getPublicKey().getEncoded();
+                jwk.put("kty", "OKP");
+                jwk.put("crv", "Ed25519");
+                jwk.put("x", base64Url(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+            }
+            keys.add(jwk);
+        }
+
+        try {
+            byte[] body = JSON.writeValueAsBytes(Map.of("keys", keys));
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            String etag = "\"" + base64Url(Arrays.copyOf(digest, 16)) + "\"";
+            return new Jwks(body, etag);
+        }
+        catch (JsonProcessingException | GeneralSecurityException exception) {
+            throw new IllegalStateException("Could not serialize the JWKS", exception);
+        }
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        /*
+            Function to write a coordinate as a fixed length unsigned big-endian value
+         */
+        byte[] bytes = value.toByteArray();
+        byte[] result = new byte[length];
+        int copied = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copied, result, length - copied, copied);
+        return result;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    public record Jwks(byte[] body, String etag) {
+        /*
+            Record holding a serialized JWKS document and its ETag
+            - The body is shared, it must not be modified
+         */
+    }
+
+    private record KeySet(SigningKey active, Map<String, SigningKey> byKid, Jwks jwks) {
+    }
+}
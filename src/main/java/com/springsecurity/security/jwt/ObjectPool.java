@@ -0,0 +1,62 @@
+package com.springsecurity.security.jwt;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+final class ObjectPool<T> {
+    /*
+        Class keeping a bounded number of idle objects which are costly to create and not thread-safe
+        - Used instead of a "ThreadLocal", which is rebuilt for every request when each request runs on a new virtual thread
+        - An object is taken for one operation and given back when it is done, whatever thread runs it
+        - When no object is idle a new one is created, so callers never wait
+        - At most "capacity" idle objects are kept, the others are left to the garbage collector
+        - The pool uses no lock, so taking an object does not pin a virtual thread
+     */
+
+    // Number of idle objects kept when no capacity is given, enough for every core to be using one
+    static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final Supplier<T> factory;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    ObjectPool(Supplier<T> factory) {
+        this(factory, DEFAULT_CAPACITY);
+    }
+
+    ObjectPool(Supplier<T> factory, int capacity) {
+        this.factory = factory;
+        this.capacity = capacity;
+    }
+
+    T acquire() {
+        /*
+            Function to take an idle object, or create one if none is idle
+         */
+        T object = idle.poll();
+        if(object == null) {
+            return factory.get();
+        }
+        idleCount.decrementAndGet();
+        return object;
+    }
+
+    void release(T object) {
+        /*
+            Function to give back an object once it is no longer used
+            - The object must be left ready for its next use
+            - An object in an unknown state must not be given back, it is simply dropped
+         */
+        if(idleCount.incrementAndGet() > capacity) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offer(object);
+    }
+
+    int idleSize() {
+        return idleCount.get();
+    }
+}
@@ -0,0 +1,171 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.config.AuthProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class RefreshTokenIndex {
+    /*
+        Class holding outstanding refresh JWT Tokens in memory, ordered by expiry
+        - The database holds every refresh JWT Token, this index answers lookups and rotation without reading it
+        - Entries are found by token id, and also filed in one bucket per minute of expiry
+        - Purging drops whole buckets of expired entries, live entries are never scanned
+        - Used entries stay until they expire, so reuse of a rotated refresh JWT Token is detected
+        - Revoked families are held in a separate map, so a family is revoked without finding its tokens
+        - The number of entries is bounded, once full new entries are left to the database
+     */
+
+    // Width of an expiry bucket
+    private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // States of an entry
+    public static final int ACTIVE = 0;
+    public static final int USED = 1;
+    public static final int REVOKED = 2;
+
+    // Entries by token id
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Token ids by expiry minute
+    private final ConcurrentSkipListMap<Long, Queue<String>> expiryBuckets = new ConcurrentSkipListMap<>();
+    // Expiry of the revocation by family id
+    private final ConcurrentHashMap<String, Long> revokedFamilies = new ConcurrentHashMap<>();
+
+    private final AtomicLong size = new AtomicLong();
+    private final long maximumSize;
+
+    public RefreshTokenIndex(AuthProperties authProperties) {
+        this.maximumSize = authProperties.getRefreshTokens().getIndexMaximumSize();
+    }
+
+    public Entry get(String tokenId) {
+        /*
+            Function to find an entry by token id
+            - Returns "null" if the refresh JWT Token is not indexed, the database must then be checked
+         */
+        Entry entry = entries.get(tokenId);
+        if(entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry;
+    }
+
+    public Entry put(String tokenId, String familyId, long expiresAt, int state) {
+        /*
+            Function to index a refresh JWT Token
+            - Returns the indexed entry, or an entry which is not indexed if the index is full or the token has expired
+            - If the token id is already indexed, the existing entry is returned
+         */
+        Entry entry = new Entry(familyId, expiresAt, state);
+        if(expiresAt <= System.currentTimeMillis() || size.get() >= maximumSize) {
+            return entry;
+        }
+        Entry existing = entries.putIfAbsent(tokenId, entry);
+        if(existing != null) {
+            return existing;
+        }
+        size.incrementAndGet();
+        expiryBuckets.computeIfAbsent(expiresAt / BUCKET_MILLIS, bucket -> new ConcurrentLinkedQueue<>()).add(tokenId);
+        return entry;
+    }
+
+    public boolean isFamilyRevoked(String familyId) {
+        return revokedFamilies.containsKey(familyId);
+    }
+
+    public void revokeFamily(String familyId, long until) {
+        /*
+            Function to reject every refresh JWT Token of a family until the given time
+            - The time is the latest expiry a refresh JWT Token of the family can have
+         */
+        revokedFamilies.merge(familyId, until, Math::max);
+    }
+
+    public int purgeExpired(long now) {
+        /*
+            Function to drop every entry and family revocation which has expired
+            - Only buckets whose whole minute has passed are dropped
+            - Returns the number of entries dropped
+         */
+        int purged = 0;
+        long currentBucket = now / BUCKET_MILLIS;
+        Map.Entry<Long, Queue<String>> bucket;
+        while((bucket = expiryBuckets.firstEntry()) != null && bucket.getKey() < currentBucket) {
+            expiryBuckets.remove(bucket.getKey(), bucket.getValue());
+            for(String tokenId : bucket.getValue()) {
+                if(entries.remove(tokenId) != null) {
+                    size.decrementAndGet();
+                    purged++;
+                }
+            }
+        }
+        Iterator<Long> revocations = revokedFamilies.values().iterator();
+        while(revocations.hasNext()) {
+            if(revocations.next() <= now) {
+                revocations.remove();
+            }
+        }
+        return purged;
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public static final class Entry {
+        /*
+            Class holding the state of one refresh JWT Token
+            - The state only moves forward, from "ACTIVE" to "USED" or "REVOKED"
+            - The one exception is a rotation rolled back in the database, which gives its refresh JWT Token back
+         */
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private final String familyId;
+        private final long expiresAt;
+        private volatile int state;
+
+        private Entry(String familyId, long expiresAt, int state) {
+            this.familyId = familyId;
+            this.expiresAt = expiresAt;
+            this.state = state;
+        }
+
+        public boolean markUsed() {
+            /*
+                Function to use the refresh JWT Token
+                - Returns "false" if it has already been used or revoked, only one caller can ever succeed
+             */
+            return STATE.compareAndSet(this, ACTIVE, USED);
+        }
+
+        public void cancelUse() {
+            /*
+                Function to make a used refresh JWT Token active again, once using it has been rolled back
+                - Only the caller whose "markUsed" succeeded may call it
+             */
+            STATE.compareAndSet(this, USED, ACTIVE);
+        }
+
+        public String getFamilyId() {
+            return familyId;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public int getState() {
+            return state;
+        }
+    }
+}
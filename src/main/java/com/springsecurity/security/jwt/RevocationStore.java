@@ -0,0 +1,154 @@
+package com.springsecurity.security.jwt;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+final class RevocationStore implements AutoCloseable {
+    /*
+        Class persisting revoked token ids to a memory-mapped file, so revocations survive a restart
+        - The file is a header followed by fixed size records of expiry and token id
+        - The header holds the number of records written, it is updated after the record, so a torn write is ignored
+        - Records are only appended, expired ones are dropped when the file is compacted
+        - Compaction writes a new file next to the old one and moves it into place, the old file is never rewritten
+        - Callers must not write from several threads at once, "TokenRevocationList" serializes writes
+     */
+
+    private static final int MAGIC = 0x4A52564B;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 48;
+    // A record is the expiry, the length of the token id and the token id
+    static final int MAX_TOKEN_ID_BYTES = RECORD_BYTES - Long.BYTES - 1;
+
+    private final Path file;
+    private final int initialCapacity;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+
+    RevocationStore(Path file, int initialCapacity) throws IOException {
+        if(file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.file = file;
+        this.initialCapacity = initialCapacity;
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int existing = (int) Math.max(0, (channel.size() - HEADER_BYTES) / RECORD_BYTES);
+        map(Math.max(initialCapacity, existing));
+
+        if(buffer.getInt(0) == MAGIC) {
+            count = Math.min(buffer.getInt(4), capacity);
+        }
+        else {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, 0);
+            count = 0;
+        }
+    }
+
+    void forEach(BiConsumer<String, Long> consumer) {
+        /*
+            Function to read every stored record, expired or not
+         */
+        byte[] tokenId = new byte[MAX_TOKEN_ID_BYTES];
+        for(int i = 0; i < count; i++) {
+            int offset = HEADER_BYTES + i * RECORD_BYTES;
+            long expiresAt = buffer.getLong(offset);
+            int length = buffer.get(offset + Long.BYTES);
+            buffer.get(offset + Long.BYTES + 1, tokenId, 0, length);
+            consumer.accept(new String(tokenId, 0, length, StandardCharsets.US_ASCII), expiresAt);
+        }
+    }
+
+    void append(String tokenId, long expiresAt) throws IOException {
+        /*
+            Function to persist one revoked token id
+            - The file grows when it is full
+         */
+        if(count == capacity) {
+            map(capacity * 2);
+        }
+        write(buffer, count, tokenId, expiresAt);
+        count++;
+        buffer.putInt(4, count);
+        buffer.force();
+    }
+
+    void rewrite(Map<String, Long> live) throws IOException {
+        /*
+            Function to replace every record with the given live revocations
+            - The records are written to a temporary file, which is forced to disk and then moved over the file at once
+            - A crash at any point leaves either the old file or the new one complete, never a mix of the two
+            - If the move fails, the old file is still in use and nothing is lost
+         */
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int newCapacity = Math.max(initialCapacity, live.size() * 2);
+        int index = 0;
+        try(FileChannel target = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer records = target.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) newCapacity * RECORD_BYTES);
+            for(Map.Entry<String, Long> entry : live.entrySet()) {
+                write(records, index++, entry.getKey(), entry.getValue());
+            }
+            records.putInt(0, MAGIC);
+            records.putInt(4, index);
+            records.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory();
+
+        // Switch to the new file, the old one is only closed once the new one is open
+        FileChannel replaced = channel;
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replaced.close();
+        map(newCapacity);
+        count = index;
+    }
+
+    int count() {
+        return count;
+    }
+
+    private static void write(MappedByteBuffer target, int index, String tokenId, long expiresAt) {
+        byte[] bytes = tokenId.getBytes(StandardCharsets.US_ASCII);
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        target.putLong(offset, expiresAt);
+        target.put(offset + Long.BYTES, (byte) bytes.length);
+        target.put(offset + Long.BYTES + 1, bytes);
+    }
+
+    private void forceDirectory() {
+        /*
+            Function to force the directory entry of the moved file to disk
+            - Not every platform can open a directory, the move is then only as durable as the platform makes it
+         */
+        Path directory = file.toAbsolutePath().getParent();
+        try(FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException exception) {
+            // The file itself is complete, only the rename may be lost in a crash
+        }
+    }
+
+    private void map(int newCapacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) newCapacity * RECORD_BYTES);
+        capacity = newCapacity;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.springsecurity.security.jwt;
+
+import io.jsonwebtoken.JwtException;
+
+public class RevokedJwtException extends JwtException {
+    /*
+        Exception thrown when a JWT Token with a valid signature has been revoked before its expiry
+     */
+    public RevokedJwtException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,207 @@
+package com.springsecurity.security.jwt;
+
+import lombok.Getter;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+
+@Getter
+public class SigningKey {
+    /*
+        Class holding a precomputed signing key of the "JwtKeyRing"
+        - HS256 keys are shared secrets, ES256 and EdDSA keys are key pairs
+        - HS256 always signs with HMAC-SHA256, whatever the length of the secret, as long as it is at least 32 bytes
+        - The key material is decoded once, when the key is installed
+        - Initialised "Mac" and "Signature" objects are kept in small pools, since neither is thread-safe
+        - ES256 signatures are produced and checked in the raw "R || S" form required for JWT Tokens
+        - A key pair without a private key can only verify, it is kept to accept JWT Tokens signed before a rotation
+     */
+
+    // Names of the supported algorithms, as written to the "alg" header
+    public static final String HS256 = "HS256";
+    public static final String ES256 = "ES256";
+    public static final String EDDSA = "EdDSA";
+
+    // JCA name of the MAC behind HS256, and the shortest secret it accepts
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    static final int MIN_SECRET_BYTES = 32;
+
+    private final String kid;
+    private final String algorithm;
+    // Key used to sign, the secret for HS256 or the private key, "null" for a key which can only verify
+    private final Key key;
+    // Public key published on the JWKS endpoint, "null" for HS256
+    private final PublicKey publicKey;
+    private final boolean active;
+    private final int signatureLength;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final ObjectPool<Mac> macs;
+    @Getter(lombok.AccessLevel.NONE)
+    private final ObjectPool<Signature> signers;
+    @Getter(lombok.AccessLevel.NONE)
+    private final ObjectPool<Signature> verifiers;
+
+    private SigningKey(String kid, String algorithm, Key key, PublicKey publicKey, boolean active, int signatureLength) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.key = key;
+        this.publicKey = publicKey;
+        this.active = active;
+        this.signatureLength = signatureLength;
+        this.macs = new ObjectPool<>(this::newMac);
+        this.signers = new ObjectPool<>(this::newSigner);
+        this.verifiers = new ObjectPool<>(this::newVerifier);
+    }
+
+    static SigningKey hmac(String kid, byte[] secret, boolean active) {
+        /*
+            Function to create an HS256 key from a shared secret
+            - The key is labelled "HmacSHA256", so jjwt and the JCA never pick HMAC-SHA384 or HMAC-SHA512 for a longer secret
+            - Throws Illegal Argument Exception for a secret shorter than 32 bytes, as RFC 7518 requires
+         */
+        if(secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("HS256 secret of key " + kid + " is shorter than "
+                    + MIN_SECRET_BYTES + " bytes");
+        }
+        SecretKey key = new SecretKeySpec(secret, HMAC_SHA256);
+        return new SigningKey(kid, HS256, key, null, active, 32);
+    }
+
+    static SigningKey asymmetric(String kid, String algorithm, PrivateKey privateKey, PublicKey publicKey,
+                                 boolean active) {
+        return new SigningKey(kid, algorithm, privateKey, publicKey, active, 64);
+    }
+
+    public boolean isSymmetric() {
+        return HS256.equals(algorithm);
+    }
+
+    public boolean canSign() {
+        return key != null;
+    }
+
+    public Key getVerificationKey() {
+        /*
+            Function to get the key JWT Tokens are verified with, the secret for HS256 or the public key
+         */
+        return isSymmetric() ? key : publicKey;
+    }
+
+    public void sign(byte[] data, int length, byte[] signature) {
+        /*
+            Function to sign the first "length" bytes of data
+            - The signature is written to the start of "signature", it is "getSignatureLength" bytes long
+            - A "Mac" or "Signature" which failed is dropped instead of going back to its pool
+         */
+        if(isSymmetric()) {
+            Mac mac = macs.acquire();
+            try {
+                mac.update(data, 0, length);
+                mac.doFinal(signature, 0);
+            }
+            catch (ShortBufferException exception) {
+                throw new IllegalStateException("Unable to sign with key " + kid, exception);
+            }
+            // "doFinal" leaves the "Mac" reset for its next use
+            macs.release(mac);
+            return;
+        }
+        Signature signer = signers.acquire();
+        try {
+            signer.update(data, 0, length);
+            signer.sign(signature, 0, signatureLength);
+        }
+        catch (SignatureException exception) {
+            throw new IllegalStateException("Unable to sign with key " + kid, exception);
+        }
+        signers.release(signer);
+    }
+
+    public boolean verify(byte[] data, int length, byte[] signature, int providedLength, byte[] scratch) {
+        /*
+            Function to check a signature of the first "length" bytes of data
+            - HS256 signatures are recomputed into "scratch" and compared in constant time
+         */
+        if(providedLength != signatureLength) {
+            return false;
+        }
+        if(isSymmetric()) {
+            sign(data, length, scratch);
+            int difference = 0;
+            for(int i = 0; i < signatureLength; i++) {
+                difference |= scratch[i] ^ signature[i];
+            }
+            return difference == 0;
+        }
+        Signature verifier = verifiers.acquire();
+        boolean valid;
+        try {
+            verifier.update(data, 0, length);
+            valid = verifier.verify(signature, 0, signatureLength);
+        }
+        catch (SignatureException exception) {
+            // A malformed signature leaves the verifier in an unknown state, so it is dropped
+            return false;
+        }
+        verifiers.release(verifier);
+        return valid;
+    }
+
+    private Mac newMac() {
+        /*
+            Function to create and initialise a "Mac" for this key
+            - The algorithm is always HMAC-SHA256, the JCA label of the key is not trusted to match it
+         */
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(key);
+            return mac;
+        }
+        catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("Unable to initialise MAC for key " + kid, exception);
+        }
+    }
+
+    private Signature newSigner() {
+        /*
+            Function to create and initialise a "Signature" signing with the private key
+            - Throws Illegal State Exception for a key pair without a private key, which can only verify
+         */
+        if(!(key instanceof PrivateKey privateKey)) {
+            throw new IllegalStateException("Signing key " + kid + " has no private key, it can only verify");
+        }
+        try {
+            Signature signature = Signature.getInstance(jcaAlgorithm());
+            signature.initSign(privateKey);
+            return signature;
+        }
+        catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("Unable to initialise signer for key " + kid, exception);
+        }
+    }
+
+    private Signature newVerifier() {
+        try {
+            Signature signature = Signature.getInstance(jcaAlgorithm());
+            signature.initVerify(publicKey);
+            return signature;
+        }
+        catch (GeneralSecurityException exception) {
+            throw new IllegalStateException("Unable to initialise verifier for key " + kid, exception);
+        }
+    }
+
+    private String jcaAlgorithm() {
+        // "P1363" is the raw "R || S" form of an ECDSA signature, JCA otherwise uses DER
+        return ES256.equals(algorithm) ? "SHA256withECDSAinP1363Format" : "Ed25519";
+    }
+}
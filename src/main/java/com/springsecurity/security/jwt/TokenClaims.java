@@ -0,0 +1,27 @@
+package com.springsecurity.security.jwt;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+@Value
+@Builder
+public class TokenClaims {
+    /*
+        Class holding the claims of a JWT Token which is about to be signed
+        - Dates are held as epoch milliseconds, JWT Tokens carry them in seconds
+        - The user id, roles, token id, family id, authentication time and extra claims are optional
+     */
+    String subject;
+    long issuedAt;
+    long expiration;
+    Integer userId;
+    List<String> roles;
+    String tokenId;
+    String familyId;
+    long authTime;
+    @Builder.Default
+    Map<String, ?> extraClaims = Map.of();
+}
@@ -0,0 +1,13 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.dto.VerifiedToken;
+
+public interface TokenCodec {
+    /*
+        Interface to sign and verify compact JWT Tokens
+        - 'encode' signs the claims with the active key of the "JwtKeyRing"
+        - 'decode' checks the signature and expiry and throws a "JwtException" if the JWT Token is not valid
+     */
+    String encode(TokenClaims claims);
+    VerifiedToken decode(String token);
+}
@@ -0,0 +1,12 @@
+package com.springsecurity.security.jwt;
+
+public enum TokenFormat {
+    /*
+        Enum holding the formats access tokens can be issued in
+        - "JWT" is the default, JSON claims in a compact JWS
+        - "CWT" is CBOR claims in a COSE message, smaller and cheaper to parse, see "CwtTokenCodec"
+        - Both formats are accepted everywhere a token is verified, whichever the client asked for
+     */
+    JWT,
+    CWT
+}
@@ -0,0 +1,27 @@
+package com.springsecurity.security.jwt;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+public final class TokenIds {
+    /*
+        Class creating the random ids of JWT Tokens and refresh token families
+        - An id is 128 random bits, Base64URL encoded into 22 characters
+        - "SecureRandom" generators are pooled, so issuing JWT Tokens does not contend on one generator
+     */
+
+    private static final int ID_BYTES = 16;
+    private static final ObjectPool<SecureRandom> RANDOM = new ObjectPool<>(SecureRandom::new);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private TokenIds() {
+    }
+
+    public static String newId() {
+        byte[] bytes = new byte[ID_BYTES];
+        SecureRandom random = RANDOM.acquire();
+        random.nextBytes(bytes);
+        RANDOM.release(random);
+        return ENCODER.encodeToString(bytes);
+    }
+}
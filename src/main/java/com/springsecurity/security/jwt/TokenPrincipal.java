@@ -0,0 +1,81 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.dto.VerifiedToken;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class TokenPrincipal implements UserDetails {
+    /*
+        Class holding a lightweight principal built from the claims of a verified JWT Token
+        - The username, user id and roles are read from the JWT Token, so no database lookup is needed
+        - The full "UserDetails" are only loaded when a controller asks for them through 'getUserDetails'
+     */
+    @Getter
+    private final String username;
+    @Getter
+    private final Integer userId;
+    private final List<GrantedAuthority> authorities;
+
+    // Loader for the full user details, only called on first use
+    private final Supplier<UserDetails> userDetailsLoader;
+    private volatile UserDetails userDetails;
+
+    public TokenPrincipal(VerifiedToken verifiedToken, Supplier<UserDetails> userDetailsLoader) {
+        this.username = verifiedToken.getSubject();
+        this.userId = verifiedToken.getUserId();
+        this.authorities = verifiedToken.getRoles().stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        this.userDetailsLoader = userDetailsLoader;
+    }
+
+    public UserDetails getUserDetails() {
+        /*
+            Function to get the full user details of this principal
+            - The user details are loaded on first use and kept for the rest of the request
+         */
+        UserDetails loaded = userDetails;
+        if(loaded == null) {
+            loaded = userDetailsLoader.get();
+            userDetails = loaded;
+        }
+        return loaded;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        // The password is never part of a JWT Token
+        return null;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
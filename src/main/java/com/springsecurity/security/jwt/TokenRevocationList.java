@@ -0,0 +1,194 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class TokenRevocationList implements DisposableBean {
+    /*
+        Class holding JWT Tokens revoked before their expiry, keyed by their "jti" claim
+        - Every request is checked, so the check must be cheap when the JWT Token has not been revoked
+        - Revoked token ids are added to a Bloom filter, a miss in the filter answers the check without locking
+        - Only on a hit in the filter is the token id confirmed against the exact set of revoked token ids
+        - There is one Bloom filter per window of expiry, a JWT Token is only checked against the filter of its expiry
+        - A window's filter starts small and is replaced by one four times larger each time it fills up
+        - Most windows only ever see a few revocations, so a long token lifetime does not cost a full filter per window
+        - A filter never grows past the expected revocations, a fuller window only sees more false positives
+        - Once a window has passed, its filter and its token ids are dropped, since those JWT Tokens have expired anyway
+        - Revocations are written to a memory-mapped file when one is configured, and read back at startup
+     */
+
+    // Bloom filters by window of expiry
+    private final ConcurrentHashMap<Long, BloomFilter> filters = new ConcurrentHashMap<>();
+    // Expiry of each revoked token id
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final long windowMillis;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    // Number of revocations the filter of a new window is sized for
+    static final long INITIAL_WINDOW_CAPACITY = 1_024;
+    // Factor by which a full filter is grown
+    private static final long GROWTH_FACTOR = 4;
+
+    private final RevocationStore store;
+    private final ScheduledExecutorService purger;
+
+    public TokenRevocationList(JwtProperties jwtProperties) {
+        JwtProperties.Revocation revocation = jwtProperties.getRevocation();
+        this.windowMillis = revocation.getWindow().toMillis();
+        this.expectedRevocations = revocation.getExpectedRevocations();
+        this.falsePositiveRate = revocation.getFalsePositiveRate();
+
+        if(revocation.getFile() == null || revocation.getFile().isBlank()) {
+            this.store = null;
+        }
+        else {
+            try {
+                this.store = new RevocationStore(Path.of(revocation.getFile()), revocation.getInitialCapacity());
+            }
+            catch (IOException exception) {
+                throw new UncheckedIOException("Could not open the token revocation file", exception);
+            }
+            long now = System.currentTimeMillis();
+            store.forEach((tokenId, expiresAt) -> {
+                if(expiresAt > now) {
+                    remember(tokenId, expiresAt);
+                }
+            });
+        }
+
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purgeExpired, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isRevoked(VerifiedToken verifiedToken) {
+        /*
+            Function to check if a verified JWT Token has been revoked
+            - JWT Tokens without a token id cannot be revoked
+         */
+        String tokenId = verifiedToken.getTokenId();
+        if(tokenId == null) {
+            return false;
+        }
+        BloomFilter filter = filters.get(verifiedToken.getExpiration() / windowMillis);
+        if(filter == null || !filter.mightContain(BloomFilter.hash(tokenId))) {
+            return false;
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    public synchronized void revoke(String tokenId, long expiresAt) {
+        /*
+            Function to revoke a JWT Token until it expires
+            - Revoking an expired or already revoked JWT Token does nothing
+            - The revocation is persisted before it takes effect, so it is never lost on restart
+         */
+        if(expiresAt <= System.currentTimeMillis() || revoked.containsKey(tokenId)) {
+            return;
+        }
+        if(tokenId.getBytes(StandardCharsets.US_ASCII).length > RevocationStore.MAX_TOKEN_ID_BYTES) {
+            throw new IllegalArgumentException("Token id is too long");
+        }
+        if(store != null) {
+            try {
+                store.append(tokenId, expiresAt);
+            }
+            catch (IOException exception) {
+                throw new UncheckedIOException("Could not persist the token revocation", exception);
+            }
+        }
+        remember(tokenId, expiresAt);
+    }
+
+    private void remember(String tokenId, long expiresAt) {
+        /*
+            Function to add a revoked token id to the exact set and to the filter of its window
+            - Only called under the lock of this list, or from the constructor
+         */
+        // The exact set is updated first, so a hit in the filter can always be confirmed
+        revoked.put(tokenId, expiresAt);
+        long window = expiresAt / windowMillis;
+        BloomFilter filter = filters.get(window);
+        if(filter == null) {
+            filters.put(window, newFilter(Math.min(INITIAL_WINDOW_CAPACITY, expectedRevocations), tokenId));
+        }
+        else if(filter.isFull() && filter.expectedEntries() < expectedRevocations) {
+            // The larger filter is filled before it replaces the full one, so readers never see it half filled
+            BloomFilter larger = new BloomFilter(
+                    Math.min(filter.expectedEntries() * GROWTH_FACTOR, expectedRevocations), falsePositiveRate);
+            revoked.forEach((revokedId, revokedExpiresAt) -> {
+                if(revokedExpiresAt / windowMillis == window) {
+                    larger.add(BloomFilter.hash(revokedId));
+                }
+            });
+            filters.put(window, larger);
+        }
+        else {
+            filter.add(BloomFilter.hash(tokenId));
+        }
+    }
+
+    private BloomFilter newFilter(long expectedEntries, String tokenId) {
+        BloomFilter filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        filter.add(BloomFilter.hash(tokenId));
+        return filter;
+    }
+
+    long filterCapacity(long expiresAt) {
+        BloomFilter filter = filters.get(expiresAt / windowMillis);
+        return filter == null ? 0 : filter.expectedEntries();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    synchronized void purgeExpired() {
+        /*
+            Function to drop the filters and token ids of JWT Tokens which have expired
+            - The file is compacted once most of its records have expired
+         */
+        long now = System.currentTimeMillis();
+        long currentWindow = now / windowMillis;
+        filters.keySet().removeIf(window -> window < currentWindow);
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        if(store != null && store.count() > 2 * revoked.size()) {
+            try {
+                store.rewrite(new HashMap<>(revoked));
+            }
+            catch (IOException | RuntimeException exception) {
+                log.warn("Could not compact the token revocation file", exception);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        purger.shutdownNow();
+        if(store != null) {
+            synchronized(this) {
+                store.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.springsecurity.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class VerifiedTokenCache {
+    /*
+        Class caching JWT Tokens which have already been verified
+        - Clients send the same JWT Token many times during its lifetime
+        - A cache hit returns the "VerifiedToken" without checking the signature or decoding the claims again
+        - Entries are keyed by a SHA-256 digest of the JWT Token, the JWT Token itself is not used as the key
+        - Every entry is evicted no later than the expiry of its JWT Token
+        - The cache is bounded in size and records hit, miss and eviction counts
+     */
+
+    // Pooled digests, since "MessageDigest" is not thread-safe
+    private static final ObjectPool<MessageDigest> DIGESTS = new ObjectPool<>(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    });
+
+    // Whether the cache is used at all
+    private final boolean enabled;
+
+    // Verified JWT Tokens by digest
+    private final Cache<TokenDigest, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtProperties jwtProperties) {
+        this.enabled = jwtProperties.getCache().isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCache().getMaximumSize())
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+    }
+
+    public VerifiedToken get(String token) {
+        /*
+            Function to get an already verified JWT Token
+            - Returns "null" if the cache is disabled or the JWT Token has not been verified yet
+            - A JWT Token past its expiry is never returned, even if it has not been evicted yet
+         */
+        if(!enabled) {
+            return null;
+        }
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken verifiedToken = cache.getIfPresent(digest);
+        if(verifiedToken == null) {
+            return null;
+        }
+        if(verifiedToken.isExpired() || !verifiedToken.getToken().equals(token)) {
+            cache.invalidate(digest);
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    public void put(VerifiedToken verifiedToken) {
+        /*
+            Function to remember a verified JWT Token
+            - JWT Tokens which have already expired are not cached
+         */
+        if(!enabled || verifiedToken.isExpired()) {
+            return;
+        }
+        cache.put(TokenDigest.of(verifiedToken.getToken()), verifiedToken);
+    }
+
+    public void invalidateAll() {
+        /*
+            Function to drop every cached JWT Token
+            - Used when the signing keys change, so removed keys stop being accepted at once
+         */
+        cache.invalidateAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CacheStats stats() {
+        /*
+            Function to get the hit, miss and eviction counts of the cache
+         */
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        /*
+            Function to publish the cache size, hit, miss and eviction counts
+         */
+        CaffeineCacheMetrics.monitor(registry, cache, "verified_tokens");
+    }
+
+    private record TokenDigest(long first, long second, long third, long fourth) {
+        /*
+            Record holding the SHA-256 digest of a JWT Token as four longs
+         */
+        static TokenDigest of(String token) {
+            // "digest" leaves the "MessageDigest" reset for its next use
+            MessageDigest messageDigest = DIGESTS.acquire();
+            ByteBuffer digest = ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+            DIGESTS.release(messageDigest);
+            return new TokenDigest(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+
+    private static class TokenExpiry implements Expiry<TokenDigest, VerifiedToken> {
+        /*
+            Class to expire each entry at the expiry of its JWT Token
+         */
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.getExpiration() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.springsecurity.security.metrics;
+
+import com.springsecurity.security.jwt.RevokedJwtException;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Component
+public class AuthMetrics {
+    /*
+        Class recording timings and outcomes of the authentication pipeline
+        - All timers publish percentile histograms, so latency percentiles can be computed across nodes
+        - The meters are exposed on the Prometheus endpoint "/actuator/prometheus"
+     */
+
+    // Outcomes of a JWT Token or request
+    public static final String VALID = "valid";
+    public static final String EXPIRED = "expired";
+    public static final String BAD_SIGNATURE = "bad_signature";
+    public static final String MALFORMED = "malformed";
+    public static final String UNSUPPORTED = "unsupported";
+    public static final String REVOKED = "revoked";
+    public static final String UNKNOWN_USER = "unknown_user";
+    public static final String INVALID = "invalid";
+
+    // Declare the registry the meters are recorded in
+    private final MeterRegistry registry;
+
+    // Meters registered once and reused, so recording never builds or looks up a meter in the registry
+    // - Meters with a single tag of a few known values are kept by tag value, and registered on first use
+    private final TaggedMeters<Timer> verifyCacheHits = new TaggedMeters<>(outcome -> timer(
+            "auth.token.verify", "outcome", outcome, "cache", "hit"));
+    private final TaggedMeters<Timer> verifyCacheMisses = new TaggedMeters<>(outcome -> timer(
+            "auth.token.verify", "outcome", outcome, "cache", "miss"));
+    private final TaggedMeters<Timer> tokenGenerations = new TaggedMeters<>(type -> timer(
+            "auth.token.generate", "type", type));
+    private final TaggedMeters<Counter> requests = new TaggedMeters<>(outcome -> counter(
+            "auth.requests", "Outcomes of authenticating requests with a JWT Token", "outcome", outcome));
+    private final TaggedMeters<Counter> refreshRotations = new TaggedMeters<>(outcome -> counter(
+            "auth.refresh.rotations", "Outcomes of rotating refresh JWT Tokens", "outcome", outcome));
+    private final TaggedMeters<Counter> passwordRehashes = new TaggedMeters<>(outcome -> counter(
+            "auth.password.rehash", "Passwords rehashed after sign in", "outcome", outcome));
+    private final TaggedMeters<Counter> signInThrottles = new TaggedMeters<>(bucket -> counter(
+            "auth.signin.throttled", "Sign in attempts refused by the rate limiter", "bucket", bucket));
+    private final TaggedMeters<Counter> invalidationsPublished = new TaggedMeters<>(type -> counter(
+            "auth.invalidation.published", "Cache invalidations published for the other nodes", "type", type));
+    private final TaggedMeters<Counter> invalidationsCoalesced = new TaggedMeters<>(type -> counter(
+            "auth.invalidation.coalesced", "Cache invalidations merged before being sent", "type", type));
+    private final TaggedMeters<Timer> invalidationLags = new TaggedMeters<>(type -> timer(
+            "auth.invalidation.lag", "type", type));
+    // - Meters with only a few tag combinations are registered up front
+    private final Timer[] userLookups;
+    private final Timer passwordMatches;
+    private final Timer passwordMismatches;
+    private final Timer passwordEncodes;
+    private final DistributionSummary invalidationBatchSizes;
+
+    public AuthMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        // Indexed by "cached * 2 + found"
+        this.userLookups = new Timer[] {
+                timer("auth.user.lookup", "cache", "miss", "outcome", "not_found"),
+                timer("auth.user.lookup", "cache", "miss", "outcome", "found"),
+                timer("auth.user.lookup", "cache", "hit", "outcome", "not_found"),
+                timer("auth.user.lookup", "cache", "hit", "outcome", "found")
+        };
+        this.passwordMatches = timer("auth.password.match", "outcome", "match");
+        this.passwordMismatches = timer("auth.password.match", "outcome", "mismatch");
+        this.passwordEncodes = timer("auth.password.encode");
+        this.invalidationBatchSizes = DistributionSummary.builder("auth.invalidation.batch.size")
+                .description("Cache invalidations sent per batch")
+                .register(registry);
+    }
+
+    public Timer.Sample start() {
+        /*
+            Function to start timing an operation
+         */
+        return Timer.start(registry);
+    }
+
+    public void tokenVerified(Timer.Sample sample, String outcome, boolean cached) {
+        /*
+            Function to record the time taken to parse and verify a JWT Token
+         */
+        sample.stop((cached ? verifyCacheHits : verifyCacheMisses).get(outcome));
+    }
+
+    public void tokenGenerated(Timer.Sample sample, String type) {
+        /*
+            Function to record the time taken to sign a new JWT Token
+            - The type is "access" or "refresh"
+         */
+        sample.stop(tokenGenerations.get(type));
+    }
+
+    public void userLookup(Timer.Sample sample, boolean cached, boolean found) {
+        /*
+            Function to record the time taken to look up a user and whether the cache was hit
+         */
+        sample.stop(userLookups[(cached ? 2 : 0) + (found ? 1 : 0)]);
+    }
+
+    public void passwordMatched(Timer.Sample sample, boolean matched) {
+        /*
+            Function to record the time taken to check a password with BCrypt
+         */
+        sample.stop(matched ? passwordMatches : passwordMismatches);
+    }
+
+    public void passwordEncoded(Timer.Sample sample) {
+        /*
+            Function to record the time taken to hash a password with BCrypt
+         */
+        sample.stop(passwordEncodes);
+    }
+
+    public void requestAuthenticated(String outcome) {
+        /*
+            Function to count the outcome of authenticating a request with a JWT Token
+         */
+        requests.get(outcome).increment();
+    }
+
+    public void refreshRotated(String outcome) {
+        /*
+            Function to count the outcome of rotating a refresh JWT Token
+            - The outcome is "rotated", "reused", "revoked" or "unknown"
+         */
+        refreshRotations.get(outcome).increment();
+    }
+
+    public void passwordRehashed(String outcome) {
+        /*
+            Function to count a password rehashed after sign in because its hash was out of date
+            - The outcome is "updated", "stale" if the password changed meanwhile, or "dropped" if the hashing queue was full
+         */
+        passwordRehashes.get(outcome).increment();
+    }
+
+    public void signInThrottled(String bucket) {
+        /*
+            Function to count a sign in attempt refused by the rate limiter
+            - The bucket is "address" or "email"
+         */
+        signInThrottles.get(bucket).increment();
+    }
+
+    public void invalidationPublished(String type) {
+        /*
+            Function to count an invalidation published for the other nodes
+         */
+        invalidationsPublished.get(type).increment();
+    }
+
+    public void invalidationCoalesced(String type) {
+        /*
+            Function to count an invalidation merged into one for the same key which was still waiting to be sent
+         */
+        invalidationsCoalesced.get(type).increment();
+    }
+
+    public void invalidationBatchSent(int size) {
+        /*
+            Function to record the number of invalidations sent in one batch
+         */
+        invalidationBatchSizes.record(size);
+    }
+
+    public void invalidationReceived(String type, long lagMillis) {
+        /*
+            Function to record the time from publishing an invalidation on one node to applying it on another
+            - Nodes on different machines measure it with different clocks, a negative lag is counted as zero
+         */
+        invalidationLags.get(type).record(Math.max(lagMillis, 0), TimeUnit.MILLISECONDS);
+    }
+
+    public static String outcomeOf(RuntimeException exception) {
+        /*
+            Function to name the outcome of a JWT Token which failed verification
+         */
+        if(exception instanceof RevokedJwtException) {
+            return REVOKED;
+        }
+        if(exception instanceof ExpiredJwtException) {
+            return EXPIRED;
+        }
+        if(exception instanceof SignatureException) {
+            return BAD_SIGNATURE;
+        }
+        if(exception instanceof MalformedJwtException || exception instanceof IllegalArgumentException) {
+            return MALFORMED;
+        }
+        if(exception instanceof UnsupportedJwtException) {
+            return UNSUPPORTED;
+        }
+        return INVALID;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter counter(String name, String description, String tagKey, String tagValue) {
+        return Counter.builder(name)
+                .description(description)
+                .tag(tagKey, tagValue)
+                .register(registry);
+    }
+
+    private static final class TaggedMeters<M> {
+        /*
+            Class holding the meters of one name by the value of their only varying tag
+            - A known tag value is a plain map read, the meter is only built and registered the first time
+         */
+        private final ConcurrentHashMap<String, M> meters = new ConcurrentHashMap<>();
+        private final Function<String, M> register;
+
+        TaggedMeters(Function<String, M> register) {
+            this.register = register;
+        }
+
+        M get(String tagValue) {
+            M meter = meters.get(tagValue);
+            return meter != null ? meter : meters.computeIfAbsent(tagValue, register);
+        }
+    }
+}
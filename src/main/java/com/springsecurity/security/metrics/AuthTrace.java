@@ -0,0 +1,91 @@
+package com.springsecurity.security.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+public final class AuthTrace {
+    /*
+        Class timing one phase of authenticating a request, for JDK Flight Recorder and the "Server-Timing" header
+        - Each phase is a JFR event with its duration, outcome and thread, so slow requests line up with GC and lock events
+        - The events have no stack trace, and when JFR is not recording them they are never committed
+        - The Micrometer timers of "AuthMetrics" give the aggregate, these events explain single requests
+        - Usage: "AuthTrace trace = AuthTrace.tokenVerify();" before the phase, "trace.end(outcome);" after it
+     */
+
+    // Names of the phases, in JFR and in the "Server-Timing" header
+    public static final String VERIFY = "verify";
+    public static final String USER = "user";
+    public static final String MATCH = "match";
+    public static final String SIGN = "sign";
+
+    private final AuthEvent event;
+    private final String phase;
+    private final long start;
+
+    private AuthTrace(AuthEvent event, String phase) {
+        this.event = event;
+        this.phase = phase;
+        this.start = System.nanoTime();
+        event.begin();
+    }
+
+    public static AuthTrace tokenVerify() {
+        return new AuthTrace(new TokenVerifyEvent(), VERIFY);
+    }
+
+    public static AuthTrace userLoad() {
+        return new AuthTrace(new UserLoadEvent(), USER);
+    }
+
+    public static AuthTrace passwordMatch() {
+        return new AuthTrace(new PasswordMatchEvent(), MATCH);
+    }
+
+    public static AuthTrace tokenSign() {
+        return new AuthTrace(new TokenSignEvent(), SIGN);
+    }
+
+    public void end(String outcome) {
+        event.end();
+        if(event.shouldCommit()) {
+            event.outcome = outcome;
+            event.commit();
+        }
+        ServerTiming.record(phase, System.nanoTime() - start, outcome);
+    }
+
+    @Category({"Spring Security", "Authentication"})
+    @StackTrace(false)
+    abstract static class AuthEvent extends Event {
+        @Label("Outcome")
+        String outcome;
+    }
+
+    @Name("com.springsecurity.TokenVerify")
+    @Label("Token Verify")
+    @Description("Signature, validity period and revocation check of a JWT or CWT Token")
+    static final class TokenVerifyEvent extends AuthEvent {
+    }
+
+    @Name("com.springsecurity.UserLoad")
+    @Label("User Load")
+    @Description("Lookup of the user a request is made for")
+    static final class UserLoadEvent extends AuthEvent {
+    }
+
+    @Name("com.springsecurity.PasswordMatch")
+    @Label("Password Match")
+    @Description("Password check of a sign in, including the user lookup and the wait for a hashing thread")
+    static final class PasswordMatchEvent extends AuthEvent {
+    }
+
+    @Name("com.springsecurity.TokenSign")
+    @Label("Token Sign")
+    @Description("Issue of the access and refresh JWT Tokens of a sign in or refresh")
+    static final class TokenSignEvent extends AuthEvent {
+    }
+}
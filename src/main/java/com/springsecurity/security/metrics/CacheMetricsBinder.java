@@ -0,0 +1,28 @@
+package com.springsecurity.security.metrics;
+
+import com.springsecurity.security.jwt.VerifiedTokenCache;
+import com.springsecurity.security.services.impl.CachedUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CacheMetricsBinder implements MeterBinder {
+    /*
+        Class publishing the hit rates of the authentication caches
+        - Spring Boot binds every "MeterBinder" bean to the meter registry at startup
+     */
+
+    // Declare object caching verified JWT Tokens
+    private final VerifiedTokenCache verifiedTokenCache;
+    // Declare object caching user details
+    private final CachedUserDetailsService cachedUserDetailsService;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        verifiedTokenCache.bindTo(registry);
+        cachedUserDetailsService.bindTo(registry);
+    }
+}
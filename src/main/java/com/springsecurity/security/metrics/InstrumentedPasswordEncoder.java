@@ -0,0 +1,41 @@
+package com.springsecurity.security.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+public class InstrumentedPasswordEncoder implements PasswordEncoder {
+    /*
+        Class timing every password hash and check of another "PasswordEncoder"
+     */
+
+    // Declare the encoder doing the actual work
+    private final PasswordEncoder delegate;
+    // Declare object recording authentication metrics
+    private final AuthMetrics authMetrics;
+
+    public InstrumentedPasswordEncoder(PasswordEncoder delegate, AuthMetrics authMetrics) {
+        this.delegate = delegate;
+        this.authMetrics = authMetrics;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        Timer.Sample sample = authMetrics.start();
+        String encoded = delegate.encode(rawPassword);
+        authMetrics.passwordEncoded(sample);
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Timer.Sample sample = authMetrics.start();
+        boolean matched = delegate.matches(rawPassword, encodedPassword);
+        authMetrics.passwordMatched(sample, matched);
+        return matched;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,66 @@
+package com.springsecurity.security.metrics;
+
+public final class ServerTiming {
+    /*
+        Class collecting the phases of one request for the "Server-Timing" response header
+        - Only requests started with "start" collect phases, for every other request recording is a thread local lookup
+        - Phases are collected on the request thread, until "stop" is called
+        - Each phase is written as "<name>;dur=<milliseconds>;desc=<outcome>", which browser developer tools display
+     */
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private final StringBuilder phases = new StringBuilder();
+
+    private ServerTiming() {
+    }
+
+    public static void start() {
+        CURRENT.set(new ServerTiming());
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void record(String name, long nanos, String outcome) {
+        ServerTiming serverTiming = CURRENT.get();
+        if(serverTiming == null) {
+            return;
+        }
+        StringBuilder phases = serverTiming.phases;
+        if(!phases.isEmpty()) {
+            phases.append(", ");
+        }
+        long micros = nanos / 1000;
+        phases.append(name).append(";dur=").append(micros / 1000).append('.');
+        long fraction = micros % 1000;
+        if(fraction < 100) {
+            phases.append('0');
+        }
+        if(fraction < 10) {
+            phases.append('0');
+        }
+        phases.append(fraction);
+        if(outcome != null) {
+            phases.append(";desc=\"").append(outcome).append('"');
+        }
+    }
+
+    public static String drain() {
+        /*
+            Function to take the phases recorded since the last call
+            - Returns "null" if no phase was recorded, or if the request did not start collecting phases
+            - The header can be added several times in one response, each time with the phases since the last one
+         */
+        ServerTiming serverTiming = CURRENT.get();
+        if(serverTiming == null || serverTiming.phases.isEmpty()) {
+            return null;
+        }
+        String header = serverTiming.phases.toString();
+        serverTiming.phases.setLength(0);
+        return header;
+    }
+}
@@ -0,0 +1,84 @@
+package com.springsecurity.security.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Slf4j
+@Component
+@Profile("virtual-threads")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+    /*
+        Class reporting virtual threads which are pinned to their carrier thread, active with the "virtual-threads" profile
+        - A virtual thread is pinned when it blocks inside a "synchronized" block or a native call
+        - Pinned threads hold a carrier thread, which defeats the point of virtual threads
+        - The JDK reports pinning as "jdk.VirtualThreadPinned" Flight Recorder events, which are streamed here
+        - Every pinning is counted, and the frame holding the lock is logged so the offending library can be found
+     */
+
+    // Pinning shorter than this is not reported
+    private static final Duration THRESHOLD = Duration.ofMillis(20);
+    // Number of stack frames logged for each pinning
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Counter pinnedCounter;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry) {
+        this.pinnedCounter = Counter.builder("jvm.threads.virtual.pinned")
+                .description("Virtual threads pinned to their carrier for longer than " + THRESHOLD.toMillis() + "ms")
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(THRESHOLD).withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recordingStream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        /*
+            Function to count and log a pinned virtual thread
+         */
+        pinnedCounter.increment();
+        if(event.getStackTrace() == null) {
+            log.warn("Virtual thread pinned for {}ms", event.getDuration().toMillis());
+            return;
+        }
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        StringBuilder stack = new StringBuilder();
+        for(RecordedFrame frame : frames.subList(0, Math.min(LOGGED_FRAMES, frames.size()))) {
+            stack.append("\n\tat ")
+                    .append(frame.getMethod().getType().getName())
+                    .append('.')
+                    .append(frame.getMethod().getName())
+                    .append(':')
+                    .append(frame.getLineNumber());
+        }
+        log.warn("Virtual thread pinned for {}ms{}", event.getDuration().toMillis(), stack);
+    }
+
+    @Override
+    public void stop() {
+        if(recordingStream != null) {
+            recordingStream.close();
+            recordingStream = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recordingStream != null;
+    }
+}
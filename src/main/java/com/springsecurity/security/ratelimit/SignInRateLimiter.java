@@ -0,0 +1,66 @@
+package com.springsecurity.security.ratelimit;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Component
+public class SignInRateLimiter {
+    /*
+        Class throttling sign in attempts, before any password is hashed or user is loaded
+        - Each client address and each email has its own token bucket
+        - The client address is checked first, so a throttled address does not use up the tokens of the emails it tries
+        - Credential stuffing from one address is stopped by the address bucket
+        - Attempts on one account from many addresses are stopped by the email bucket
+        - A check is a hash and a compare-and-set on a fixed table, there is no lock and no allocation
+     */
+
+    // Names of the buckets, used as metric tags
+    private static final String ADDRESS = "address";
+    private static final String EMAIL = "email";
+
+    // Declare object recording authentication metrics
+    private final AuthMetrics authMetrics;
+
+    private final boolean enabled;
+    private final TokenBucketTable addresses;
+    private final TokenBucketTable emails;
+
+    public SignInRateLimiter(AuthProperties authProperties, AuthMetrics authMetrics) {
+        AuthProperties.SignInRateLimit settings = authProperties.getSignInRateLimit();
+        this.authMetrics = authMetrics;
+        this.enabled = settings.isEnabled();
+        this.addresses = table(settings.getAddress());
+        this.emails = table(settings.getEmail());
+    }
+
+    private static TokenBucketTable table(AuthProperties.SignInRateLimit.Bucket bucket) {
+        return new TokenBucketTable(bucket.getSlots(), bucket.getCapacity(), bucket.getRefillInterval().toNanos());
+    }
+
+    public void check(String email, String clientAddress) {
+        /*
+            Function to take a token for a sign in attempt
+            - Throws "SignInThrottledException" with the time until a token is available if either bucket is empty
+         */
+        if(!enabled) {
+            return;
+        }
+        if(clientAddress != null) {
+            reject(addresses.tryAcquire(clientAddress), ADDRESS);
+        }
+        if(email != null) {
+            reject(emails.tryAcquire(email.trim().toLowerCase(Locale.ROOT)), EMAIL);
+        }
+    }
+
+    private void reject(long waitNanos, String bucket) {
+        if(waitNanos > 0) {
+            authMetrics.signInThrottled(bucket);
+            throw new SignInThrottledException(Duration.ofNanos(waitNanos));
+        }
+    }
+}
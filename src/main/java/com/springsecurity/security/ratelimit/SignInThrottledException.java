@@ -0,0 +1,19 @@
+package com.springsecurity.security.ratelimit;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class SignInThrottledException extends RuntimeException {
+    /*
+        Exception thrown when a sign in is refused by the "SignInRateLimiter"
+        - The client should retry once the "retryAfter" duration has passed
+     */
+    private final Duration retryAfter;
+
+    public SignInThrottledException(Duration retryAfter) {
+        super("Too many sign in attempts");
+        this.retryAfter = retryAfter;
+    }
+}
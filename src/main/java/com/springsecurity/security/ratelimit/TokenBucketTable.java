@@ -0,0 +1,116 @@
+package com.springsecurity.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public final class TokenBucketTable {
+    /*
+        Class holding a fixed number of token buckets, keyed by the 64 bit hash of a key
+        - Each bucket is a single "long", the time at which it will be full again, updated with compare-and-set
+        - Taking a token pushes that time forward by one refill interval, it is refused while it would exceed the capacity
+        - A bucket whose full time has passed is full, which is the same as no bucket at all
+        - Such idle buckets are reused for other keys, so idle keys are evicted without a background thread
+        - The table never grows, when every probed slot is busy the bucket closest to full is taken over
+        - Memory is two "long"s per slot, whatever the number of keys an attacker cycles through
+     */
+
+    // Number of slots probed for a key before a bucket is taken over
+    private static final int PROBES = 8;
+
+    // Hash of each slot, "0" for a slot never used
+    private final AtomicLongArray keys;
+    // Time each bucket is full again, in nanoseconds since "origin"
+    private final AtomicLongArray fullAt;
+    private final int mask;
+    private final long refillNanos;
+    private final long burstNanos;
+    private final long origin = System.nanoTime();
+
+    public TokenBucketTable(int slots, int capacity, long refillNanos) {
+        if(capacity < 1 || refillNanos < 1) {
+            throw new IllegalArgumentException("Token buckets need a capacity and refill interval above zero");
+        }
+        int size = Integer.highestOneBit(Math.max(PROBES, slots - 1) << 1);
+        this.keys = new AtomicLongArray(size);
+        this.fullAt = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.refillNanos = refillNanos;
+        this.burstNanos = refillNanos * capacity;
+    }
+
+    public long tryAcquire(String key) {
+        return tryAcquire(hash(key), now());
+    }
+
+    long tryAcquire(long hash, long now) {
+        /*
+            Function to take a token from the bucket of a key
+            - Returns "0" if a token was taken, otherwise the nanoseconds until one is available
+         */
+        long key = hash == 0 ? 1 : hash;
+        while(true) {
+            int start = (int) (key ^ (key >>> 32)) & mask;
+            int candidate = -1;
+            long candidateKey = 0;
+            long candidateFullAt = Long.MAX_VALUE;
+
+            for(int probe = 0; probe < PROBES; probe++) {
+                int slot = (start + probe) & mask;
+                long slotKey = keys.get(slot);
+                if(slotKey == key) {
+                    return take(slot, now);
+                }
+                // Prefer an idle slot, otherwise the slot closest to full
+                long slotFullAt = slotKey == 0 ? 0 : fullAt.get(slot);
+                if(slotFullAt < candidateFullAt) {
+                    candidate = slot;
+                    candidateKey = slotKey;
+                    candidateFullAt = slotFullAt;
+                }
+            }
+
+            // Claim the slot for this key, starting with a full bucket
+            // - Another thread may have claimed it first, then the slots are probed again
+            if(keys.compareAndSet(candidate, candidateKey, key)) {
+                fullAt.set(candidate, now);
+                return take(candidate, now);
+            }
+        }
+    }
+
+    private long take(int slot, long now) {
+        while(true) {
+            long current = fullAt.get(slot);
+            long next = Math.max(current, now) + refillNanos;
+            if(next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if(fullAt.compareAndSet(slot, current, next)) {
+                return 0L;
+            }
+        }
+    }
+
+    long now() {
+        // Offset by one, so no bucket in use is ever at time "0"
+        return System.nanoTime() - origin + 1;
+    }
+
+    public int slots() {
+        return keys.length();
+    }
+
+    static long hash(String key) {
+        /*
+            Function to hash a key to 64 bits, with FNV-1a followed by a final mix
+         */
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
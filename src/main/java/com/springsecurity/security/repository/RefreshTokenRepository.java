@@ -0,0 +1,31 @@
+package com.springsecurity.security.repository;
+
+import com.springsecurity.security.entities.RefreshToken;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+    @Modifying
+    @Query("update RefreshToken t set t.used = true where t.id = :id and t.used = false and t.revoked = false")
+    int markUsed(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("update RefreshToken t set t.revoked = true where t.familyId = :familyId")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Query("select t from RefreshToken t where t.familyId = :familyId and t.expiresAt > :now")
+    List<RefreshToken> findLiveByFamily(@Param("familyId") String familyId, @Param("now") Instant now);
+
+    // Ids of expired refresh JWT Tokens, one page at a time, deleted with "deleteAllByIdInBatch"
+    // - Portable JPQL, unlike "delete ... limit" which only MySQL accepts
+    @Query("select t.id from RefreshToken t where t.expiresAt < :now")
+    List<String> findExpiredIds(@Param("now") Instant now, Pageable pageable);
+}
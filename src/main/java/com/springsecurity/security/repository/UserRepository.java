@@ -1,11 +1,25 @@
 package com.springsecurity.security.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import com.springsecurity.security.entities.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmail(String email);
+    List<User> findByEmailIn(Collection<String> emails);
     User findByRole(Enum role);
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password where u.email = :email and u.password = :expectedPassword")
+    int updatePassword(@Param("email") String email, @Param("expectedPassword") String expectedPassword,
+                       @Param("password") String password);
 }
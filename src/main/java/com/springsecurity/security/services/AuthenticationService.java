@@ -7,4 +7,5 @@ public interface AuthenticationService {
     public SignUpResponse signUpRequest(SignUpRequest signUpRequest);
     public JwtAuthenticationResponse signInRequest(SignInRequest signInRequest);
     public JwtAuthenticationResponse refreshToken(RefreshTokenRequest refreshTokenRequest);
+    public BatchRefreshResponse refreshTokens(BatchRefreshRequest batchRefreshRequest);
 }
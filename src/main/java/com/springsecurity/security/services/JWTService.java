@@ -1,5 +1,7 @@
 package com.springsecurity.security.services;
 
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.jwt.TokenFormat;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Map;
@@ -8,6 +10,15 @@ import java.util.Objects;
 public interface JWTService {
     String extractUserName(String token);
     String generateToken(UserDetails userDetails);
+    String generateToken(UserDetails userDetails, TokenFormat tokenFormat);
+    String renewToken(VerifiedToken verifiedToken, UserDetails userDetails);
     boolean isTokenValid(String token, UserDetails userDetails);
     public String generateRefreshedToken(Map<String, Objects> extraClaims, UserDetails userDetails);
+    String generateRefreshedToken(UserDetails userDetails, String tokenId, String familyId, long expiration);
+    VerifiedToken verifyToken(String token);
+    VerifiedToken verifyAccessToken(String token);
+    boolean isTokenValid(VerifiedToken verifiedToken, UserDetails userDetails);
+    void revokeToken(VerifiedToken verifiedToken);
+    void revokeToken(String tokenId, long expiration);
+    void revokeAccessTokens(String subject);
 }
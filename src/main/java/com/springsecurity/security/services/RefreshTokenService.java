@@ -0,0 +1,13 @@
+package com.springsecurity.security.services;
+
+import com.springsecurity.security.dto.VerifiedToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+public interface RefreshTokenService {
+    String issue(UserDetails userDetails);
+    String rotate(VerifiedToken refreshToken, UserDetails userDetails);
+    List<String> rotateAll(List<VerifiedToken> refreshTokens, List<? extends UserDetails> users);
+    void revokeFamily(String familyId);
+}
@@ -0,0 +1,12 @@
+package com.springsecurity.security.services;
+
+import com.springsecurity.security.dto.IntrospectionResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface TokenIntrospectionService {
+    IntrospectionResponse introspect(String token);
+    List<IntrospectionResponse> introspectAll(List<String> tokens);
+    Duration cacheLifetime(List<IntrospectionResponse> introspections);
+}
@@ -0,0 +1,9 @@
+package com.springsecurity.security.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface UserImportService {
+    void importUsers(InputStream rows, OutputStream results) throws IOException;
+}
@@ -1,9 +1,16 @@
 package com.springsecurity.security.services;
 
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
+import java.util.Collection;
+
 public interface UserService {
     UserDetailsService userDetailsService();
     AuthenticationProvider authenticationProvider();
+    void evictUser(String email);
+    void evictNewUsers(Collection<String> emails);
+    User changeRole(String email, Role role);
 }
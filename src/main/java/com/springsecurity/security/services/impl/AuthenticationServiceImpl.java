@@ -1,20 +1,32 @@
 package com.springsecurity.security.services.impl;
 
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.crypto.PasswordHashingRejectedException;
+import com.springsecurity.security.crypto.PasswordRehasher;
 import com.springsecurity.security.dto.*;
 import com.springsecurity.security.entities.Role;
 import com.springsecurity.security.entities.User;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.metrics.AuthTrace;
 import com.springsecurity.security.repository.UserRepository;
 import com.springsecurity.security.services.AuthenticationService;
 import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.RefreshTokenService;
+import com.springsecurity.security.services.UserService;
 import com.springsecurity.security.dto.SignUpResponse;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
@@ -31,6 +43,14 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     private final AuthenticationManager authenticationManager;
     // Instantiate object for JWT Service
     private final JWTService jwtService;
+    // Instantiate object for User Service
+    private final UserService userService;
+    // Instantiate object holding the authentication configuration
+    private final AuthProperties authProperties;
+    // Instantiate object storing and rotating refresh JWT Tokens
+    private final RefreshTokenService refreshTokenService;
+    // Instantiate object rehashing out of date passwords after sign in
+    private final PasswordRehasher passwordRehasher;
 
     public SignUpResponse signUpRequest(SignUpRequest signUpRequest) {
         /*
@@ -56,6 +76,8 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
         // Save details to the database
         userRepository.save(user);
+        // Drop any cached details for this email, so the next lookup reads the saved user
+        userService.evictUser(user.getEmail());
 
         // Create a new sing-up response
         SignUpResponse signUpResponse = new SignUpResponse();
@@ -73,30 +95,39 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     public JwtAuthenticationResponse signInRequest(SignInRequest signInRequest) {
         /*
             Function to validate a Sign In Request and generate JWT token for the user
+            - The password check and token issue are each timed with an "AuthTrace"
+            - The user is looked up once, through the user details cache, by the Authentication Manager
          */
 
+        AuthTrace matchTrace = AuthTrace.passwordMatch();
         try {
             // Use Authentication Manager to validate the user from "Sign In Request"
             // - The Authentication Manager checks using the Authentication Provider if the user exist in database
             // - If the user does not exist, an "Authentication Exception" is thrown here
             // - This "Authentication Exception" is caught by the "catch" block and handled by it
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
+            Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(
                     signInRequest.getEmail(),
                     signInRequest.getPassword()
             ));
+            matchTrace.end("match");
 
             // At this point, the username and password are correct
             // This means that the username and password exist in the database
 
-            // Collect the user details by email using "UserRepository"
-            // - Otherwise, throw Illegal Argument Exception stating that user was not found in database
-            var user = userRepository.findByEmail(signInRequest.getEmail())
-                    .orElseThrow(()-> new IllegalArgumentException("User not found"));
+            // Take the user the password was checked against
+            // - It was loaded through the user details cache, so the database is not queried a second time
+            var user = (User) authentication.getPrincipal();
 
-            // Create JWT Token for the user
-            var jwtToken = jwtService.generateToken(user);
+            // Rehash the password in the background if its hash was made at another BCrypt cost
+            passwordRehasher.rehashIfNeeded(user, signInRequest.getPassword());
+
+            // Create JWT Token for the user, in the format the client asked for
+            AuthTrace signTrace = AuthTrace.tokenSign();
+            var jwtToken = jwtService.generateToken(user, signInRequest.getTokenFormat());
             // Create new JWT refresh Token for the user
-            var refreshToken = jwtService.generateRefreshedToken(new HashMap<>(), user);
+            // - Every sign in starts a new family of refresh JWT Tokens
+            var refreshToken = refreshTokenService.issue(user);
+            signTrace.end("issued");
 
             // Instantiate JWT authentication response
             JwtAuthenticationResponse jwtAuthenticationResponse = new JwtAuthenticationResponse();
@@ -109,6 +140,12 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             return jwtAuthenticationResponse;
         }
         catch (AuthenticationException authenticationException) {
+            // If the password could not be checked because the hashing queue is full, let the client retry later
+            if(authenticationException.getCause() instanceof PasswordHashingRejectedException rejected) {
+                matchTrace.end("rejected");
+                throw rejected;
+            }
+            matchTrace.end("mismatch");
             // Throw exception stating the username or password is incorrect
             throw new IllegalArgumentException("Invalid username or password");
         }
@@ -121,32 +158,55 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             - The Refresh JWT Token is fetched from the HTTP API request
             - Using the Refresh JWT Token, the User details are fetched by User Repository
             - A new JWT Token is generated using the User details
-            - The new JWT Token is sent back as a response to the user
+            - The Refresh JWT Token is used up and the next one of its family is issued
+            - Reusing a Refresh JWT Token revokes its whole family
+            - The new JWT Token and Refresh JWT Token are sent back as a response to the user
          */
 
         // Get token details from Refresh Token Request
         var refreshToken = refreshTokenRequest.getToken();
 
-        // Get user details from the Old JWT Token
-        String userEmail = jwtService.extractUserName(refreshToken);
+        // Verify the Old JWT Token once
+        // - The verified token is reused below, so the JWT Token is not parsed again
+        AuthTrace verifyTrace = AuthTrace.tokenVerify();
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtService.verifyToken(refreshToken);
+        }
+        catch (JwtException | IllegalArgumentException exception) {
+            verifyTrace.end(AuthMetrics.outcomeOf(exception));
+            throw exception;
+        }
+        verifyTrace.end(AuthMetrics.VALID);
+
+        // Get user details from the verified JWT Token
+        String userEmail = verifiedToken.getSubject();
 
         // Get user details from database
         // - Otherwise, throw Illegal Argument Exception stating that user was not found in database
+        AuthTrace userTrace = AuthTrace.userLoad();
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(()-> new IllegalArgumentException("User not found"));
+        userTrace.end("found");
 
         // Check if user is not "null" and if JWT Token is valid
         // - Both these functionalities are in the "isTokenValid" method of "JWT Service"
-        if(jwtService.isTokenValid(refreshToken, user)) {
-            // Create JWT Token for the user
-            var jwtToken = jwtService.generateToken(user);
+        if(jwtService.isTokenValid(verifiedToken, user)) {
+            // Use up the Refresh JWT Token and get the next one
+            // - Throws Illegal Argument Exception if the Refresh JWT Token has been used or revoked
+            AuthTrace signTrace = AuthTrace.tokenSign();
+            var nextRefreshToken = refreshTokenService.rotate(verifiedToken, user);
+
+            // Create JWT Token for the user, in the format the client asked for
+            var jwtToken = jwtService.generateToken(user, refreshTokenRequest.getTokenFormat());
+            signTrace.end("rotated");
 
             // Instantiate JWT authentication response
             JwtAuthenticationResponse jwtAuthenticationResponse = new JwtAuthenticationResponse();
 
             // Send created JWT Token and Refresh JWT Token to JWT Authentication response
             jwtAuthenticationResponse.setToken(jwtToken);
-            jwtAuthenticationResponse.setRefreshToken(refreshToken);
+            jwtAuthenticationResponse.setRefreshToken(nextRefreshToken);
 
             // Return JWT Authentication Response
             return jwtAuthenticationResponse;
@@ -156,4 +216,86 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         // Return "null"
         return null;
     }
+
+    public BatchRefreshResponse refreshTokens(BatchRefreshRequest batchRefreshRequest) {
+        /*
+            Function to refresh many JWT Tokens at once
+            - Every refresh JWT Token is handled like in "refreshToken", but with far fewer round trips
+            - The refresh JWT Tokens are verified in parallel, each one once
+            - The users of all refresh JWT Tokens are fetched with a single database query
+            - All refresh JWT Tokens are rotated in a single transaction
+            - One result is returned per refresh JWT Token, in the order of the request
+            - Throws Illegal Argument Exception if there are more refresh JWT Tokens than allowed
+         */
+        List<String> tokens = batchRefreshRequest.getTokens();
+        if(tokens.size() > authProperties.getBatchRefresh().getMaxTokens()) {
+            throw new IllegalArgumentException("Too many refresh tokens");
+        }
+
+        // Verify every refresh JWT Token, "null" marks a JWT Token which could not be verified
+        List<VerifiedToken> verifiedTokens = tokens.parallelStream()
+                .map(this::verifyOrNull)
+                .toList();
+
+        // Fetch the users of every verified JWT Token with a single query
+        Set<String> emails = verifiedTokens.stream()
+                .filter(Objects::nonNull)
+                .map(VerifiedToken::getSubject)
+                .collect(Collectors.toSet());
+        Map<String, User> users = emails.isEmpty()
+                ? Map.of()
+                : userRepository.findByEmailIn(emails).stream()
+                        .collect(Collectors.toMap(User::getEmail, Function.identity(), (first, second) -> first));
+
+        // Check each verified JWT Token belongs to a known user
+        BatchRefreshResult[] results = new BatchRefreshResult[tokens.size()];
+        List<Integer> accepted = new ArrayList<>();
+        for(int index = 0; index < tokens.size(); index++) {
+            VerifiedToken verifiedToken = verifiedTokens.get(index);
+            User user = verifiedToken == null ? null : users.get(verifiedToken.getSubject());
+            if(verifiedToken == null) {
+                results[index] = new BatchRefreshResult(index, null, null, BatchRefreshResult.Error.INVALID_TOKEN);
+            }
+            else if(user == null) {
+                results[index] = new BatchRefreshResult(index, null, null, BatchRefreshResult.Error.UNKNOWN_USER);
+            }
+            else if(!jwtService.isTokenValid(verifiedToken, user)) {
+                results[index] = new BatchRefreshResult(index, null, null, BatchRefreshResult.Error.REJECTED);
+            }
+            else {
+                accepted.add(index);
+            }
+        }
+
+        // Rotate every accepted Refresh JWT Token in a single transaction
+        List<User> acceptedUsers = accepted.stream()
+                .map(index -> users.get(verifiedTokens.get(index).getSubject()))
+                .toList();
+        List<String> nextRefreshTokens = refreshTokenService.rotateAll(
+                accepted.stream().map(verifiedTokens::get).toList(), acceptedUsers);
+
+        // Create the new JWT Tokens in parallel
+        IntStream.range(0, accepted.size()).parallel().forEach(position -> {
+            int index = accepted.get(position);
+            String nextRefreshToken = nextRefreshTokens.get(position);
+            results[index] = nextRefreshToken == null
+                    ? new BatchRefreshResult(index, null, null, BatchRefreshResult.Error.REJECTED)
+                    : new BatchRefreshResult(index, jwtService.generateToken(acceptedUsers.get(position),
+                            batchRefreshRequest.getTokenFormat()),
+                            nextRefreshToken, null);
+        });
+        return new BatchRefreshResponse(Arrays.asList(results));
+    }
+
+    private VerifiedToken verifyOrNull(String token) {
+        if(token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            return jwtService.verifyToken(token);
+        }
+        catch (JwtException | IllegalArgumentException exception) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package com.springsecurity.security.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+@Component
+public class CachedUserDetailsService implements UserDetailsService {
+    /*
+        Class to fetch user details from database through a cache
+        - The same few users are looked up again and again, by the JWT filter and during sign in
+        - The cache is bounded in size and every entry expires after a time to live
+        - Concurrent lookups of the same email share a single database query
+        - Users which do not exist are not cached
+     */
+
+    // Declare object used to fetch data from database
+    private final UserRepository userRepository;
+
+    // Users by email
+    private final Cache<String, User> cache;
+
+    // Declare object recording authentication metrics
+    private final AuthMetrics authMetrics;
+
+    public CachedUserDetailsService(UserRepository userRepository, AuthProperties authProperties,
+                                    AuthMetrics authMetrics) {
+        this.userRepository = userRepository;
+        this.authMetrics = authMetrics;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(authProperties.getUserCache().getMaximumSize())
+                .expireAfterWrite(authProperties.getUserCache().getTimeToLive())
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        /*
+            Function to fetch user details by email
+            - The database is only queried on a cache miss
+            - Callers asking for the same email while it is being loaded wait for that load instead of querying again
+         */
+        Timer.Sample sample = authMetrics.start();
+        // Set by the loader, so a cache miss can be told apart from a hit
+        boolean[] loaded = new boolean[1];
+        User user = cache.get(username, email -> {
+            loaded[0] = true;
+            return userRepository.findByEmail(email).orElse(null);
+        });
+        authMetrics.userLookup(sample, !loaded[0], user != null);
+        if(user == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return user;
+    }
+
+    public void evict(String email) {
+        /*
+            Function to drop a user from the cache
+            - Must be called whenever a user is saved, so the next lookup reads the new details
+         */
+        cache.invalidate(email);
+    }
+
+    public void evictAll(Collection<String> emails) {
+        /*
+            Function to drop many users from the cache at once
+         */
+        cache.invalidateAll(emails);
+    }
+
+    public void evictAll() {
+        /*
+            Function to drop every user from the cache
+         */
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        /*
+            Function to get the hit, miss and eviction counts of the cache
+         */
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        /*
+            Function to publish the cache size, hit, miss and eviction counts
+         */
+        CaffeineCacheMetrics.monitor(registry, cache, "users");
+    }
+}
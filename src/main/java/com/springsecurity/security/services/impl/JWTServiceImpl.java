@@ -1,19 +1,27 @@
 package com.springsecurity.security.services.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.invalidation.Invalidation;
+import com.springsecurity.security.invalidation.InvalidationBus;
 import com.springsecurity.security.services.JWTService;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import com.springsecurity.security.jwt.*;
+import com.springsecurity.security.metrics.AuthMetrics;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
-import java.util.Date;
+import java.time.Duration;
+import java.util.List;
 import java.util.Objects;
-import java.util.function.Function;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class JWTServiceImpl implements JWTService {
@@ -21,94 +29,310 @@ public class JWTServiceImpl implements JWTService {
         Service to perform JWT related tasks
      */
 
+    // Instantiate object signing and verifying JWT Tokens
+    private final TokenCodec tokenCodec;
+    // Instantiate object caching already verified JWT Tokens
+    private final VerifiedTokenCache verifiedTokenCache;
+    // Instantiate object recording authentication metrics
+    private final AuthMetrics authMetrics;
+    // Instantiate object holding revoked JWT Tokens
+    private final TokenRevocationList tokenRevocationList;
+    // Instantiate object signing and verifying CWT Tokens
+    private final CwtTokenCodec cwtTokenCodec;
+    // Instantiate JWT configuration
+    private final JwtProperties jwtProperties;
+    // Instantiate object telling the other nodes which JWT Tokens have been revoked
+    private final InvalidationBus invalidationBus;
+
+    // Lifetime of an access token, before the jitter is taken off
+    private static final long ACCESS_TOKEN_MILLIS = 1000 * 60 * 24;
+    // Number of users whose access tokens issued on this node are kept track of
+    private static final long MAX_TRACKED_USERS = 100_000;
+
+    // Token ids and expiries of the access tokens issued on this node, by user
+    // - Kept so that the access tokens of a user can be revoked when the role of the user changes
+    // - A user is dropped once the last access token issued to them has expired
+    private final Cache<String, Map<String, Long>> issuedAccessTokens = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(ACCESS_TOKEN_MILLIS))
+            .maximumSize(MAX_TRACKED_USERS)
+            .build();
+
+    public JWTServiceImpl(TokenCodec tokenCodec, VerifiedTokenCache verifiedTokenCache, AuthMetrics authMetrics,
+                          TokenRevocationList tokenRevocationList, CwtTokenCodec cwtTokenCodec,
+                          JwtProperties jwtProperties, InvalidationBus invalidationBus) {
+        this.tokenCodec = tokenCodec;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.authMetrics = authMetrics;
+        this.tokenRevocationList = tokenRevocationList;
+        this.cwtTokenCodec = cwtTokenCodec;
+        this.jwtProperties = jwtProperties;
+        this.invalidationBus = invalidationBus;
+
+        // Revoke JWT Tokens revoked on other nodes on this node too
+        invalidationBus.subscribe(Invalidation.Type.TOKEN,
+                invalidation -> tokenRevocationList.revoke(invalidation.getKey(), invalidation.getExpiresAt()));
+        // Revoke the access tokens this node issued to a user whose access tokens were revoked on another node
+        invalidationBus.subscribe(Invalidation.Type.USER_TOKENS,
+                invalidation -> revokeIssuedAccessTokens(invalidation.getKey()));
+    }
+
     // Defining methods to generate JWT Token
 
-    private Key getSignKey() {
+    public String generateToken(UserDetails userDetails) {
         /*
-            Function to generate Signing Key
+            Function to generate Token
+            - The JWT Token created is valid for 24 minutes, less a random jitter
+            - The JWT Token is signed with the active key of the key ring
+            - The user id and roles are embedded, so the user can be authorized without a database lookup
+            - A random token id is embedded, so the JWT Token can be revoked before it expires
          */
-        byte[] key = Decoders.BASE64.decode("413F4428472B4B6250655368566D5970337336763979244226452948404D6351");
-        return Keys.hmacShaKeyFor(key);
+        return generateToken(userDetails, TokenFormat.JWT);
     }
 
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(UserDetails userDetails, TokenFormat tokenFormat) {
         /*
-            Function to generate Token
-            - The JWT Token created is valid for a day
+            Function to generate Token in the format a client asked for
+            - The claims are the same in both formats, only their encoding differs
+            - A "null" format gives a JWT Token
+            - The time of sign in is embedded, so renewals can be bounded by the age of the session
          */
-        return Jwts.builder()
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return generateAccessToken(userDetails, tokenFormat, System.currentTimeMillis());
+    }
+
+    public String renewToken(VerifiedToken verifiedToken, UserDetails userDetails) {
+        /*
+            Function to generate a new access Token in place of one which is about to expire
+            - The new Token keeps the format and the time of sign in of the old one
+            - The old Token is not revoked, it stays valid until it expires
+         */
+        TokenFormat tokenFormat = CwtTokenCodec.isCwt(verifiedToken.getToken()) ? TokenFormat.CWT : TokenFormat.JWT;
+        return generateAccessToken(userDetails, tokenFormat, verifiedToken.getAuthTime());
+    }
+
+    private String generateAccessToken(UserDetails userDetails, TokenFormat tokenFormat, long authTime) {
+        /*
+            Function to sign an access Token
+            - A random jitter up to "jwt.expiry-jitter" is taken off the lifetime
+            - Access tokens issued in a burst therefore do not all expire, and get renewed, in the same second
+         */
+        Timer.Sample sample = authMetrics.start();
+        long now = System.currentTimeMillis();
+        long jitter = jwtProperties.getExpiryJitter().toMillis();
+        TokenClaims claims = TokenClaims.builder()
+                .subject(userDetails.getUsername())
+                .userId(extractUserId(userDetails))
+                .roles(extractRoles(userDetails))
+                .tokenId(TokenIds.newId())
+                .authTime(authTime)
+                .issuedAt(now)
+                .expiration(now + ACCESS_TOKEN_MILLIS - (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0))
+                .build();
+        String token = tokenFormat == TokenFormat.CWT ? cwtTokenCodec.encode(claims) : tokenCodec.encode(claims);
+        trackIssuedAccessToken(claims, now);
+        authMetrics.tokenGenerated(sample, "access");
+        return token;
+    }
+
+    private void trackIssuedAccessToken(TokenClaims claims, long now) {
+        /*
+            Function to remember the token id of an access token issued on this node
+            - Token ids which have expired are dropped at the same time, so the entry of a user stays small
+         */
+        issuedAccessTokens.asMap().compute(claims.getSubject(), (subject, tokens) -> {
+            Map<String, Long> live = tokens == null ? new ConcurrentHashMap<>() : tokens;
+            live.values().removeIf(expiresAt -> expiresAt <= now);
+            live.put(claims.getTokenId(), claims.getExpiration());
+            return live;
+        });
     }
 
     public String generateRefreshedToken(Map<String, Objects> extraClaims, UserDetails userDetails) {
         /*
             Function to generate refreshed Token
             - Refreshed token is valid for 7 days
+            - The JWT Token is signed with the active key of the key ring
          */
-        return Jwts.builder()
-                .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 24 * 7))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
-                .compact();
+        Timer.Sample sample = authMetrics.start();
+        long now = System.currentTimeMillis();
+        String token = tokenCodec.encode(TokenClaims.builder()
+                .extraClaims(extraClaims)
+                .subject(userDetails.getUsername())
+                .issuedAt(now)
+                .expiration(now + 1000 * 60 * 24 * 7)
+                .build());
+        authMetrics.tokenGenerated(sample, "refresh");
+        return token;
+    }
+
+    public String generateRefreshedToken(UserDetails userDetails, String tokenId, String familyId, long expiration) {
+        /*
+            Function to generate a refresh Token which is tracked by the refresh token store
+            - The token id and family id are embedded, so the refresh Token can be rotated and revoked
+            - The expiry is set by the caller, to match the stored refresh Token
+         */
+        Timer.Sample sample = authMetrics.start();
+        String token = tokenCodec.encode(TokenClaims.builder()
+                .subject(userDetails.getUsername())
+                .tokenId(tokenId)
+                .familyId(familyId)
+                .issuedAt(System.currentTimeMillis())
+                .expiration(expiration)
+                .build());
+        authMetrics.tokenGenerated(sample, "refresh");
+        return token;
+    }
+
+    private Integer extractUserId(UserDetails userDetails) {
+        /*
+            Function to get the id of the user a JWT Token is issued to
+            - Returns "null" if the user details do not carry an id
+         */
+        if(userDetails instanceof User user) {
+            return user.getId();
+        }
+        if(userDetails instanceof TokenPrincipal tokenPrincipal) {
+            return tokenPrincipal.getUserId();
+        }
+        return null;
+    }
+
+    private List<String> extractRoles(UserDetails userDetails) {
+        /*
+            Function to get the roles of the user a JWT Token is issued to
+         */
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
     }
 
     // Defining methods to extract Claims from JWT Tokens in HTTP Response
 
-    private Claims extractAllClaims(String token) {
+    public VerifiedToken verifyToken(String token) {
         /*
-            Function to extract all Claims from JWT Token
-            - Function checks if the JWT Token has not been tampered with
-            - This is done by computing the signature from the Header + Payload
-            - This computed signature is compared with the signature provided in the JWT Token
-            - If both signatures match, the request is processed
-            - Otherwise, the function throws an error
+            Function to verify a JWT Token exactly once
+            - The signature is checked and the payload is decoded a single time
+            - The result is an immutable "VerifiedToken" which can be reused by callers
+            - If the JWT Token has been tampered with or has expired, the function throws a "JwtException"
+            - JWT Tokens verified before are served from the cache without checking the signature again
+            - Revoked JWT Tokens are rejected with a "RevokedJwtException", whether they were cached or not
+            - CWT Tokens are recognized by their shape and verified by "CwtTokenCodec", with the same checks
          */
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Timer.Sample sample = authMetrics.start();
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if(cached != null) {
+            checkNotRevoked(sample, cached, true);
+            authMetrics.tokenVerified(sample, AuthMetrics.VALID, true);
+            return cached;
+        }
+
+        // Check the signature and decode the claims
+        // - If the JWT Token has been tampered with, the codec throws an error
+        final VerifiedToken verifiedToken;
+        try {
+            verifiedToken = CwtTokenCodec.isCwt(token) ? cwtTokenCodec.decode(token) : tokenCodec.decode(token);
+        }
+        catch (RuntimeException exception) {
+            authMetrics.tokenVerified(sample, AuthMetrics.outcomeOf(exception), false);
+            throw exception;
+        }
+        verifiedTokenCache.put(verifiedToken);
+        checkNotRevoked(sample, verifiedToken, false);
+        authMetrics.tokenVerified(sample, AuthMetrics.VALID, false);
+        return verifiedToken;
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolvers) {
+    public VerifiedToken verifyAccessToken(String token) {
         /*
-            Function to extract a particular Claim from JWT Token
+            Function to verify a JWT Token presented as a bearer access token
+            - Checks everything "verifyToken" does
+            - Refresh JWT Tokens carry a family id, they are rejected with an "UnsupportedJwtException"
+            - Otherwise a refresh JWT Token, which lives for days, could be used in place of a short lived access token
          */
-        final Claims claims = extractAllClaims(token);
-        return claimsResolvers.apply(claims);
+        VerifiedToken verifiedToken = verifyToken(token);
+        if(verifiedToken.getFamilyId() != null) {
+            throw new UnsupportedJwtException("Refresh tokens cannot be used as access tokens");
+        }
+        return verifiedToken;
     }
 
-    public String extractUserName(String token) {
+    private void checkNotRevoked(Timer.Sample sample, VerifiedToken verifiedToken, boolean cached) {
+        if(tokenRevocationList.isRevoked(verifiedToken)) {
+            authMetrics.tokenVerified(sample, AuthMetrics.REVOKED, cached);
+            throw new RevokedJwtException("JWT has been revoked");
+        }
+    }
+
+    public void revokeToken(VerifiedToken verifiedToken) {
         /*
-            Function to extract username from token
-            - This function is intended to be use 'extractClaim' method to extract username
+            Function to revoke a verified JWT Token until it expires
+            - Throws Illegal Argument Exception if the JWT Token has no token id
+            - The revocation applies on this node at once, and on the other nodes within the propagation lag
+         */
+        if(verifiedToken.getTokenId() == null) {
+            throw new IllegalArgumentException("Token cannot be revoked");
+        }
+        revokeToken(verifiedToken.getTokenId(), verifiedToken.getExpiration());
+    }
+
+    public void revokeToken(String tokenId, long expiration) {
+        /*
+            Function to revoke a JWT Token by its token id, without the JWT Token itself
+            - Used for JWT Tokens which are known from the database only, such as the refresh JWT Tokens of a family
          */
-        return extractClaim(token, Claims::getSubject);
+        tokenRevocationList.revoke(tokenId, expiration);
+        invalidationBus.publish(Invalidation.Type.TOKEN, tokenId, expiration);
     }
 
-    private boolean isTokenExpired(String token) {
+    public void revokeAccessTokens(String subject) {
         /*
-            Function to check if the token has expired
+            Function to revoke every access token of a user which has not expired yet
+            - Used when the role of the user changes, so no access token keeps carrying the old role
+            - This node revokes the access tokens it issued, the other nodes are told to revoke the ones they issued
+            - Refresh JWT Tokens are left alone, the access tokens they give out carry the new role
          */
-        // Check and return if expiration date is less than current date
-        // - If expiration date is before the current date, then the function will return True
-        // - This means that the JWT Token has expired
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+        revokeIssuedAccessTokens(subject);
+        invalidationBus.publish(Invalidation.Type.USER_TOKENS, subject, System.currentTimeMillis() + ACCESS_TOKEN_MILLIS);
+    }
+
+    private void revokeIssuedAccessTokens(String subject) {
+        /*
+            Function to revoke the access tokens of a user which were issued on this node
+            - Each token id is revoked through "revokeToken", so every node learns it
+         */
+        Map<String, Long> tokens = issuedAccessTokens.asMap().remove(subject);
+        if(tokens == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        tokens.forEach((tokenId, expiresAt) -> {
+            if(expiresAt > now) {
+                revokeToken(tokenId, expiresAt);
+            }
+        });
+    }
+
+    public String extractUserName(String token) {
+        /*
+            Function to extract username from token
+            - This function is intended to be use 'verifyToken' method to extract username
+         */
+        return verifyToken(token).getSubject();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         /*
             Function to check if token is valid and is issued to a particular user
          */
-        // Extract username from token
-        final String username = extractUserName(token);
+        return isTokenValid(verifyToken(token), userDetails);
+    }
+
+    public boolean isTokenValid(VerifiedToken verifiedToken, UserDetails userDetails) {
+        /*
+            Function to check if an already verified token is issued to a particular user
+            - No further signature check is done here, the token has been verified by 'verifyToken'
+         */
         // Check and return if token is valid and is issued to a particular user
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        // - If expiration date is before the current date, then the token has expired
+        return (verifiedToken.getSubject().equals(userDetails.getUsername()) && !verifiedToken.isExpired());
     }
 }
@@ -0,0 +1,293 @@
+package com.springsecurity.security.services.impl;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.entities.RefreshToken;
+import com.springsecurity.security.invalidation.Invalidation;
+import com.springsecurity.security.invalidation.InvalidationBus;
+import com.springsecurity.security.jwt.RefreshTokenIndex;
+import com.springsecurity.security.jwt.TokenIds;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.repository.RefreshTokenRepository;
+import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.RefreshTokenService;
+import io.micrometer.core.instrument.Gauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService, DisposableBean {
+    /*
+        Service to issue, rotate and revoke refresh JWT Tokens
+        - Every sign in starts a family, every refresh uses up its refresh JWT Token and issues the next one of the family
+        - Using a refresh JWT Token a second time means it has leaked, so its whole family is revoked
+        - Lookups go through the in-memory "RefreshTokenIndex", the database is only read on a miss
+        - The database decides which of two nodes used a refresh JWT Token first, through a conditional update
+        - Expired refresh JWT Tokens are purged in the background, in batches, never on the request path
+     */
+
+    // Outcomes of rotating a refresh JWT Token
+    private static final String ROTATED = "rotated";
+    private static final String REUSED = "reused";
+    private static final String REVOKED = "revoked";
+    private static final String UNKNOWN = "unknown";
+
+    // Declare object storing refresh JWT Tokens in the database
+    private final RefreshTokenRepository refreshTokenRepository;
+    // Declare object indexing refresh JWT Tokens in memory
+    private final RefreshTokenIndex refreshTokenIndex;
+    // Declare object signing refresh JWT Tokens
+    private final JWTService jwtService;
+    // Declare object recording authentication metrics
+    private final AuthMetrics authMetrics;
+    // Declare object running database work in a transaction
+    private final TransactionTemplate transactionTemplate;
+    // Declare object telling the other nodes which families have been revoked
+    private final InvalidationBus invalidationBus;
+
+    private final AuthProperties.RefreshTokens settings;
+    private final ScheduledExecutorService purger;
+
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, RefreshTokenIndex refreshTokenIndex,
+                                   JWTService jwtService, AuthMetrics authMetrics,
+                                   TransactionTemplate transactionTemplate, AuthProperties authProperties,
+                                   InvalidationBus invalidationBus) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenIndex = refreshTokenIndex;
+        this.jwtService = jwtService;
+        this.authMetrics = authMetrics;
+        this.transactionTemplate = transactionTemplate;
+        this.settings = authProperties.getRefreshTokens();
+        this.invalidationBus = invalidationBus;
+
+        // Reject families revoked on other nodes in the index of this node too
+        // - The database is already up to date, only the in-memory index can be stale
+        invalidationBus.subscribe(Invalidation.Type.TOKEN_FAMILY,
+                invalidation -> refreshTokenIndex.revokeFamily(invalidation.getKey(), invalidation.getExpiresAt()));
+
+        Gauge.builder("auth.refresh.index.size", refreshTokenIndex, RefreshTokenIndex::size)
+                .description("Refresh JWT Tokens held in the in-memory index")
+                .register(authMetrics.registry());
+
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "refresh-token-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getPurgeInterval().toMillis();
+        purger.scheduleWithFixedDelay(this::purgeExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String issue(UserDetails userDetails) {
+        /*
+            Function to issue the first refresh JWT Token of a new family, on sign in
+         */
+        RefreshToken refreshToken = newRefreshToken(userDetails, TokenIds.newId());
+        refreshTokenRepository.save(refreshToken);
+        return index(refreshToken, userDetails);
+    }
+
+    @Override
+    public String rotate(VerifiedToken refreshToken, UserDetails userDetails) {
+        /*
+            Function to use up a refresh JWT Token and issue the next one of its family
+            - Throws Illegal Argument Exception if the refresh JWT Token is unknown, used or revoked
+         */
+        String rotated = rotateAll(List.of(refreshToken), List.of(userDetails)).get(0);
+        if(rotated == null) {
+            throw new IllegalArgumentException("Invalid refresh token");
+        }
+        return rotated;
+    }
+
+    @Override
+    public List<String> rotateAll(List<VerifiedToken> refreshTokens, List<? extends UserDetails> users) {
+        /*
+            Function to rotate many refresh JWT Tokens at once
+            - Refresh JWT Tokens missing from the index are read from the database with a single query
+            - All of them are used up and their successors saved in a single transaction
+            - Returns the next refresh JWT Token of each, or "null" for those which cannot be rotated
+         */
+        int count = refreshTokens.size();
+        RefreshTokenIndex.Entry[] entries = new RefreshTokenIndex.Entry[count];
+
+        // Look up every refresh JWT Token in the index, then read the missing ones from the database
+        Set<String> missing = new HashSet<>();
+        for(int i = 0; i < count; i++) {
+            String tokenId = refreshTokens.get(i).getTokenId();
+            if(tokenId != null) {
+                entries[i] = refreshTokenIndex.get(tokenId);
+                if(entries[i] == null) {
+                    missing.add(tokenId);
+                }
+            }
+        }
+        Map<String, RefreshTokenIndex.Entry> loaded = new HashMap<>();
+        if(!missing.isEmpty()) {
+            for(RefreshToken stored : refreshTokenRepository.findAllById(missing)) {
+                int state = stored.isRevoked() ? RefreshTokenIndex.REVOKED
+                        : stored.isUsed() ? RefreshTokenIndex.USED : RefreshTokenIndex.ACTIVE;
+                loaded.put(stored.getId(), refreshTokenIndex.put(
+                        stored.getId(), stored.getFamilyId(), stored.getExpiresAt().toEpochMilli(), state));
+            }
+        }
+
+        // Use up each refresh JWT Token in memory, only one caller can use an entry
+        boolean[] accepted = new boolean[count];
+        for(int i = 0; i < count; i++) {
+            VerifiedToken refreshToken = refreshTokens.get(i);
+            RefreshTokenIndex.Entry entry = entries[i] != null ? entries[i] : loaded.get(refreshToken.getTokenId());
+            entries[i] = entry;
+            if(entry == null || !entry.getFamilyId().equals(refreshToken.getFamilyId())) {
+                authMetrics.refreshRotated(UNKNOWN);
+            }
+            else if(entry.getState() == RefreshTokenIndex.REVOKED || refreshTokenIndex.isFamilyRevoked(entry.getFamilyId())) {
+                authMetrics.refreshRotated(REVOKED);
+            }
+            else if(!entry.markUsed()) {
+                // The refresh JWT Token has been used before, it has leaked
+                revokeFamily(entry.getFamilyId());
+                authMetrics.refreshRotated(REUSED);
+            }
+            else {
+                accepted[i] = true;
+            }
+        }
+
+        // Use up the accepted refresh JWT Tokens in the database and save their successors
+        // - If the transaction fails, the entries used in memory are given back
+        // - Otherwise the client retrying after a database error would be taken for a reuse, and its family revoked
+        RefreshToken[] successors = new RefreshToken[count];
+        List<String> reusedFamilies = new ArrayList<>();
+        boolean anyAccepted = false;
+        for(boolean isAccepted : accepted) {
+            anyAccepted |= isAccepted;
+        }
+        if(anyAccepted) {
+            boolean[] usedInMemory = accepted.clone();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    List<RefreshToken> saved = new ArrayList<>();
+                    for(int i = 0; i < count; i++) {
+                        if(!accepted[i]) {
+                            continue;
+                        }
+                        VerifiedToken refreshToken = refreshTokens.get(i);
+                        // Another node used this refresh JWT Token first
+                        if(refreshTokenRepository.markUsed(refreshToken.getTokenId()) == 0) {
+                            accepted[i] = false;
+                            reusedFamilies.add(refreshToken.getFamilyId());
+                            continue;
+                        }
+                        successors[i] = newRefreshToken(users.get(i), refreshToken.getFamilyId());
+                        saved.add(successors[i]);
+                    }
+                    refreshTokenRepository.saveAll(saved);
+                });
+            }
+            catch (RuntimeException exception) {
+                for(int i = 0; i < count; i++) {
+                    if(usedInMemory[i]) {
+                        entries[i].cancelUse();
+                    }
+                }
+                throw exception;
+            }
+        }
+        for(String familyId : reusedFamilies) {
+            revokeFamily(familyId);
+            authMetrics.refreshRotated(REUSED);
+        }
+
+        List<String> rotated = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            if(accepted[i]) {
+                rotated.add(index(successors[i], users.get(i)));
+                authMetrics.refreshRotated(ROTATED);
+            }
+            else {
+                rotated.add(null);
+            }
+        }
+        return rotated;
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        /*
+            Function to revoke every refresh JWT Token of a family
+            - The family is rejected in memory straight away, then marked revoked in the database
+            - The token id of each refresh JWT Token of the family which has not expired is revoked as well
+            - So they fail verification everywhere, introspection included, not only when they are rotated
+            - The other nodes are told last, so their index is never ahead of the database
+         */
+        long until = System.currentTimeMillis() + settings.getTimeToLive().toMillis();
+        refreshTokenIndex.revokeFamily(familyId, until);
+        refreshTokenRepository.revokeFamily(familyId);
+        for(RefreshToken refreshToken : refreshTokenRepository.findLiveByFamily(familyId, Instant.now())) {
+            jwtService.revokeToken(refreshToken.getId(), refreshToken.getExpiresAt().toEpochMilli());
+        }
+        invalidationBus.publish(Invalidation.Type.TOKEN_FAMILY, familyId, until);
+    }
+
+    private RefreshToken newRefreshToken(UserDetails userDetails, String familyId) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setId(TokenIds.newId());
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setEmail(userDetails.getUsername());
+        refreshToken.setExpiresAt(Instant.now().plus(settings.getTimeToLive()));
+        return refreshToken;
+    }
+
+    private String index(RefreshToken refreshToken, UserDetails userDetails) {
+        /*
+            Function to index a saved refresh JWT Token and sign it
+         */
+        long expiresAt = refreshToken.getExpiresAt().toEpochMilli();
+        refreshTokenIndex.put(refreshToken.getId(), refreshToken.getFamilyId(), expiresAt, RefreshTokenIndex.ACTIVE);
+        return jwtService.generateRefreshedToken(userDetails, refreshToken.getId(), refreshToken.getFamilyId(), expiresAt);
+    }
+
+    void purgeExpired() {
+        /*
+            Function to drop expired refresh JWT Tokens from the index and the database
+            - Rows are deleted in batches, so no single statement holds locks on millions of rows
+            - Each batch reads the ids of a page of expired rows and deletes them by id, which works on every database
+         */
+        try {
+            long now = System.currentTimeMillis();
+            int purged = refreshTokenIndex.purgeExpired(now);
+            long deleted = 0;
+            List<String> batch;
+            do {
+                batch = refreshTokenRepository.findExpiredIds(Instant.ofEpochMilli(now),
+                        PageRequest.of(0, settings.getPurgeBatchSize()));
+                if(!batch.isEmpty()) {
+                    refreshTokenRepository.deleteAllByIdInBatch(batch);
+                }
+                deleted += batch.size();
+            } while(batch.size() == settings.getPurgeBatchSize());
+            log.debug("Purged {} refresh tokens from the index and {} from the database", purged, deleted);
+        }
+        catch (RuntimeException exception) {
+            log.warn("Could not purge expired refresh tokens", exception);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        purger.shutdownNow();
+    }
+}
@@ -0,0 +1,100 @@
+package com.springsecurity.security.services.impl;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.dto.IntrospectionResponse;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.TokenIntrospectionService;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.PrematureJwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class TokenIntrospectionServiceImpl implements TokenIntrospectionService {
+    /*
+        Service to introspect JWT Tokens on behalf of services which cannot verify them themselves
+        - A JWT Token is active when its signature, validity period and revocation status all check out
+        - This is the same check "JwtAuthenticationFilter" runs on every request, through "JWTService.verifyToken"
+        - The database is never read, so introspection stays cheap enough to call per request
+     */
+
+    // Instantiate object for JWT Service
+    private final JWTService jwtService;
+    // Instantiate object holding the authentication configuration
+    private final AuthProperties authProperties;
+
+    @Override
+    public IntrospectionResponse introspect(String token) {
+        /*
+            Function to introspect a single JWT Token
+            - Invalid, expired and revoked JWT Tokens all give the same inactive response, as required by RFC 7662
+            - A JWT Token used before its "nbf" is inactive as well, but is marked so that it is not cached
+         */
+        if(token == null || token.isEmpty()) {
+            return IntrospectionResponse.inactive();
+        }
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtService.verifyToken(token);
+        }
+        catch (PrematureJwtException exception) {
+            return IntrospectionResponse.notYetValid();
+        }
+        catch (JwtException | IllegalArgumentException exception) {
+            return IntrospectionResponse.inactive();
+        }
+
+        IntrospectionResponse introspection = new IntrospectionResponse();
+        introspection.setActive(true);
+        introspection.setSub(verifiedToken.getSubject());
+        introspection.setUsername(verifiedToken.getSubject());
+        introspection.setRoles(verifiedToken.getRoles());
+        introspection.setExp(verifiedToken.getExpiration() == Long.MAX_VALUE ? null : verifiedToken.getExpiration() / 1000);
+        introspection.setIat(verifiedToken.getIssuedAt() == 0L ? null : verifiedToken.getIssuedAt() / 1000);
+        introspection.setJti(verifiedToken.getTokenId());
+        introspection.setTokenType(verifiedToken.getFamilyId() == null ? "access_token" : "refresh_token");
+        return introspection;
+    }
+
+    @Override
+    public List<IntrospectionResponse> introspectAll(List<String> tokens) {
+        /*
+            Function to introspect many JWT Tokens at once
+            - The JWT Tokens are verified in parallel, one result is returned per JWT Token in the order of the request
+            - Throws Illegal Argument Exception if there are more JWT Tokens than allowed
+         */
+        if(tokens.size() > authProperties.getIntrospection().getMaxTokens()) {
+            throw new IllegalArgumentException("Too many tokens");
+        }
+        return tokens.parallelStream()
+                .map(this::introspect)
+                .toList();
+    }
+
+    @Override
+    public Duration cacheLifetime(List<IntrospectionResponse> introspections) {
+        /*
+            Function to get how long the introspection of the given JWT Tokens may be cached
+            - Never longer than the configured maximum age, which bounds how late a revocation is noticed
+            - Never longer than the remaining lifetime of an active JWT Token, so it is never cached as active once expired
+            - An invalid, expired or revoked JWT Token never becomes active again, it is cached for the maximum age
+            - A JWT Token used before its "nbf" becomes active later, so a response holding one is not cached at all
+         */
+        long lifetime = authProperties.getIntrospection().getMaxAge().toMillis();
+        long now = System.currentTimeMillis();
+        for(IntrospectionResponse introspection : introspections) {
+            if(introspection.isNotYetValid()) {
+                return Duration.ZERO;
+            }
+            if(introspection.isActive() && introspection.getExp() != null) {
+                lifetime = Math.min(lifetime, introspection.getExp() * 1000 - now);
+            }
+        }
+        return Duration.ofMillis(Math.max(0L, lifetime));
+    }
+}
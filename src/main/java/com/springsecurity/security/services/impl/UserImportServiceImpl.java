@@ -0,0 +1,235 @@
+package com.springsecurity.security.services.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.crypto.OffloadingPasswordEncoder;
+import com.springsecurity.security.crypto.PasswordHashingRejectedException;
+import com.springsecurity.security.dto.UserImportResult;
+import com.springsecurity.security.dto.UserImportRow;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.repository.UserRepository;
+import com.springsecurity.security.services.UserImportService;
+import com.springsecurity.security.services.UserService;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+@Service
+public class UserImportServiceImpl implements UserImportService {
+    /*
+        Service to create many users from one streamed request
+        - Rows are read one at a time from the request body, either one JSON object per line or a JSON array
+        - Rows are handled in batches: validated, checked against existing emails, hashed in parallel and inserted
+        - Inserts go through "JdbcTemplate.batchUpdate", so each batch is sent to the database as one batch
+        - With "rewriteBatchedStatements" the MySQL driver sends each batch as a single multi-row insert
+        - The result of every row is written back and flushed once its batch is done
+        - Only one batch is held in memory at a time, whatever the size of the import
+     */
+
+    private static final String INSERT_USER =
+            "insert into user (firstname, secondname, email, password, role) values (?, ?, ?, ?, ?)";
+
+    // Declare object used to insert users in batches
+    private final JdbcTemplate jdbcTemplate;
+    // Declare object used to find emails which are already taken
+    private final UserRepository userRepository;
+    // Declare object used to hash passwords in parallel
+    private final OffloadingPasswordEncoder passwordEncoder;
+    // Declare object used to evict imported users from the user details cache
+    private final UserService userService;
+
+    private final ObjectReader rowReader;
+    private final ObjectWriter resultWriter;
+    private final int batchSize;
+    private final int hashingParallelism;
+
+    public UserImportServiceImpl(JdbcTemplate jdbcTemplate, UserRepository userRepository,
+                                 OffloadingPasswordEncoder passwordEncoder, UserService userService,
+                                 ObjectMapper objectMapper, AuthProperties authProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.userService = userService;
+        this.rowReader = objectMapper.readerFor(UserImportRow.class);
+        this.resultWriter = objectMapper.writerFor(UserImportResult.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        AuthProperties.BulkImport bulkImport = authProperties.getBulkImport();
+        this.batchSize = Math.max(1, bulkImport.getBatchSize());
+        this.hashingParallelism = bulkImport.getHashingParallelism() > 0
+                ? bulkImport.getHashingParallelism()
+                : Math.max(1, passwordEncoder.threads() / 2);
+    }
+
+    @Override
+    public void importUsers(InputStream rows, OutputStream results) throws IOException {
+        /*
+            Function to import every user of the request body
+            - Batches already inserted stay inserted if a later row cannot be read
+            - A row which is not valid JSON ends the import with a "FAILED" result for that row
+         */
+        List<UserImportRow> batch = new ArrayList<>(batchSize);
+        long firstRow = 1;
+
+        try (JsonParser parser = rowReader.createParser(rows)) {
+            JsonToken token = parser.nextToken();
+            // Rows can also be sent as a single JSON array
+            boolean array = token == JsonToken.START_ARRAY;
+            if(array) {
+                token = parser.nextToken();
+            }
+
+            while(token != null && !(array && token == JsonToken.END_ARRAY)) {
+                if(token != JsonToken.START_OBJECT) {
+                    failRow(batch, firstRow, results);
+                    return;
+                }
+                batch.add(rowReader.readValue(parser));
+                if(batch.size() == batchSize) {
+                    importBatch(batch, firstRow, results);
+                    firstRow += batch.size();
+                    batch.clear();
+                }
+                token = parser.nextToken();
+            }
+        }
+        catch (JsonProcessingException exception) {
+            failRow(batch, firstRow, results);
+            return;
+        }
+
+        importBatch(batch, firstRow, results);
+        results.flush();
+    }
+
+    private void failRow(List<UserImportRow> batch, long firstRow, OutputStream results) throws IOException {
+        /*
+            Function to end the import at a row which could not be read
+            - The rows read before it are still imported
+         */
+        importBatch(batch, firstRow, results);
+        write(results, new UserImportResult(firstRow + batch.size(), null,
+                UserImportResult.Status.FAILED, "Row is not a valid user"));
+        results.flush();
+    }
+
+    private void importBatch(List<UserImportRow> batch, long firstRow, OutputStream results) throws IOException {
+        /*
+            Function to validate, hash and insert one batch of users
+            - Rows with a missing email or password are "INVALID"
+            - Rows whose email is already taken, or repeated within the batch, are "DUPLICATE"
+            - If the insert fails, every row of the batch is "FAILED"
+         */
+        if(batch.isEmpty()) {
+            return;
+        }
+        UserImportResult[] outcomes = new UserImportResult[batch.size()];
+
+        // Find which emails of the batch already exist with a single query
+        Set<String> emails = new HashSet<>();
+        for(UserImportRow row : batch) {
+            if(isValid(row)) {
+                emails.add(row.getEmail());
+            }
+        }
+        Set<String> taken = emails.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(userRepository.findExistingEmails(emails));
+
+        // Keep the rows to insert, the others get their result straight away
+        List<Integer> accepted = new ArrayList<>(batch.size());
+        for(int index = 0; index < batch.size(); index++) {
+            UserImportRow row = batch.get(index);
+            long rowNumber = firstRow + index;
+            if(!isValid(row)) {
+                outcomes[index] = new UserImportResult(rowNumber, row.getEmail(),
+                        UserImportResult.Status.INVALID, "Email and password are required");
+            }
+            else if(!taken.add(row.getEmail())) {
+                outcomes[index] = new UserImportResult(rowNumber, row.getEmail(),
+                        UserImportResult.Status.DUPLICATE, "Email is already taken");
+            }
+            else {
+                accepted.add(index);
+            }
+        }
+
+        if(!accepted.isEmpty()) {
+            // Hash the passwords of the batch in parallel on the password hashing executor
+            // - If the hashing queue is full, the batch fails instead of hashing on this thread, its rows can be sent again
+            List<String> rawPasswords = accepted.stream().map(index -> batch.get(index).getPassword()).toList();
+            UserImportResult.Status status = UserImportResult.Status.CREATED;
+            String message = null;
+            List<String> encodedPasswords = null;
+            try {
+                encodedPasswords = passwordEncoder.encodeAll(rawPasswords, hashingParallelism);
+            }
+            catch (PasswordHashingRejectedException exception) {
+                status = UserImportResult.Status.FAILED;
+                message = "Password hashing is busy, retry later";
+            }
+
+            if(encodedPasswords != null) {
+                List<Object[]> arguments = new ArrayList<>(accepted.size());
+                for(int position = 0; position < accepted.size(); position++) {
+                    UserImportRow row = batch.get(accepted.get(position));
+                    Role role = row.getRole() != null ? row.getRole() : Role.USER;
+                    arguments.add(new Object[] {
+                            row.getFirstName(), row.getLastName(), row.getEmail(),
+                            encodedPasswords.get(position), role.ordinal()
+                    });
+                }
+
+                try {
+                    jdbcTemplate.batchUpdate(INSERT_USER, arguments);
+                }
+                catch (DataAccessException exception) {
+                    status = UserImportResult.Status.FAILED;
+                    message = "Batch could not be inserted";
+                }
+            }
+
+            List<String> created = new ArrayList<>(accepted.size());
+            for(int index : accepted) {
+                UserImportRow row = batch.get(index);
+                outcomes[index] = new UserImportResult(firstRow + index, row.getEmail(), status, message);
+                if(status == UserImportResult.Status.CREATED) {
+                    created.add(row.getEmail());
+                }
+            }
+            // Drop any cached details for the new users with one call per batch, nothing is sent to the other nodes
+            if(!created.isEmpty()) {
+                userService.evictNewUsers(created);
+            }
+        }
+
+        for(UserImportResult outcome : outcomes) {
+            write(results, outcome);
+        }
+        // Send the results of the batch to the client before reading the next one
+        results.flush();
+    }
+
+    private void write(OutputStream results, UserImportResult result) throws IOException {
+        resultWriter.writeValue(results, result);
+        results.write('\n');
+    }
+
+    private static boolean isValid(UserImportRow row) {
+        return row.getEmail() != null && !row.getEmail().isBlank()
+                && row.getPassword() != null && !row.getPassword().isEmpty();
+    }
+}
@@ -1,22 +1,28 @@
 package com.springsecurity.security.services.impl;
 
+import com.springsecurity.security.crypto.BCryptCostCalibrator;
+import com.springsecurity.security.crypto.OffloadingPasswordEncoder;
+import com.springsecurity.security.crypto.PasswordHashingExecutor;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.invalidation.Invalidation;
+import com.springsecurity.security.invalidation.InvalidationBus;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.metrics.InstrumentedPasswordEncoder;
 import com.springsecurity.security.repository.UserRepository;
+import com.springsecurity.security.services.JWTService;
 import com.springsecurity.security.services.UserService;
-import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+
 @Service
-@RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     /*
         Service to fetch user details from database
@@ -25,18 +31,86 @@ public class UserServiceImpl implements UserService {
     // Declare object used to fetch data from database
     private final UserRepository userRepository;
 
+    // Declare object used to fetch user details through a cache
+    private final CachedUserDetailsService cachedUserDetailsService;
+
+    // Declare object recording authentication metrics
+    private final AuthMetrics authMetrics;
+
+    // Declare the executor running BCrypt off the request threads
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    // Declare object choosing the BCrypt cost for this machine
+    private final BCryptCostCalibrator bCryptCostCalibrator;
+
+    // Declare object telling the other nodes which users have changed
+    private final InvalidationBus invalidationBus;
+
+    // Declare object revoking the access tokens of a user whose role has changed
+    private final JWTService jwtService;
+
+    public UserServiceImpl(UserRepository userRepository, CachedUserDetailsService cachedUserDetailsService,
+                           AuthMetrics authMetrics, PasswordHashingExecutor passwordHashingExecutor,
+                           BCryptCostCalibrator bCryptCostCalibrator, InvalidationBus invalidationBus,
+                           JWTService jwtService) {
+        this.userRepository = userRepository;
+        this.cachedUserDetailsService = cachedUserDetailsService;
+        this.authMetrics = authMetrics;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.bCryptCostCalibrator = bCryptCostCalibrator;
+        this.invalidationBus = invalidationBus;
+        this.jwtService = jwtService;
+
+        // Drop users changed on other nodes from the cache of this node
+        invalidationBus.subscribe(Invalidation.Type.USER,
+                invalidation -> cachedUserDetailsService.evict(invalidation.getKey()));
+    }
+
     @Override
     public UserDetailsService userDetailsService() {
         /*
             Function to fetch user details from database
+            - The same cached "UserDetailsService" is returned on every call
+         */
+        return cachedUserDetailsService;
+    }
+
+    @Override
+    public void evictUser(String email) {
+        /*
+            Function to drop a user from the user details cache
+            - Called whenever a user is saved, so the next lookup reads the new details
+            - The other nodes are told as well, so they drop the user from their cache within the propagation lag
+         */
+        cachedUserDetailsService.evict(email);
+        invalidationBus.publish(Invalidation.Type.USER, email, 0L);
+    }
+
+    @Override
+    public void evictNewUsers(Collection<String> emails) {
+        /*
+            Function to drop many users which have just been created from the user details cache at once
+            - Users which do not exist are never cached, so no other node can hold them and nothing is published
+            - Only a lookup racing with the insert could have loaded one here, a single bulk invalidation covers it
+         */
+        cachedUserDetailsService.evictAll(emails);
+    }
+
+    @Override
+    public User changeRole(String email, Role role) {
+        /*
+            Function to change the role of a user
+            - The user is evicted from the cache, so the new role applies on the next lookup
+            - The access tokens of the user are revoked, since they carry the old role
+            - The user gets an access token with the new role on the next refresh or sign in
          */
-        return new UserDetailsService() {
-            @Override
-            public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-                return userRepository.findByEmail(username)
-                        .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-            }
-        };
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        user.setRole(role);
+        userRepository.save(user);
+        evictUser(email);
+        jwtService.revokeAccessTokens(email);
+        return user;
     }
 
     @Bean
@@ -65,13 +139,19 @@ public class UserServiceImpl implements UserService {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public OffloadingPasswordEncoder passwordEncoder() {
         /*
             Function to return a Password Encoder
             - This Password Encoder will be used by "Authentication Provider" to encode the password
             - This same "Password Encoder" will be required while decoding the password for a user during authentication
+            - Every hash and check is timed, since BCrypt is the most expensive step of sign in
+            - Every hash and check runs on the bounded "PasswordHashingExecutor", not on the request thread
+            - New hashes use the BCrypt cost calibrated at startup, and record their algorithm and cost
          */
-        return new BCryptPasswordEncoder();
+        return new OffloadingPasswordEncoder(
+                new InstrumentedPasswordEncoder(bCryptCostCalibrator.passwordEncoder(), authMetrics),
+                passwordHashingExecutor
+        );
     }
 
     @Bean
@@ -0,0 +1,15 @@
+-- Table of the "jdbc" invalidation bus, read and written by "JdbcInvalidationBus"
+-- - Hibernate creates it along with the rest of the schema, unless "ddl-auto" is off as with the "cold-start" profile
+-- - Run this script once against the shared database in that case, before starting the nodes
+-- - Matches the "InvalidationEvent" entity
+create table invalidation_event (
+    id bigint not null auto_increment,
+    type varchar(16) not null,
+    invalidation_key varchar(255) not null,
+    expires_at bigint not null,
+    published_at bigint not null,
+    origin varchar(32) not null,
+    primary key (id)
+);
+
+create index idx_invalidation_event_published on invalidation_event (published_at);
@@ -0,0 +1,274 @@
+package com.springsecurity.security.config;
+
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.invalidation.InProcessInvalidationBus;
+import com.springsecurity.security.jwt.CompactTokenCodec;
+import com.springsecurity.security.jwt.CwtTokenCodec;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import com.springsecurity.security.jwt.TokenClaims;
+import com.springsecurity.security.jwt.TokenFormat;
+import com.springsecurity.security.jwt.TokenRevocationList;
+import com.springsecurity.security.jwt.VerifiedTokenCache;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.metrics.ServerTiming;
+import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.UserService;
+import com.springsecurity.security.services.impl.JWTServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTests {
+
+	private JWTService jwtService;
+	private UserService userService;
+	private JwtProperties jwtProperties;
+	private AuthProperties authProperties;
+	private JwtAuthenticationFilter filter;
+	private CwtTokenCodec cwtTokenCodec;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		user.setEmail("user@somemail.com");
+		user.setRole(Role.USER);
+
+		JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+		key.setKid("test");
+		key.setSecret("413F4428472B4B6250655368566D5970337336763979244226452948404D6351");
+		key.setActive(true);
+		jwtProperties = new JwtProperties();
+		jwtProperties.getKeys().add(key);
+
+		AuthMetrics authMetrics = new AuthMetrics(new SimpleMeterRegistry());
+		authProperties = new AuthProperties();
+		JwtKeyRing keyRing = new JwtKeyRing(jwtProperties);
+		cwtTokenCodec = new CwtTokenCodec(keyRing);
+		jwtService = spy(new JWTServiceImpl(
+				new CompactTokenCodec(keyRing), new VerifiedTokenCache(jwtProperties), authMetrics,
+				new TokenRevocationList(jwtProperties), cwtTokenCodec, jwtProperties,
+				new InProcessInvalidationBus(authProperties, authMetrics)));
+		userService = mock(UserService.class);
+		when(userService.userDetailsService()).thenReturn(username -> user);
+
+		filter = new JwtAuthenticationFilter(jwtService, userService, jwtProperties, authMetrics, authProperties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void validTokenIsVerifiedExactlyOnce() throws Exception {
+		String token = jwtService.generateToken(user);
+		clearInvocations(jwtService);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		verify(jwtService, times(1)).verifyToken(token);
+		verify(jwtService, never()).extractUserName(anyString());
+		verify(jwtService, never()).isTokenValid(anyString(), any());
+		assertThat(chain.getRequest()).isNotNull();
+		assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(user.getEmail());
+	}
+
+	@Test
+	void cwtTokenIsAuthenticatedLikeJwtToken() throws Exception {
+		String token = jwtService.generateToken(user, TokenFormat.CWT);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo(user.getEmail());
+	}
+
+	@Test
+	void tamperedTokenIsRejectedAndChainContinues() throws Exception {
+		String token = jwtService.generateToken(user);
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + tampered);
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		assertThat(chain.getRequest()).isNotNull();
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+	}
+
+	@Test
+	void revokedTokenIsRejectedAndChainContinues() throws Exception {
+		String token = jwtService.generateToken(user);
+		jwtService.revokeToken(jwtService.verifyToken(token));
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		assertThat(chain.getRequest()).isNotNull();
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+	}
+
+	@Test
+	void refreshTokenIsNotAcceptedAsAccessToken() throws Exception {
+		String refreshToken = jwtService.generateRefreshedToken(user, "token-id", "family-id",
+				System.currentTimeMillis() + 60_000);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + refreshToken);
+		MockFilterChain chain = new MockFilterChain();
+
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		assertThat(chain.getRequest()).isNotNull();
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+	}
+
+	@Test
+	void serverTimingHeaderIsOnlyWrittenWhenEnabled() throws Exception {
+		String token = jwtService.generateToken(user);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		MockHttpServletResponse disabled = new MockHttpServletResponse();
+		filter.doFilter(request, disabled, new MockFilterChain());
+
+		assertThat(disabled.getHeader(ServerTiming.HEADER)).isNull();
+
+		SecurityContextHolder.clearContext();
+		authProperties.getServerTiming().setEnabled(true);
+		MockHttpServletResponse enabled = new MockHttpServletResponse();
+		filter.doFilter(request, enabled, new MockFilterChain());
+
+		assertThat(enabled.getHeader(ServerTiming.HEADER))
+				.matches("verify;dur=\\d+\\.\\d{3};desc=\"valid\", user;dur=\\d+\\.\\d{3};desc=\"found\"");
+	}
+
+	private String agedToken(String role) {
+		// An access token signed 20 minutes ago, which expires within the default renewal window
+		long now = System.currentTimeMillis();
+		return cwtTokenCodec.encode(TokenClaims.builder()
+				.subject(user.getEmail())
+				.roles(List.of(role))
+				.tokenId("aged-token")
+				.authTime(now - Duration.ofMinutes(20).toMillis())
+				.issuedAt(now - Duration.ofMinutes(20).toMillis())
+				.expiration(now + Duration.ofMinutes(4).toMillis())
+				.build());
+	}
+
+	@Test
+	void tokenInsideRenewalWindowIsRenewedWhenEnabled() throws Exception {
+		String token = agedToken(Role.USER.name());
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		MockHttpServletResponse disabled = new MockHttpServletResponse();
+		filter.doFilter(request, disabled, new MockFilterChain());
+
+		assertThat(disabled.getHeader("X-Renewed-Token")).isNull();
+
+		SecurityContextHolder.clearContext();
+		jwtProperties.getRenewal().setEnabled(true);
+		MockHttpServletResponse enabled = new MockHttpServletResponse();
+		filter.doFilter(request, enabled, new MockFilterChain());
+
+		String renewed = enabled.getHeader("X-Renewed-Token");
+		assertThat(renewed).isNotNull().isNotEqualTo(token);
+		assertThat(CwtTokenCodec.isCwt(renewed)).isTrue();
+		VerifiedToken original = jwtService.verifyToken(token);
+		VerifiedToken renewal = jwtService.verifyToken(renewed);
+		assertThat(renewal.getSubject()).isEqualTo(user.getEmail());
+		assertThat(renewal.getAuthTime()).isEqualTo(original.getAuthTime()).isNotZero();
+		assertThat(renewal.getTokenId()).isNotEqualTo(original.getTokenId());
+	}
+
+	@Test
+	void tokenOutsideRenewalWindowIsNotRenewed() throws Exception {
+		String token = jwtService.generateToken(user);
+		jwtProperties.getRenewal().setEnabled(true);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+		assertThat(response.getHeader("X-Renewed-Token")).isNull();
+	}
+
+	@Test
+	void tokenIssuedInsideItsRenewalWindowIsNotRenewed() throws Exception {
+		// The window is longer than the lifetime of the access token, so a new one would be renewed on every request
+		String token = jwtService.generateToken(user);
+		jwtProperties.getRenewal().setEnabled(true);
+		jwtProperties.getRenewal().setWindow(Duration.ofMinutes(30));
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+
+		assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+		assertThat(response.getHeader("X-Renewed-Token")).isNull();
+	}
+
+	@Test
+	void statelessRenewalCarriesTheCurrentRole() throws Exception {
+		jwtProperties.setStatelessPrincipal(true);
+		jwtProperties.getRenewal().setEnabled(true);
+		String token = agedToken(Role.USER.name());
+		user.setRole(Role.ADMIN);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+
+		String renewed = response.getHeader("X-Renewed-Token");
+		assertThat(renewed).isNotNull();
+		assertThat(jwtService.verifyToken(renewed).getRoles()).containsExactly(Role.ADMIN.name());
+	}
+
+	@Test
+	void statelessPrincipalIsBuiltWithoutLoadingUser() throws Exception {
+		jwtProperties.setStatelessPrincipal(true);
+		String token = jwtService.generateToken(user);
+		clearInvocations(userService);
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+		verify(userService, never()).userDetailsService();
+		assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+				.extracting("authority").containsExactly(Role.USER.name());
+	}
+}
@@ -0,0 +1,61 @@
+package com.springsecurity.security.crypto;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptCostCalibratorTests {
+
+	private static final long MILLISECOND = 1_000_000L;
+
+	@Test
+	void costIsTheHighestThatFitsTheTargetLatency() {
+		// 4 ms at cost 8 is 64 ms at cost 12 and 128 ms at cost 13
+		assertThat(BCryptCostCalibrator.costFor(4 * MILLISECOND, Duration.ofMillis(100), 4, 31)).isEqualTo(12);
+		assertThat(BCryptCostCalibrator.costFor(4 * MILLISECOND, Duration.ofMillis(128), 4, 31)).isEqualTo(13);
+		assertThat(BCryptCostCalibrator.costFor(4 * MILLISECOND, Duration.ofMillis(2), 4, 31)).isEqualTo(7);
+	}
+
+	@Test
+	void costStaysWithinBounds() {
+		assertThat(BCryptCostCalibrator.costFor(4 * MILLISECOND, Duration.ofMillis(100), 10, 11)).isEqualTo(11);
+		assertThat(BCryptCostCalibrator.costFor(400 * MILLISECOND, Duration.ofMillis(100), 10, 14)).isEqualTo(10);
+	}
+
+	@Test
+	void hashesOutsideTheToleranceNeedAnUpgrade() {
+		AuthProperties authProperties = new AuthProperties();
+		authProperties.getHashing().setBcryptCost(6);
+		authProperties.getHashing().setRehashTolerance(1);
+		PasswordEncoder passwordEncoder =
+				new BCryptCostCalibrator(authProperties, new AuthMetrics(new SimpleMeterRegistry())).passwordEncoder();
+
+		String current = passwordEncoder.encode("secret");
+		String legacy = new BCryptPasswordEncoder(6).encode("secret");
+		String cheaper = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+		String dearer = "{bcrypt}" + new BCryptPasswordEncoder(8).encode("secret");
+
+		assertThat(current).startsWith("{bcrypt}$2a$06$");
+		assertThat(passwordEncoder.matches("secret", current)).isTrue();
+		assertThat(passwordEncoder.upgradeEncoding(current)).isFalse();
+
+		// Hashes without the "{bcrypt}" prefix still match, and are upgraded to carry it
+		assertThat(passwordEncoder.matches("secret", legacy)).isTrue();
+		assertThat(passwordEncoder.upgradeEncoding(legacy)).isTrue();
+
+		assertThat(passwordEncoder.matches("secret", cheaper)).isTrue();
+		assertThat(passwordEncoder.upgradeEncoding(cheaper)).isTrue();
+		assertThat(passwordEncoder.upgradeEncoding(dearer)).isTrue();
+
+		// A node of another machine class calibrated one step apart, its hashes are left alone
+		assertThat(passwordEncoder.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(5).encode("secret"))).isFalse();
+		assertThat(passwordEncoder.upgradeEncoding("{bcrypt}" + new BCryptPasswordEncoder(7).encode("secret"))).isFalse();
+	}
+}
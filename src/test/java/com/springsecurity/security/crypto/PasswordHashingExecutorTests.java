@@ -0,0 +1,83 @@
+package com.springsecurity.security.crypto;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHashingExecutorTests {
+
+	private SimpleMeterRegistry registry;
+	private PasswordHashingExecutor executor;
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() {
+		AuthProperties authProperties = new AuthProperties();
+		authProperties.getHashing().setThreads(1);
+		authProperties.getHashing().setQueueCapacity(1);
+		registry = new SimpleMeterRegistry();
+		executor = new PasswordHashingExecutor(authProperties, new AuthMetrics(registry));
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.destroy();
+	}
+
+	private void blockPool() {
+		// Take the only thread and the only queue slot
+		for(int i = 0; i < 2; i++) {
+			executor.submit(() -> {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException exception) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+	}
+
+	@Test
+	void tasksRunInOrderOnThePool() {
+		String caller = Thread.currentThread().getName();
+		List<Supplier<String>> tasks = List.of(
+				() -> "a:" + Thread.currentThread().getName(),
+				() -> "b:" + Thread.currentThread().getName());
+
+		List<String> results = executor.executeAll(tasks, 2);
+
+		assertThat(results).hasSize(2);
+		assertThat(results.get(0)).startsWith("a:password-hashing-");
+		assertThat(results.get(1)).startsWith("b:password-hashing-");
+		assertThat(results).noneMatch(result -> result.endsWith(":" + caller));
+	}
+
+	@Test
+	void bulkHashingIsRejectedWhenTheQueueIsFull() {
+		blockPool();
+		List<String> ranOn = new CopyOnWriteArrayList<>();
+		List<Supplier<String>> tasks = List.of(() -> {
+			ranOn.add(Thread.currentThread().getName());
+			return "hash";
+		});
+
+		assertThatThrownBy(() -> executor.executeAll(tasks, 1))
+				.isInstanceOf(PasswordHashingRejectedException.class);
+		assertThat(ranOn).isEmpty();
+		assertThat(registry.get("auth.hashing.rejected").counter().count()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,154 @@
+package com.springsecurity.security.invalidation;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.jwt.CompactTokenCodec;
+import com.springsecurity.security.jwt.CwtTokenCodec;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import com.springsecurity.security.jwt.RevokedJwtException;
+import com.springsecurity.security.jwt.TokenRevocationList;
+import com.springsecurity.security.jwt.VerifiedTokenCache;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.services.JWTService;
+import com.springsecurity.security.services.impl.JWTServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InProcessInvalidationBusTests {
+
+	private SimpleMeterRegistry registry;
+	private AuthProperties authProperties;
+	private AuthMetrics authMetrics;
+	private InProcessInvalidationBus first;
+	private InProcessInvalidationBus second;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		authMetrics = new AuthMetrics(registry);
+		authProperties = new AuthProperties();
+		// Flush by hand only, so each test decides when a batch is sent
+		authProperties.getInvalidation().setFlushInterval(Duration.ofHours(1));
+		authProperties.getInvalidation().setMaxBatchSize(2);
+		first = new InProcessInvalidationBus(authProperties, authMetrics);
+		second = first.join();
+	}
+
+	@AfterEach
+	void tearDown() {
+		first.destroy();
+		second.destroy();
+	}
+
+	@Test
+	void invalidationReachesOtherNodesOnly() {
+		List<Invalidation> onFirst = new CopyOnWriteArrayList<>();
+		List<Invalidation> onSecond = new CopyOnWriteArrayList<>();
+		first.subscribe(Invalidation.Type.USER, onFirst::add);
+		second.subscribe(Invalidation.Type.USER, onSecond::add);
+
+		first.publish(Invalidation.Type.USER, "user@somemail.com", 0L);
+		assertThat(onSecond).isEmpty();
+
+		first.flush();
+
+		assertThat(onFirst).isEmpty();
+		assertThat(onSecond).extracting(Invalidation::getKey).containsExactly("user@somemail.com");
+		assertThat(onSecond.get(0).getOrigin()).isEqualTo(first.nodeId());
+		assertThat(registry.get("auth.invalidation.lag").tag("type", "USER").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void repeatedInvalidationsOfOneKeyAreCoalesced() {
+		List<Invalidation> received = new CopyOnWriteArrayList<>();
+		second.subscribe(Invalidation.Type.TOKEN, received::add);
+
+		first.publish(Invalidation.Type.TOKEN, "token-id", 1_000L);
+		first.publish(Invalidation.Type.TOKEN, "token-id", 3_000L);
+		first.publish(Invalidation.Type.TOKEN, "token-id", 2_000L);
+		assertThat(first.pendingSize()).isEqualTo(1);
+
+		first.flush();
+
+		assertThat(received).hasSize(1);
+		assertThat(received.get(0).getExpiresAt()).isEqualTo(3_000L);
+		assertThat(registry.get("auth.invalidation.coalesced").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void batchesAreBoundedByMaxBatchSize() {
+		List<Invalidation> received = new CopyOnWriteArrayList<>();
+		second.subscribe(Invalidation.Type.USER, received::add);
+
+		for(int i = 0; i < 5; i++) {
+			first.publish(Invalidation.Type.USER, "user" + i + "@somemail.com", 0L);
+		}
+		first.flush();
+
+		assertThat(received).hasSize(5);
+		assertThat(registry.get("auth.invalidation.batch.size").summary().count()).isEqualTo(3);
+		assertThat(registry.get("auth.invalidation.batch.size").summary().max()).isEqualTo(2);
+	}
+
+	@Test
+	void revocationOnOneNodeIsEnforcedOnTheOther() {
+		JWTService firstNode = jwtService(first);
+		JWTService secondNode = jwtService(second);
+		User user = new User();
+		user.setEmail("user@somemail.com");
+		user.setRole(Role.USER);
+		String token = firstNode.generateToken(user);
+		secondNode.verifyToken(token);
+
+		firstNode.revokeToken(firstNode.verifyToken(token));
+		first.flush();
+
+		assertThatThrownBy(() -> secondNode.verifyToken(token)).isInstanceOf(RevokedJwtException.class);
+	}
+
+	@Test
+	void accessTokensOfAUserAreRevokedOnEveryNode() {
+		JWTService firstNode = jwtService(first);
+		JWTService secondNode = jwtService(second);
+		User user = new User();
+		user.setEmail("user@somemail.com");
+		user.setRole(Role.USER);
+		String issuedOnFirst = firstNode.generateToken(user);
+		String issuedOnSecond = secondNode.generateToken(user);
+
+		firstNode.revokeAccessTokens("user@somemail.com");
+		assertThatThrownBy(() -> firstNode.verifyToken(issuedOnFirst)).isInstanceOf(RevokedJwtException.class);
+		first.flush();
+		second.flush();
+
+		assertThatThrownBy(() -> firstNode.verifyToken(issuedOnSecond)).isInstanceOf(RevokedJwtException.class);
+		assertThatThrownBy(() -> secondNode.verifyToken(issuedOnFirst)).isInstanceOf(RevokedJwtException.class);
+		assertThatThrownBy(() -> secondNode.verifyToken(issuedOnSecond)).isInstanceOf(RevokedJwtException.class);
+	}
+
+	private JWTService jwtService(InvalidationBus invalidationBus) {
+		JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+		key.setKid("test");
+		key.setSecret("413F4428472B4B6250655368566D5970337336763979244226452948404D6351");
+		key.setActive(true);
+		JwtProperties jwtProperties = new JwtProperties();
+		jwtProperties.getKeys().add(key);
+		jwtProperties.getCache().setEnabled(true);
+
+		JwtKeyRing keyRing = new JwtKeyRing(jwtProperties);
+		return new JWTServiceImpl(
+				new CompactTokenCodec(keyRing), new VerifiedTokenCache(jwtProperties), authMetrics,
+				new TokenRevocationList(jwtProperties), new CwtTokenCodec(keyRing), jwtProperties, invalidationBus);
+	}
+}
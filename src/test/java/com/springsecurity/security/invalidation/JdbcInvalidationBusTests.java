@@ -0,0 +1,173 @@
+package com.springsecurity.security.invalidation;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.metrics.AuthMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcInvalidationBusTests {
+
+	private JdbcTemplate jdbcTemplate;
+	private AuthProperties authProperties;
+	private JdbcInvalidationBus bus;
+	private final List<String> received = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		// A database of its own for each test, with the table created by the shipped script
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		new ResourceDatabasePopulator(new ClassPathResource("db/invalidation_event.sql")).execute(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+
+		authProperties = new AuthProperties();
+		// Poll and purge by hand only, so each test decides when they run
+		authProperties.getInvalidation().setPollInterval(Duration.ofHours(1));
+		authProperties.getInvalidation().setRetention(Duration.ofHours(1));
+		authProperties.getInvalidation().setMaxBatchSize(2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if(bus != null) {
+			bus.destroy();
+		}
+	}
+
+	private void startBus() {
+		bus = new JdbcInvalidationBus(jdbcTemplate, authProperties, new AuthMetrics(new SimpleMeterRegistry()));
+		bus.subscribe(Invalidation.Type.USER, invalidation -> received.add(invalidation.getKey()));
+		bus.subscribe(Invalidation.Type.TOKEN, invalidation -> received.add(invalidation.getKey()));
+	}
+
+	private void insert(long id, Invalidation.Type type, String key, long expiresAt, long publishedAt) {
+		jdbcTemplate.update("insert into invalidation_event (id, type, invalidation_key, expires_at, published_at, origin)"
+				+ " values (?, ?, ?, ?, ?, ?)", id, type.name(), key, expiresAt, publishedAt, "other-node");
+	}
+
+	private void insert(long id, String key) {
+		insert(id, Invalidation.Type.USER, key, 0L, System.currentTimeMillis());
+	}
+
+	@Test
+	void startingNodeReadsKeptRowsWithoutTrackingPurgedIds() {
+		insert(5, "a@somemail.com");
+		insert(9, "b@somemail.com");
+		insert(20, "c@somemail.com");
+		startBus();
+
+		bus.poll();
+
+		assertThat(received).containsExactly("a@somemail.com", "b@somemail.com", "c@somemail.com");
+		assertThat(bus.gapCount()).isZero();
+	}
+
+	@Test
+	void skippedIdsAreDeliveredOnceTheirInsertCommits() {
+		startBus();
+		bus.poll();
+
+		// Ids 2 to 5 are taken by inserts which have not committed yet, more than a page of them
+		insert(1, "a@somemail.com");
+		insert(6, "f@somemail.com");
+		bus.poll();
+
+		assertThat(received).containsExactly("a@somemail.com", "f@somemail.com");
+		assertThat(bus.gapCount()).isEqualTo(4);
+
+		insert(3, "c@somemail.com");
+		insert(5, "e@somemail.com");
+		bus.poll();
+
+		assertThat(received).containsExactly("a@somemail.com", "f@somemail.com", "c@somemail.com", "e@somemail.com");
+		assertThat(bus.gapCount()).isEqualTo(2);
+	}
+
+	@Test
+	void skippedIdsAreBoundedByMaxGaps() {
+		authProperties.getInvalidation().setMaxGaps(3);
+		startBus();
+		bus.poll();
+
+		insert(1, "a@somemail.com");
+		insert(10, "j@somemail.com");
+		bus.poll();
+
+		assertThat(bus.gapCount()).isEqualTo(3);
+
+		insert(2, "b@somemail.com");
+		insert(9, "i@somemail.com");
+		bus.poll();
+
+		assertThat(received).containsExactly("a@somemail.com", "j@somemail.com", "b@somemail.com");
+	}
+
+	@Test
+	void skippedIdsAreGivenUpAfterTheGapTimeout() throws Exception {
+		authProperties.getInvalidation().setGapTimeout(Duration.ZERO);
+		startBus();
+		bus.poll();
+
+		insert(1, "a@somemail.com");
+		insert(3, "c@somemail.com");
+		bus.poll();
+		assertThat(bus.gapCount()).isEqualTo(1);
+
+		Thread.sleep(5);
+		insert(2, "b@somemail.com");
+		bus.poll();
+
+		assertThat(received).containsExactly("a@somemail.com", "c@somemail.com");
+		assertThat(bus.gapCount()).isZero();
+	}
+
+	@Test
+	void purgeKeepsRecentRowsAndRevocationsUntilTheyExpire() {
+		long now = System.currentTimeMillis();
+		long longAgo = now - Duration.ofHours(2).toMillis();
+		insert(1, Invalidation.Type.USER, "old@somemail.com", 0L, longAgo);
+		insert(2, Invalidation.Type.TOKEN, "expired-token", now - 1, longAgo);
+		insert(3, Invalidation.Type.TOKEN, "live-token", now + 60_000, longAgo);
+		insert(4, Invalidation.Type.USER, "recent@somemail.com", 0L, now);
+		startBus();
+
+		bus.purge();
+
+		assertThat(jdbcTemplate.queryForList("select invalidation_key from invalidation_event order by id", String.class))
+				.containsExactly("live-token", "recent@somemail.com");
+	}
+
+	@Test
+	void publishedBatchesAreReadByOtherNodes() {
+		startBus();
+		JdbcInvalidationBus other = new JdbcInvalidationBus(
+				jdbcTemplate, authProperties, new AuthMetrics(new SimpleMeterRegistry()));
+		try {
+			other.publish(Invalidation.Type.TOKEN, "token-id", System.currentTimeMillis() + 60_000);
+			other.flush();
+			// A node never applies its own invalidations
+			other.subscribe(Invalidation.Type.TOKEN, invalidation -> received.add("own:" + invalidation.getKey()));
+			other.poll();
+
+			bus.poll();
+
+			assertThat(received).containsExactly("token-id");
+		}
+		finally {
+			other.destroy();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CwtTokenCodecTests {
+
+	private CompactTokenCodec compactCodec;
+	private CwtTokenCodec cwtCodec;
+
+	@BeforeEach
+	void setUp() {
+		JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+		key.setKid("test");
+		key.setSecret("413F4428472B4B6250655368566D5970337336763979244226452948404D6351");
+		key.setActive(true);
+		JwtProperties jwtProperties = new JwtProperties();
+		jwtProperties.getKeys().add(key);
+
+		JwtKeyRing keyRing = new JwtKeyRing(jwtProperties);
+		compactCodec = new CompactTokenCodec(keyRing);
+		cwtCodec = new CwtTokenCodec(keyRing);
+	}
+
+	private TokenClaims claims(long expiration) {
+		long now = System.currentTimeMillis() / 1000 * 1000;
+		return TokenClaims.builder()
+				.subject("\"quoted\" ünïcödé 😀 user@somemail.com")
+				.userId(42)
+				.roles(List.of("USER", "ADMIN"))
+				.tokenId(TokenIds.newId())
+				.familyId("family-id")
+				.authTime(now - 3_600_000)
+				.issuedAt(now)
+				.expiration(now + expiration)
+				.extraClaims(Map.of("scope", "read", "nested", Map.of("x", 1.5, "y", List.of(true, false))))
+				.build();
+	}
+
+	@Test
+	void roundTripKeepsEveryClaim() {
+		TokenClaims claims = claims(60_000);
+
+		String token = cwtCodec.encode(claims);
+		VerifiedToken verifiedToken = cwtCodec.decode(token);
+
+		assertThat(CwtTokenCodec.isCwt(token)).isTrue();
+		assertThat(verifiedToken.getSubject()).isEqualTo(claims.getSubject());
+		assertThat(verifiedToken.getUserId()).isEqualTo(42);
+		assertThat(verifiedToken.getRoles()).containsExactly("USER", "ADMIN");
+		assertThat(verifiedToken.getTokenId()).isEqualTo(claims.getTokenId());
+		assertThat(verifiedToken.getFamilyId()).isEqualTo("family-id");
+		assertThat(verifiedToken.getAuthTime()).isEqualTo(claims.getAuthTime());
+		assertThat(verifiedToken.getIssuedAt()).isEqualTo(claims.getIssuedAt());
+		assertThat(verifiedToken.getExpiration()).isEqualTo(claims.getExpiration());
+	}
+
+	@Test
+	void cwtTokenIsSmallerThanTheSameJwtToken() {
+		TokenClaims claims = claims(60_000);
+
+		String jwt = compactCodec.encode(claims);
+
+		assertThat(CwtTokenCodec.isCwt(jwt)).isFalse();
+		assertThat(cwtCodec.encode(claims).length()).isLessThan(jwt.length());
+	}
+
+	@Test
+	void rejectsTamperedExpiredAndMalformedTokens() {
+		char[] tampered = cwtCodec.encode(claims(60_000)).toCharArray();
+		tampered[tampered.length / 2] = tampered[tampered.length / 2] == 'A' ? 'B' : 'A';
+		String expired = cwtCodec.encode(claims(-60_000));
+
+		assertThatThrownBy(() -> cwtCodec.decode(new String(tampered))).isInstanceOf(SignatureException.class);
+		assertThatThrownBy(() -> cwtCodec.decode(expired)).isInstanceOf(ExpiredJwtException.class);
+		assertThatThrownBy(() -> cwtCodec.decode("0YRH")).isInstanceOf(MalformedJwtException.class);
+		assertThatThrownBy(() -> cwtCodec.decode("!!!")).isInstanceOf(MalformedJwtException.class);
+	}
+}
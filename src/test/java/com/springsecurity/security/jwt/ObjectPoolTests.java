@@ -0,0 +1,45 @@
+package com.springsecurity.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ObjectPoolTests {
+
+	@Test
+	void releasedObjectsAreReused() {
+		AtomicInteger created = new AtomicInteger();
+		ObjectPool<Object> pool = new ObjectPool<>(() -> {
+			created.incrementAndGet();
+			return new Object();
+		}, 2);
+
+		Object first = pool.acquire();
+		pool.release(first);
+
+		assertThat(pool.acquire()).isSameAs(first);
+		assertThat(created).hasValue(1);
+	}
+
+	@Test
+	void objectsAreCreatedWhenNoneIsIdleAndIdleObjectsAreBounded() {
+		AtomicInteger created = new AtomicInteger();
+		ObjectPool<Object> pool = new ObjectPool<>(() -> {
+			created.incrementAndGet();
+			return new Object();
+		}, 2);
+
+		Object first = pool.acquire();
+		Object second = pool.acquire();
+		Object third = pool.acquire();
+		assertThat(created).hasValue(3);
+
+		pool.release(first);
+		pool.release(second);
+		pool.release(third);
+
+		assertThat(pool.idleSize()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,73 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.config.AuthProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshTokenIndexTests {
+
+	private RefreshTokenIndex newIndex(long maximumSize) {
+		AuthProperties authProperties = new AuthProperties();
+		authProperties.getRefreshTokens().setIndexMaximumSize(maximumSize);
+		return new RefreshTokenIndex(authProperties);
+	}
+
+	@Test
+	void entryCanOnlyBeUsedOnce() {
+		RefreshTokenIndex index = newIndex(10);
+		index.put("a", "family", System.currentTimeMillis() + 60_000, RefreshTokenIndex.ACTIVE);
+
+		RefreshTokenIndex.Entry entry = index.get("a");
+
+		assertThat(entry.getFamilyId()).isEqualTo("family");
+		assertThat(entry.markUsed()).isTrue();
+		assertThat(index.get("a").markUsed()).isFalse();
+		assertThat(index.get("a").getState()).isEqualTo(RefreshTokenIndex.USED);
+	}
+
+	@Test
+	void cancelledUseMakesEntryActiveAgain() {
+		RefreshTokenIndex index = newIndex(10);
+		index.put("a", "family", System.currentTimeMillis() + 60_000, RefreshTokenIndex.ACTIVE);
+		RefreshTokenIndex.Entry entry = index.get("a");
+		entry.markUsed();
+
+		entry.cancelUse();
+
+		assertThat(entry.getState()).isEqualTo(RefreshTokenIndex.ACTIVE);
+		assertThat(entry.markUsed()).isTrue();
+	}
+
+	@Test
+	void purgeDropsOnlyExpiredBuckets() {
+		RefreshTokenIndex index = newIndex(10);
+		long now = System.currentTimeMillis();
+		index.put("soon", "family", now + 1_000, RefreshTokenIndex.ACTIVE);
+		index.put("later", "family", now + TimeUnit.HOURS.toMillis(1), RefreshTokenIndex.ACTIVE);
+		index.revokeFamily("revoked", now + 1_000);
+
+		assertThat(index.purgeExpired(now)).isZero();
+		assertThat(index.size()).isEqualTo(2);
+
+		assertThat(index.purgeExpired(now + TimeUnit.MINUTES.toMillis(2))).isEqualTo(1);
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.get("later")).isNotNull();
+		assertThat(index.isFamilyRevoked("revoked")).isFalse();
+	}
+
+	@Test
+	void fullIndexReturnsDetachedEntries() {
+		RefreshTokenIndex index = newIndex(1);
+		long expiresAt = System.currentTimeMillis() + 60_000;
+		index.put("a", "family", expiresAt, RefreshTokenIndex.ACTIVE);
+
+		RefreshTokenIndex.Entry detached = index.put("b", "family", expiresAt, RefreshTokenIndex.ACTIVE);
+
+		assertThat(detached.markUsed()).isTrue();
+		assertThat(index.get("b")).isNull();
+		assertThat(index.size()).isEqualTo(1);
+	}
+}
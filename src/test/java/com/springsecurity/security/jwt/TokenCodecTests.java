@@ -0,0 +1,249 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenCodecTests {
+
+	private static final String SECRET = "413F4428472B4B6250655368566D5970337336763979244226452948404D6351";
+
+	private CompactTokenCodec compactCodec;
+	private JjwtTokenCodec jjwtCodec;
+
+	@BeforeEach
+	void setUp() {
+		JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+		key.setKid("test");
+		key.setSecret(SECRET);
+		key.setActive(true);
+		JwtProperties jwtProperties = new JwtProperties();
+		jwtProperties.getKeys().add(key);
+
+		JwtKeyRing keyRing = new JwtKeyRing(jwtProperties);
+		compactCodec = new CompactTokenCodec(keyRing);
+		jjwtCodec = new JjwtTokenCodec(keyRing);
+	}
+
+	private TokenClaims claims(String subject) {
+		long now = System.currentTimeMillis() / 1000 * 1000;
+		return TokenClaims.builder()
+				.subject(subject)
+				.userId(42)
+				.roles(List.of("USER", "ADMIN"))
+				.tokenId("token-id")
+				.familyId("family-id")
+				.authTime(now - 3_600_000)
+				.issuedAt(now)
+				.expiration(now + 60_000)
+				.extraClaims(Map.of("scope", "read", "tags", List.of("a", "b"), "nested", Map.of("x", 1)))
+				.build();
+	}
+
+	private void assertClaims(VerifiedToken verifiedToken, TokenClaims claims) {
+		assertThat(verifiedToken.getSubject()).isEqualTo(claims.getSubject());
+		assertThat(verifiedToken.getUserId()).isEqualTo(claims.getUserId());
+		assertThat(verifiedToken.getRoles()).isEqualTo(claims.getRoles());
+		assertThat(verifiedToken.getTokenId()).isEqualTo(claims.getTokenId());
+		assertThat(verifiedToken.getFamilyId()).isEqualTo(claims.getFamilyId());
+		assertThat(verifiedToken.getAuthTime()).isEqualTo(claims.getAuthTime());
+		assertThat(verifiedToken.getIssuedAt()).isEqualTo(claims.getIssuedAt());
+		assertThat(verifiedToken.getExpiration()).isEqualTo(claims.getExpiration());
+	}
+
+	@Test
+	void compactRoundTrip() {
+		TokenClaims claims = claims("user@somemail.com");
+
+		assertClaims(compactCodec.decode(compactCodec.encode(claims)), claims);
+	}
+
+	@Test
+	void compactRoundTripsOnManyVirtualThreadsAtOnce() throws Exception {
+		// Each virtual thread takes pooled buffers, none may see the buffers of another
+		List<Future<Boolean>> results = new ArrayList<>();
+		try(ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for(int i = 0; i < 200; i++) {
+				TokenClaims claims = claims("user" + i + "@somemail.com");
+				results.add(executor.submit(() ->
+						compactCodec.decode(compactCodec.encode(claims)).getSubject().equals(claims.getSubject())));
+			}
+		}
+		for(Future<Boolean> result : results) {
+			assertThat(result.get()).isTrue();
+		}
+	}
+
+	@Test
+	void compactReadsJjwtTokens() {
+		TokenClaims claims = claims("\"quoted\" \\ ünïcödé 😀 user@somemail.com");
+
+		assertClaims(compactCodec.decode(jjwtCodec.encode(claims)), claims);
+	}
+
+	@Test
+	void jjwtReadsCompactTokens() {
+		TokenClaims claims = claims("\"quoted\" \\ ünïcödé 😀 user@somemail.com");
+
+		VerifiedToken verifiedToken = jjwtCodec.decode(compactCodec.encode(claims));
+
+		assertClaims(verifiedToken, claims);
+		assertThat(verifiedToken.getClaims()).containsEntry("scope", "read");
+		assertThat(verifiedToken.getClaims().get("tags")).isEqualTo(List.of("a", "b"));
+	}
+
+	@Test
+	void bothCodecsRejectTamperedTokens() {
+		String token = compactCodec.encode(claims("user@somemail.com"));
+		String[] parts = token.split("\\.");
+		String forged = jjwtCodec.encode(claims("admin@somemail.com")).split("\\.")[1];
+		String tampered = parts[0] + "." + forged + "." + parts[2];
+
+		assertThatThrownBy(() -> compactCodec.decode(tampered)).isInstanceOf(SignatureException.class);
+		assertThatThrownBy(() -> jjwtCodec.decode(tampered)).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	void compactRejectsExpiredAndMalformedTokens() {
+		long now = System.currentTimeMillis();
+		String expired = jjwtCodec.encode(TokenClaims.builder()
+				.subject("user@somemail.com")
+				.issuedAt(now - 120_000)
+				.expiration(now - 60_000)
+				.build());
+
+		assertThatThrownBy(() -> compactCodec.decode(expired)).isInstanceOf(ExpiredJwtException.class);
+		assertThatThrownBy(() -> compactCodec.decode("abc.def")).isInstanceOf(MalformedJwtException.class);
+		assertThatThrownBy(() -> compactCodec.decode("!!!.def.ghi")).isInstanceOf(MalformedJwtException.class);
+	}
+
+	@Test
+	void compactSignsWithHmacSha256WhateverTheSecretLength() throws Exception {
+		// The secret is 48 bytes, it must still be used for HMAC-SHA256 and not HMAC-SHA384
+		byte[] secret = Base64.getDecoder().decode(SECRET);
+		assertThat(secret).hasSizeGreaterThan(32);
+		String token = compactCodec.encode(claims("user@somemail.com"));
+		int signatureStart = token.lastIndexOf('.');
+
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+		byte[] expected = mac.doFinal(token.substring(0, signatureStart).getBytes(StandardCharsets.US_ASCII));
+
+		assertThat(token.substring(signatureStart + 1))
+				.isEqualTo(Base64.getUrlEncoder().withoutPadding().encodeToString(expected));
+	}
+
+	@Test
+	void secretShorterThan32BytesIsRejected() {
+		JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+		key.setKid("short");
+		key.setSecret(Base64.getEncoder().encodeToString(new byte[31]));
+		key.setActive(true);
+
+		assertThatThrownBy(() -> keyRing(key)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static JwtProperties.KeyDefinition keyPair(String kid, String algorithm, boolean active) throws Exception {
+		KeyPairGenerator generator;
+		if(SigningKey.ES256.equals(algorithm)) {
+			generator = KeyPairGenerator.getInstance("EC");
+			generator.initialize(new ECGenParameterSpec("secp256r1"));
+		}
+		else {
+			generator = KeyPairGenerator.getInstance("Ed25519");
+		}
+		KeyPair keyPair = generator.generateKeyPair();
+		JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+		key.setKid(kid);
+		key.setAlgorithm(algorithm);
+		key.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+		key.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+		key.setActive(active);
+		return key;
+	}
+
+	private static JwtKeyRing keyRing(JwtProperties.KeyDefinition... keys) {
+		JwtProperties jwtProperties = new JwtProperties();
+		jwtProperties.getKeys().addAll(List.of(keys));
+		return new JwtKeyRing(jwtProperties);
+	}
+
+	@Test
+	void asymmetricRoundTrips() throws Exception {
+		TokenClaims claims = claims("user@somemail.com");
+		JwtKeyRing es256 = keyRing(keyPair("es", SigningKey.ES256, true));
+		JwtKeyRing eddsa = keyRing(keyPair("ed", SigningKey.EDDSA, true));
+
+		String es256Token = new CompactTokenCodec(es256).encode(claims);
+		assertClaims(new CompactTokenCodec(es256).decode(es256Token), claims);
+		assertClaims(new JjwtTokenCodec(es256).decode(es256Token), claims);
+		assertClaims(new CompactTokenCodec(es256).decode(new JjwtTokenCodec(es256).encode(claims)), claims);
+		assertClaims(new CompactTokenCodec(eddsa).decode(new CompactTokenCodec(eddsa).encode(claims)), claims);
+	}
+
+	@Test
+	void retiredPublicKeyStillVerifies() throws Exception {
+		JwtProperties.KeyDefinition previous = keyPair("previous", SigningKey.ES256, true);
+		String token = new CompactTokenCodec(keyRing(previous)).encode(claims("user@somemail.com"));
+
+		// After the rotation only the public key of the previous key is kept
+		previous.setActive(false);
+		previous.setPrivateKey(null);
+		JwtKeyRing rotated = keyRing(previous, keyPair("next", SigningKey.EDDSA, true));
+
+		assertThat(new CompactTokenCodec(rotated).decode(token).getSubject()).isEqualTo("user@somemail.com");
+	}
+
+	@Test
+	void tokenCannotPickAnotherAlgorithmThanItsKey() throws Exception {
+		JwtProperties.KeyDefinition es256 = keyPair("es", SigningKey.ES256, false);
+		JwtProperties.KeyDefinition hs256 = new JwtProperties.KeyDefinition();
+		hs256.setKid("es");
+		hs256.setSecret(SECRET);
+		hs256.setActive(true);
+
+		// An HS256 JWT Token naming the "kid" of an ES256 key is rejected
+		String token = new CompactTokenCodec(keyRing(hs256)).encode(claims("user@somemail.com"));
+		CompactTokenCodec codec = new CompactTokenCodec(keyRing(es256, keyPair("active", SigningKey.EDDSA, true)));
+
+		assertThatThrownBy(() -> codec.decode(token)).isInstanceOf(SignatureException.class);
+	}
+
+	@Test
+	void jwksPublishesOnlyPublicKeys() throws Exception {
+		JwtProperties.KeyDefinition hs256 = new JwtProperties.KeyDefinition();
+		hs256.setKid("hs");
+		hs256.setSecret(SECRET);
+		JwtKeyRing keyRing = keyRing(hs256, keyPair("es", SigningKey.ES256, true), keyPair("ed", SigningKey.EDDSA, false));
+
+		JwtKeyRing.Jwks jwks = keyRing.jwks();
+		String body = new String(jwks.body(), StandardCharsets.UTF_8);
+
+		assertThat(body).contains("\"kid\":\"es\"", "\"crv\":\"P-256\"", "\"kid\":\"ed\"", "\"crv\":\"Ed25519\"");
+		assertThat(body).doesNotContain("\"hs\"", "\"d\"");
+		assertThat(jwks.etag()).startsWith("\"").endsWith("\"");
+		assertThat(keyRing(hs256, keyPair("es", SigningKey.ES256, true)).jwks().etag()).isNotEqualTo(jwks.etag());
+	}
+}
@@ -0,0 +1,126 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationListTests {
+
+	@TempDir
+	Path directory;
+
+	private JwtProperties jwtProperties(Path file) {
+		JwtProperties jwtProperties = new JwtProperties();
+		jwtProperties.getRevocation().setFile(file == null ? null : file.toString());
+		jwtProperties.getRevocation().setInitialCapacity(2);
+		return jwtProperties;
+	}
+
+	private VerifiedToken token(String tokenId, long expiration) {
+		return new VerifiedToken("a.b.c", "user@somemail.com", System.currentTimeMillis(), expiration,
+				null, List.of("USER"), tokenId, null, 0L, Map.of());
+	}
+
+	@Test
+	void onlyRevokedTokensAreRejected() throws Exception {
+		TokenRevocationList revocationList = new TokenRevocationList(jwtProperties(null));
+		long expiration = System.currentTimeMillis() + 60_000;
+
+		revocationList.revoke("revoked", expiration);
+
+		assertThat(revocationList.isRevoked(token("revoked", expiration))).isTrue();
+		assertThat(revocationList.isRevoked(token("other", expiration))).isFalse();
+		assertThat(revocationList.isRevoked(token(null, expiration))).isFalse();
+		revocationList.destroy();
+	}
+
+	@Test
+	void revocationsSurviveRestartUntilTheyExpire() throws Exception {
+		Path file = directory.resolve("revoked-tokens.bin");
+		long expiration = System.currentTimeMillis() + 60_000;
+
+		TokenRevocationList first = new TokenRevocationList(jwtProperties(file));
+		first.revoke("a", expiration);
+		first.revoke("b", expiration);
+		first.revoke("c", expiration);
+		first.revoke("expired", System.currentTimeMillis() - 1);
+		first.destroy();
+
+		TokenRevocationList second = new TokenRevocationList(jwtProperties(file));
+		assertThat(second.size()).isEqualTo(3);
+		assertThat(second.isRevoked(token("c", expiration))).isTrue();
+		assertThat(second.isRevoked(token("expired", expiration))).isFalse();
+		second.destroy();
+	}
+
+	@Test
+	void compactionKeepsLiveRevocationsAndReplacesTheFile() throws Exception {
+		Path file = directory.resolve("revoked-tokens.bin");
+		long expiration = System.currentTimeMillis() + 60_000;
+
+		TokenRevocationList first = new TokenRevocationList(jwtProperties(file));
+		first.revoke("live", expiration);
+		first.revoke("short-a", System.currentTimeMillis() + 50);
+		first.revoke("short-b", System.currentTimeMillis() + 50);
+		Thread.sleep(100);
+		first.purgeExpired();
+		first.revoke("after", expiration);
+		first.destroy();
+
+		assertThat(directory.resolve("revoked-tokens.bin.tmp")).doesNotExist();
+		assertThat(Files.size(file)).isPositive();
+		TokenRevocationList second = new TokenRevocationList(jwtProperties(file));
+		assertThat(second.size()).isEqualTo(2);
+		assertThat(second.isRevoked(token("live", expiration))).isTrue();
+		assertThat(second.isRevoked(token("after", expiration))).isTrue();
+		second.destroy();
+	}
+
+	@Test
+	void windowFilterGrowsWithoutLosingRevocations() throws Exception {
+		TokenRevocationList revocationList = new TokenRevocationList(jwtProperties(null));
+		long expiration = System.currentTimeMillis() + 60_000;
+
+		revocationList.revoke("first", expiration);
+		assertThat(revocationList.filterCapacity(expiration)).isEqualTo(TokenRevocationList.INITIAL_WINDOW_CAPACITY);
+
+		for(int i = 0; i < TokenRevocationList.INITIAL_WINDOW_CAPACITY; i++) {
+			revocationList.revoke("token-" + i, expiration);
+		}
+
+		assertThat(revocationList.filterCapacity(expiration)).isEqualTo(4 * TokenRevocationList.INITIAL_WINDOW_CAPACITY);
+		assertThat(revocationList.isRevoked(token("first", expiration))).isTrue();
+		for(int i = 0; i < TokenRevocationList.INITIAL_WINDOW_CAPACITY; i++) {
+			assertThat(revocationList.isRevoked(token("token-" + i, expiration))).isTrue();
+		}
+		revocationList.destroy();
+	}
+
+	@Test
+	void bloomFilterHasNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(1_000, 0.01);
+		for(int i = 0; i < 1_000; i++) {
+			filter.add(BloomFilter.hash(TokenIds.newId().substring(0, 4) + i));
+		}
+		int falsePositives = 0;
+		for(int i = 0; i < 10_000; i++) {
+			if(filter.mightContain(BloomFilter.hash("absent-" + i))) {
+				falsePositives++;
+			}
+		}
+
+		String present = TokenIds.newId();
+		filter.add(BloomFilter.hash(present));
+
+		assertThat(filter.mightContain(BloomFilter.hash(present))).isTrue();
+		assertThat(falsePositives).isLessThan(500);
+	}
+}
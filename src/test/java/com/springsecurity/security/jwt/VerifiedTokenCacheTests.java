@@ -0,0 +1,49 @@
+package com.springsecurity.security.jwt;
+
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTests {
+
+	private VerifiedTokenCache newCache() {
+		JwtProperties jwtProperties = new JwtProperties();
+		jwtProperties.getCache().setEnabled(true);
+		return new VerifiedTokenCache(jwtProperties);
+	}
+
+	private VerifiedToken token(String token, long expiration) {
+		return new VerifiedToken(token, "user@somemail.com", System.currentTimeMillis(), expiration,
+				null, List.of("USER"), null, null, 0L, Map.of());
+	}
+
+	@Test
+	void returnsCachedTokenUntilExpiry() throws Exception {
+		VerifiedTokenCache cache = newCache();
+		VerifiedToken verifiedToken = token("a.b.c", System.currentTimeMillis() + 100);
+
+		cache.put(verifiedToken);
+
+		assertThat(cache.get("a.b.c")).isSameAs(verifiedToken);
+		assertThat(cache.get("a.b.d")).isNull();
+		assertThat(cache.stats().hitCount()).isEqualTo(1);
+
+		Thread.sleep(150);
+
+		assertThat(cache.get("a.b.c")).isNull();
+	}
+
+	@Test
+	void doesNotCacheWhenDisabled() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(new JwtProperties());
+
+		cache.put(token("a.b.c", System.currentTimeMillis() + 60_000));
+
+		assertThat(cache.get("a.b.c")).isNull();
+	}
+}
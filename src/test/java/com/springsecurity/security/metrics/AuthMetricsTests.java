@@ -0,0 +1,43 @@
+package com.springsecurity.security.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthMetricsTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AuthMetrics authMetrics = new AuthMetrics(registry);
+
+	@Test
+	void userLookupsAreRecordedUnderTheirTags() {
+		authMetrics.userLookup(authMetrics.start(), true, true);
+		authMetrics.userLookup(authMetrics.start(), true, true);
+		authMetrics.userLookup(authMetrics.start(), false, false);
+
+		assertThat(registry.get("auth.user.lookup").tags("cache", "hit", "outcome", "found").timer().count())
+				.isEqualTo(2);
+		assertThat(registry.get("auth.user.lookup").tags("cache", "miss", "outcome", "not_found").timer().count())
+				.isEqualTo(1);
+		assertThat(registry.get("auth.user.lookup").tags("cache", "hit", "outcome", "not_found").timer().count())
+				.isZero();
+	}
+
+	@Test
+	void taggedMetersAreRegisteredOnceAndReused() {
+		authMetrics.requestAuthenticated(AuthMetrics.VALID);
+		authMetrics.requestAuthenticated(AuthMetrics.VALID);
+		authMetrics.requestAuthenticated(AuthMetrics.EXPIRED);
+		authMetrics.tokenVerified(authMetrics.start(), AuthMetrics.VALID, true);
+		authMetrics.tokenVerified(authMetrics.start(), AuthMetrics.VALID, false);
+
+		assertThat(registry.get("auth.requests").tag("outcome", AuthMetrics.VALID).counter().count()).isEqualTo(2);
+		assertThat(registry.get("auth.requests").tag("outcome", AuthMetrics.EXPIRED).counter().count()).isEqualTo(1);
+		assertThat(registry.get("auth.requests").counters()).hasSize(2);
+		assertThat(registry.get("auth.token.verify").tags("outcome", AuthMetrics.VALID, "cache", "hit").timer().count())
+				.isEqualTo(1);
+		assertThat(registry.get("auth.token.verify").tags("outcome", AuthMetrics.VALID, "cache", "miss").timer().count())
+				.isEqualTo(1);
+	}
+}
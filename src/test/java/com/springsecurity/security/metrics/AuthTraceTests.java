@@ -0,0 +1,61 @@
+package com.springsecurity.security.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthTraceTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void phasesAreRecordedAsFlightRecorderEvents() throws Exception {
+		Path file = directory.resolve("auth.jfr");
+		try(Recording recording = new Recording()) {
+			recording.enable("com.springsecurity.TokenVerify");
+			recording.enable("com.springsecurity.PasswordMatch");
+			recording.start();
+
+			AuthTrace.tokenVerify().end(AuthMetrics.EXPIRED);
+			AuthTrace.passwordMatch().end("match");
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+				.filter(event -> event.getEventType().getName().startsWith("com.springsecurity."))
+				.toList();
+
+		assertThat(events).extracting(event -> event.getEventType().getName())
+				.contains("com.springsecurity.TokenVerify", "com.springsecurity.PasswordMatch");
+		assertThat(events).extracting(event -> event.getString("outcome"))
+				.contains(AuthMetrics.EXPIRED, "match");
+		assertThat(events).allSatisfy(event -> assertThat(event.getStackTrace()).isNull());
+	}
+
+	@Test
+	void serverTimingOnlyCollectsStartedRequests() {
+		AuthTrace.tokenVerify().end(AuthMetrics.VALID);
+		assertThat(ServerTiming.drain()).isNull();
+
+		ServerTiming.start();
+		try {
+			AuthTrace.tokenSign().end("issued");
+
+			assertThat(ServerTiming.drain()).matches("sign;dur=\\d+\\.\\d{3};desc=\"issued\"");
+			assertThat(ServerTiming.drain()).isNull();
+		}
+		finally {
+			ServerTiming.stop();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.springsecurity.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTableTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void burstIsAllowedThenRejectedUntilRefill() {
+		TokenBucketTable table = new TokenBucketTable(64, 3, SECOND);
+		long key = TokenBucketTable.hash("user@somemail.com");
+		long now = 10 * SECOND;
+
+		assertThat(table.tryAcquire(key, now)).isZero();
+		assertThat(table.tryAcquire(key, now)).isZero();
+		assertThat(table.tryAcquire(key, now)).isZero();
+		assertThat(table.tryAcquire(key, now)).isEqualTo(SECOND);
+		assertThat(table.tryAcquire(key, now + SECOND / 2)).isEqualTo(SECOND / 2);
+
+		assertThat(table.tryAcquire(key, now + SECOND)).isZero();
+		assertThat(table.tryAcquire(key, now + SECOND)).isPositive();
+	}
+
+	@Test
+	void keysHaveSeparateBuckets() {
+		TokenBucketTable table = new TokenBucketTable(64, 1, SECOND);
+		long now = 10 * SECOND;
+
+		assertThat(table.tryAcquire(TokenBucketTable.hash("10.0.0.1"), now)).isZero();
+		assertThat(table.tryAcquire(TokenBucketTable.hash("10.0.0.1"), now)).isPositive();
+		assertThat(table.tryAcquire(TokenBucketTable.hash("10.0.0.2"), now)).isZero();
+	}
+
+	@Test
+	void tableStaysBoundedAndReusesIdleBuckets() {
+		TokenBucketTable table = new TokenBucketTable(16, 1, SECOND);
+		long now = 10 * SECOND;
+
+		// Far more keys than slots, every new key still gets a bucket
+		for(int i = 0; i < 10_000; i++) {
+			assertThat(table.tryAcquire(TokenBucketTable.hash("key-" + i), now)).isZero();
+		}
+		assertThat(table.slots()).isEqualTo(16);
+
+		// Once idle, a throttled key is full again wherever it lands
+		long key = TokenBucketTable.hash("key-9999");
+		assertThat(table.tryAcquire(key, now)).isPositive();
+		assertThat(table.tryAcquire(key, now + SECOND)).isZero();
+	}
+}
@@ -0,0 +1,132 @@
+package com.springsecurity.security.services.impl;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.dto.VerifiedToken;
+import com.springsecurity.security.entities.RefreshToken;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.invalidation.InvalidationBus;
+import com.springsecurity.security.jwt.RefreshTokenIndex;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.repository.RefreshTokenRepository;
+import com.springsecurity.security.services.JWTService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceImplTests {
+
+	private RefreshTokenRepository refreshTokenRepository;
+	private RefreshTokenIndex refreshTokenIndex;
+	private JWTService jwtService;
+	private TransactionTemplate transactionTemplate;
+	private RefreshTokenServiceImpl refreshTokenService;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		AuthProperties authProperties = new AuthProperties();
+		refreshTokenRepository = mock(RefreshTokenRepository.class);
+		refreshTokenIndex = new RefreshTokenIndex(authProperties);
+		jwtService = mock(JWTService.class);
+		when(jwtService.generateRefreshedToken(any(), anyString(), anyString(), anyLong())).thenReturn("next");
+		transactionTemplate = mock(TransactionTemplate.class);
+		doAnswer(RefreshTokenServiceImplTests::runTransaction).when(transactionTemplate).executeWithoutResult(any());
+
+		refreshTokenService = new RefreshTokenServiceImpl(refreshTokenRepository, refreshTokenIndex, jwtService,
+				new AuthMetrics(new SimpleMeterRegistry()), transactionTemplate, authProperties,
+				mock(InvalidationBus.class));
+
+		user = new User();
+		user.setEmail("user@somemail.com");
+	}
+
+	@AfterEach
+	void tearDown() {
+		refreshTokenService.destroy();
+	}
+
+	private static Object runTransaction(InvocationOnMock invocation) {
+		invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+		return null;
+	}
+
+	private VerifiedToken refreshToken(String tokenId, String familyId) {
+		long now = System.currentTimeMillis();
+		return new VerifiedToken("token", user.getEmail(), now, now + 60_000, null, null, tokenId, familyId, 0L,
+				Map.of());
+	}
+
+	@Test
+	void refreshTokenIsUsableAgainWhenRotationIsRolledBack() {
+		refreshTokenIndex.put("token-id", "family-id", System.currentTimeMillis() + 60_000, RefreshTokenIndex.ACTIVE);
+		doThrow(new CannotCreateTransactionException("Database unavailable"))
+				.doAnswer(RefreshTokenServiceImplTests::runTransaction)
+				.when(transactionTemplate).executeWithoutResult(any());
+		when(refreshTokenRepository.markUsed("token-id")).thenReturn(1);
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(refreshToken("token-id", "family-id"), user))
+				.isInstanceOf(CannotCreateTransactionException.class);
+		assertThat(refreshTokenIndex.get("token-id").getState()).isEqualTo(RefreshTokenIndex.ACTIVE);
+
+		assertThat(refreshTokenService.rotate(refreshToken("token-id", "family-id"), user)).isEqualTo("next");
+		verify(refreshTokenRepository, never()).revokeFamily(anyString());
+	}
+
+	@Test
+	void revokingFamilyRevokesTheTokenIdsOfItsRefreshTokens() {
+		RefreshToken first = new RefreshToken();
+		first.setId("first");
+		first.setExpiresAt(Instant.ofEpochMilli(1_000_000L));
+		RefreshToken second = new RefreshToken();
+		second.setId("second");
+		second.setExpiresAt(Instant.ofEpochMilli(2_000_000L));
+		when(refreshTokenRepository.findLiveByFamily(eq("family-id"), any())).thenReturn(List.of(first, second));
+
+		refreshTokenService.revokeFamily("family-id");
+
+		assertThat(refreshTokenIndex.isFamilyRevoked("family-id")).isTrue();
+		verify(refreshTokenRepository).revokeFamily("family-id");
+		verify(jwtService).revokeToken("first", 1_000_000L);
+		verify(jwtService).revokeToken("second", 2_000_000L);
+	}
+
+	@Test
+	void reusedRefreshTokenRevokesItsFamily() {
+		refreshTokenIndex.put("token-id", "family-id", System.currentTimeMillis() + 60_000, RefreshTokenIndex.USED);
+
+		assertThatThrownBy(() -> refreshTokenService.rotate(refreshToken("token-id", "family-id"), user))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(refreshTokenRepository).revokeFamily("family-id");
+	}
+
+	@Test
+	void expiredRowsArePurgedByIdOnePageAtATime() {
+		int pageSize = new AuthProperties().getRefreshTokens().getPurgeBatchSize();
+		List<String> fullPage = IntStream.range(0, pageSize).mapToObj(i -> "expired-" + i).toList();
+		when(refreshTokenRepository.findExpiredIds(any(Instant.class), any(Pageable.class)))
+				.thenReturn(fullPage, List.of("last"));
+
+		refreshTokenService.purgeExpired();
+
+		verify(refreshTokenRepository).deleteAllByIdInBatch(fullPage);
+		verify(refreshTokenRepository).deleteAllByIdInBatch(List.of("last"));
+		verify(refreshTokenRepository, times(2)).findExpiredIds(any(Instant.class), any(Pageable.class));
+	}
+}
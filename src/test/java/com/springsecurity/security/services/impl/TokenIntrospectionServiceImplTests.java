@@ -0,0 +1,116 @@
+package com.springsecurity.security.services.impl;
+
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.config.JwtProperties;
+import com.springsecurity.security.dto.IntrospectionResponse;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.entities.User;
+import com.springsecurity.security.invalidation.InProcessInvalidationBus;
+import com.springsecurity.security.jwt.CompactTokenCodec;
+import com.springsecurity.security.jwt.CwtTokenCodec;
+import com.springsecurity.security.jwt.JwtKeyRing;
+import com.springsecurity.security.jwt.TokenRevocationList;
+import com.springsecurity.security.jwt.VerifiedTokenCache;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.services.JWTService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenIntrospectionServiceImplTests {
+
+	private JWTService jwtService;
+	private AuthProperties authProperties;
+	private TokenIntrospectionServiceImpl introspectionService;
+	private User user;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		user.setId(7);
+		user.setEmail("user@somemail.com");
+		user.setRole(Role.USER);
+
+		JwtProperties.KeyDefinition key = new JwtProperties.KeyDefinition();
+		key.setKid("test");
+		key.setSecret("413F4428472B4B6250655368566D5970337336763979244226452948404D6351");
+		key.setActive(true);
+		JwtProperties jwtProperties = new JwtProperties();
+		jwtProperties.getKeys().add(key);
+
+		JwtKeyRing keyRing = new JwtKeyRing(jwtProperties);
+		AuthMetrics authMetrics = new AuthMetrics(new SimpleMeterRegistry());
+		authProperties = new AuthProperties();
+		jwtService = new JWTServiceImpl(
+				new CompactTokenCodec(keyRing), new VerifiedTokenCache(jwtProperties),
+				authMetrics, new TokenRevocationList(jwtProperties),
+				new CwtTokenCodec(keyRing), jwtProperties, new InProcessInvalidationBus(authProperties, authMetrics));
+		authProperties.getIntrospection().setMaxTokens(3);
+		introspectionService = new TokenIntrospectionServiceImpl(jwtService, authProperties);
+	}
+
+	@Test
+	void activeTokenIsDescribed() {
+		String token = jwtService.generateToken(user);
+
+		IntrospectionResponse introspection = introspectionService.introspect(token);
+
+		assertThat(introspection.isActive()).isTrue();
+		assertThat(introspection.getSub()).isEqualTo("user@somemail.com");
+		assertThat(introspection.getRoles()).containsExactly("USER");
+		assertThat(introspection.getTokenType()).isEqualTo("access_token");
+		assertThat(introspection.getExp()).isGreaterThan(System.currentTimeMillis() / 1000);
+	}
+
+	@Test
+	void invalidAndRevokedTokensAreInactive() {
+		String token = jwtService.generateToken(user);
+		jwtService.revokeToken(jwtService.verifyToken(token));
+
+		assertThat(introspectionService.introspect(token)).isEqualTo(IntrospectionResponse.inactive());
+		assertThat(introspectionService.introspect("not.a.token")).isEqualTo(IntrospectionResponse.inactive());
+		assertThat(introspectionService.introspect(null).isActive()).isFalse();
+	}
+
+	@Test
+	void batchKeepsRequestOrderAndIsBounded() {
+		String token = jwtService.generateToken(user);
+
+		List<IntrospectionResponse> introspections = introspectionService.introspectAll(List.of("bad", token, ""));
+
+		assertThat(introspections).extracting(IntrospectionResponse::isActive).containsExactly(false, true, false);
+		assertThatThrownBy(() -> introspectionService.introspectAll(Collections.nCopies(4, token)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void cacheLifetimeIsBoundedByTheShortestActiveToken() {
+		authProperties.getIntrospection().setMaxAge(Duration.ofHours(1));
+		IntrospectionResponse active = introspectionService.introspect(jwtService.generateToken(user));
+		IntrospectionResponse inactive = IntrospectionResponse.inactive();
+
+		assertThat(introspectionService.cacheLifetime(List.of(inactive))).isEqualTo(Duration.ofHours(1));
+		assertThat(introspectionService.cacheLifetime(List.of(inactive, active)))
+				.isLessThanOrEqualTo(Duration.ofSeconds(active.getExp() - System.currentTimeMillis() / 1000));
+
+		active.setExp(System.currentTimeMillis() / 1000 - 1);
+		assertThat(introspectionService.cacheLifetime(List.of(active))).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	void tokenUsedBeforeItsNotBeforeIsNeverCached() {
+		authProperties.getIntrospection().setMaxAge(Duration.ofHours(1));
+		IntrospectionResponse notYetValid = IntrospectionResponse.notYetValid();
+
+		assertThat(notYetValid.isActive()).isFalse();
+		assertThat(introspectionService.cacheLifetime(List.of(IntrospectionResponse.inactive(), notYetValid)))
+				.isEqualTo(Duration.ZERO);
+	}
+}
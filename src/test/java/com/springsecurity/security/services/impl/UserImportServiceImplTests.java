@@ -0,0 +1,120 @@
+package com.springsecurity.security.services.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springsecurity.security.config.AuthProperties;
+import com.springsecurity.security.crypto.OffloadingPasswordEncoder;
+import com.springsecurity.security.crypto.PasswordHashingExecutor;
+import com.springsecurity.security.entities.Role;
+import com.springsecurity.security.metrics.AuthMetrics;
+import com.springsecurity.security.repository.UserRepository;
+import com.springsecurity.security.services.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceImplTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private JdbcTemplate jdbcTemplate;
+	private UserRepository userRepository;
+	private UserService userService;
+	private PasswordHashingExecutor executor;
+	private UserImportServiceImpl importService;
+
+	@BeforeEach
+	void setUp() {
+		AuthProperties authProperties = new AuthProperties();
+		authProperties.getHashing().setThreads(2);
+		authProperties.getBulkImport().setBatchSize(2);
+
+		jdbcTemplate = mock(JdbcTemplate.class);
+		userRepository = mock(UserRepository.class);
+		userService = mock(UserService.class);
+		executor = new PasswordHashingExecutor(authProperties, new AuthMetrics(new SimpleMeterRegistry()));
+		OffloadingPasswordEncoder passwordEncoder =
+				new OffloadingPasswordEncoder(NoOpPasswordEncoder.getInstance(), executor);
+
+		importService = new UserImportServiceImpl(
+				jdbcTemplate, userRepository, passwordEncoder, userService, objectMapper, authProperties);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.destroy();
+	}
+
+	private List<JsonNode> importUsers(String body) throws Exception {
+		ByteArrayOutputStream results = new ByteArrayOutputStream();
+		importService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), results);
+
+		List<JsonNode> lines = new ArrayList<>();
+		for(String line : results.toString(StandardCharsets.UTF_8).split("\n")) {
+			lines.add(objectMapper.readTree(line));
+		}
+		return lines;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void ndjsonRowsAreInsertedInBatchesWithOneResultPerRow() throws Exception {
+		when(userRepository.findExistingEmails(any())).thenReturn(List.of("taken@somemail.com"));
+
+		List<JsonNode> results = importUsers("""
+				{"firstName":"a","lastName":"a","email":"a@somemail.com","password":"a"}
+				{"firstName":"b","lastName":"b","email":"taken@somemail.com","password":"b"}
+				{"firstName":"c","lastName":"c","email":"c@somemail.com","password":"c","role":"ADMIN"}
+				{"firstName":"d","lastName":"d","email":"d@somemail.com"}
+				""");
+
+		assertThat(results).extracting(result -> result.get("status").asText())
+				.containsExactly("CREATED", "DUPLICATE", "CREATED", "INVALID");
+		assertThat(results).extracting(result -> result.get("row").asLong())
+				.containsExactly(1L, 2L, 3L, 4L);
+
+		ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+		assertThat(batches.getAllValues().get(0)).hasSize(1);
+		assertThat(batches.getAllValues().get(0).get(0))
+				.containsExactly("a", "a", "a@somemail.com", "a", Role.USER.ordinal());
+		assertThat(batches.getAllValues().get(1).get(0)[4]).isEqualTo(Role.ADMIN.ordinal());
+		verify(userService).evictNewUsers(List.of("a@somemail.com"));
+		verify(userService).evictNewUsers(List.of("c@somemail.com"));
+		verify(userService, never()).evictUser(anyString());
+	}
+
+	@Test
+	void arrayRowsStopAtTheFirstUnreadableRow() throws Exception {
+		when(userRepository.findExistingEmails(any())).thenReturn(List.of());
+
+		List<JsonNode> results = importUsers("""
+				[
+				  {"email":"a@somemail.com","password":"a"},
+				  {"email":"a@somemail.com","password":"a"},
+				  {"email":"b@somemail.com","password":"b"},
+				  "not a user",
+				  {"email":"c@somemail.com","password":"c"}
+				]
+				""");
+
+		assertThat(results).extracting(result -> result.get("status").asText())
+				.containsExactly("CREATED", "DUPLICATE", "CREATED", "FAILED");
+		assertThat(results.get(3).get("row").asLong()).isEqualTo(4L);
+	}
+}